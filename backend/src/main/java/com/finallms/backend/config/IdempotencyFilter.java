@@ -0,0 +1,300 @@
+package com.finallms.backend.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finallms.backend.dto.ErrorResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Idempotency-Key support for student POSTs. The first request with a key runs
+ * normally and its response is kept for {@code app.idempotency.ttl-hours}; a retry
+ * with the same key and the same request gets that response back without running
+ * the handler again, and a retry arriving while the first is still running waits
+ * for it. Keys are scoped to the caller, a reused key with a different request is
+ * rejected with 422, and server errors are not kept so they can be retried.
+ * Runs after Spring Security, so only authenticated requests reach it.
+ *
+ * <p>Executions are kept in memory on the node that ran them: a retry only
+ * replays when it reaches the same node, so behind a load balancer this needs
+ * sticky routing for student traffic. Multipart uploads are not covered. Turned
+ * off with {@code app.idempotency.enabled=false}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.idempotency.enabled", havingValue = "true", matchIfMissing = true)
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    private static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.idempotency.ttl-hours:24}")
+    private long ttlHours;
+    @Value("${app.idempotency.max-entries:100000}")
+    private long maxEntries;
+    @Value("${app.idempotency.max-response-bytes:65536}")
+    private int maxResponseBytes;
+    @Value("${app.idempotency.wait-ms:30000}")
+    private long waitMs;
+
+    private Cache<String, Execution> executions;
+
+    private static final class Execution {
+        private final String fingerprint;
+        // Completes with the response to replay, or null when the execution is not kept
+        private final CompletableFuture<StoredResponse> result = new CompletableFuture<>();
+
+        private Execution(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    private static final class StoredResponse {
+        private final int status;
+        private final String contentType;
+        private final byte[] body;
+
+        private StoredResponse(int status, String contentType, byte[] body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        executions = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofHours(Math.max(1, ttlHours)))
+                .maximumSize(Math.max(1, maxEntries))
+                .build();
+    }
+
+    // Multipart uploads are streamed to the handler, so there is no body to fingerprint them by
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return !"POST".equals(request.getMethod())
+                || !request.getRequestURI().startsWith(request.getContextPath() + "/api/student/")
+                || request.getHeader(HEADER) == null
+                || (contentType != null && contentType.startsWith(MediaType.MULTIPART_FORM_DATA_VALUE));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String idempotencyKey = request.getHeader(HEADER).trim();
+        if (auth == null || !auth.isAuthenticated()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            writeError(request, response, HttpServletResponse.SC_BAD_REQUEST, "Bad Request",
+                    "Invalid " + HEADER + " header");
+            return;
+        }
+
+        HttpServletRequest bufferedRequest = buffer(request);
+        String key = auth.getName() + "\n" + idempotencyKey;
+        String fingerprint = fingerprint(bufferedRequest);
+
+        while (true) {
+            Execution mine = new Execution(fingerprint);
+            Execution existing = executions.asMap().putIfAbsent(key, mine);
+            if (existing == null) {
+                execute(key, mine, bufferedRequest, response, chain);
+                return;
+            }
+            if (!existing.fingerprint.equals(fingerprint)) {
+                writeError(request, response, 422, "Unprocessable Entity",
+                        HEADER + " was already used for a different request");
+                return;
+            }
+            StoredResponse stored;
+            try {
+                stored = existing.result.get(waitMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                writeError(request, response, HttpServletResponse.SC_CONFLICT, "Conflict",
+                        "A request with this " + HEADER + " is still being processed");
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServletException(e);
+            } catch (ExecutionException e) {
+                stored = null;
+            }
+            if (stored != null) {
+                replay(stored, response);
+                return;
+            }
+            // The first execution was not kept (server error); run this one instead
+        }
+    }
+
+    private void execute(String key, Execution execution, HttpServletRequest request, HttpServletResponse response,
+            FilterChain chain) throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        StoredResponse stored = null;
+        try {
+            chain.doFilter(request, wrapper);
+            byte[] body = wrapper.getContentAsByteArray();
+            if (!request.isAsyncStarted() && wrapper.getStatus() < 500 && body.length <= maxResponseBytes)
+                stored = new StoredResponse(wrapper.getStatus(), wrapper.getContentType(), body);
+        } finally {
+            if (stored == null)
+                executions.asMap().remove(key, execution);
+            execution.result.complete(stored);
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private static void replay(StoredResponse stored, HttpServletResponse response) throws IOException {
+        response.setStatus(stored.status);
+        if (stored.contentType != null)
+            response.setContentType(stored.contentType);
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(stored.body.length);
+        response.getOutputStream().write(stored.body);
+    }
+
+    private void writeError(HttpServletRequest request, HttpServletResponse response, int status, String error,
+            String message) throws IOException {
+        ErrorResponse body = new ErrorResponse(LocalDateTime.now(), status, error, message,
+                "uri=" + request.getRequestURI());
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    // Method, path, query and body; form bodies are left to the container and hashed as parameters
+    private static String fingerprint(HttpServletRequest request) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update((request.getMethod() + " " + request.getRequestURI() + "?" + request.getQueryString() + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+        if (request instanceof BufferedRequest) {
+            digest.update(((BufferedRequest) request).body);
+        } else {
+            digest.update(String.valueOf(request.getContentLengthLong()).getBytes(StandardCharsets.UTF_8));
+            Map<String, String[]> parameters = new TreeMap<>(request.getParameterMap());
+            parameters.forEach((name, values) -> digest
+                    .update((name + "=" + Arrays.toString(values) + "\n").getBytes(StandardCharsets.UTF_8)));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static HttpServletRequest buffer(HttpServletRequest request) throws IOException {
+        String contentType = request.getContentType();
+        if (contentType != null && contentType.startsWith(MediaType.APPLICATION_FORM_URLENCODED_VALUE))
+            return request;
+        return new BufferedRequest(request, StreamUtils.copyToByteArray(request.getInputStream()));
+    }
+
+    // Request whose body was read up front for the fingerprint and is served again from memory
+    private static final class BufferedRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        private BufferedRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // The whole body is already in memory, so it is available and read at once
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        if (in.available() > 0)
+                            listener.onDataAvailable();
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
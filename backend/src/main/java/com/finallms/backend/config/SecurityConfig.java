@@ -3,6 +3,7 @@ package com.finallms.backend.config;
 import com.finallms.backend.service.CustomUserDetailsService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -36,6 +37,7 @@ public class SecurityConfig {
                 .antMatchers("/api/auth/**").permitAll()
                 .antMatchers("/api/student/all-courses").permitAll()
                 .antMatchers("/api/payments/webhook").permitAll()
+                .antMatchers(HttpMethod.GET, "/api/certificates/verify/**").permitAll()
                 .antMatchers("/", "/index.html", "/login.html", "/css/**", "/js/**", "/assets/**", "/admin/**",
                         "/student/**", "/uploads/**")
                 .permitAll()
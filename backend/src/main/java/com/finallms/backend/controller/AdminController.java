@@ -7,9 +7,13 @@ import com.finallms.backend.repository.*;
 import com.finallms.backend.service.*;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
 import java.util.List;
@@ -27,13 +31,19 @@ public class AdminController {
     private ReportService reportService;
 
     @Autowired
-    private PaymentRepository paymentRepository;
+    private CourseRollupService courseRollupService;
+
+    @Autowired
+    private StudentDirectoryService studentDirectoryService;
+
+    @Autowired
+    private PaymentLedgerService paymentLedgerService;
     @Autowired
     private UserRepository userRepository;
     @Autowired
     private EnrollmentRepository enrollmentRepository;
     @Autowired
-    private StudentService studentService;
+    private EnrollmentService enrollmentService;
 
     // Helper for JSON parsing
     private final ObjectMapper objectMapper = new ObjectMapper();
@@ -90,33 +100,41 @@ public class AdminController {
         return ResponseEntity.ok(reportService.getStats());
     }
 
+    @GetMapping("/reports/rollups")
+    public ResponseEntity<ReportDto.RollupReport> getRollupReport(
+            @RequestParam(defaultValue = "DAY") String period,
+            @RequestParam(required = false) Long courseId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) java.time.LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) java.time.LocalDate to) {
+        return ResponseEntity.ok(reportService.getRollupReport(period, courseId, from, to));
+    }
+
+    // Rebuilds every rollup from history in the background
+    @PostMapping("/reports/rollups/backfill")
+    public ResponseEntity<Map<String, Object>> backfillRollups() {
+        if (!courseRollupService.requestBackfill())
+            return ResponseEntity.status(503).body(Map.of("started", false));
+        return ResponseEntity.accepted().body(Map.of("started", true));
+    }
+
+    // Latest 50, kept for the dashboard; the ledger below pages through the rest
     @GetMapping("/payments")
     public ResponseEntity<java.util.List<com.finallms.backend.dto.PaymentDto.AdminPaymentResponse>> getPayments(
             @RequestParam(value = "status", required = false) String status) {
-        java.util.List<Payment> payments;
-        if (status != null && !status.isBlank()) {
-            PaymentStatus s = PaymentStatus.valueOf(status.toUpperCase());
-            payments = paymentRepository.findTop50ByStatusOrderByCreatedAtDesc(s);
-        } else {
-            payments = paymentRepository.findTop50ByOrderByCreatedAtDesc();
-        }
-        java.util.List<com.finallms.backend.dto.PaymentDto.AdminPaymentResponse> resp = payments.stream().map(p -> {
-            com.finallms.backend.dto.PaymentDto.AdminPaymentResponse r = new com.finallms.backend.dto.PaymentDto.AdminPaymentResponse();
-            r.setId(p.getId());
-            r.setOrderId(p.getOrderId());
-            r.setPaymentId(p.getPaymentId());
-            r.setSignature(p.getSignature());
-            r.setAmount(p.getAmount());
-            r.setStatus(p.getStatus() != null ? p.getStatus().name() : null);
-            r.setUserName(p.getUserName());
-            r.setUserId(p.getUser() != null ? p.getUser().getId() : null);
-            r.setCourseId(p.getCourse() != null ? p.getCourse().getId() : null);
-            r.setErrorReason(p.getErrorReason());
-            r.setCreatedAt(p.getCreatedAt());
-            r.setUpdatedAt(p.getUpdatedAt());
-            return r;
-        }).collect(Collectors.toList());
-        return ResponseEntity.ok(resp);
+        PaymentStatus s = status != null && !status.isBlank() ? PaymentStatus.valueOf(status.toUpperCase()) : null;
+        return ResponseEntity.ok(paymentLedgerService.getLedger(s, null, null, null, null, null, 50).getItems());
+    }
+
+    @GetMapping("/payments/ledger")
+    public ResponseEntity<PaymentDto.LedgerPage> getPaymentLedger(
+            @RequestParam(value = "status", required = false) PaymentStatus status,
+            @RequestParam(value = "courseId", required = false) Long courseId,
+            @RequestParam(value = "userId", required = false) Long userId,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) java.time.LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) java.time.LocalDate to,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "size", required = false) Integer size) {
+        return ResponseEntity.ok(paymentLedgerService.getLedger(status, courseId, userId, from, to, after, size));
     }
 
     // UPDATE ENDPOINTS
@@ -199,9 +217,10 @@ public class AdminController {
     @GetMapping("/students/{userId}")
     public ResponseEntity<?> getStudentDetails(@PathVariable Long userId) {
         var user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("Student not found"));
-        var enrollments = enrollmentRepository.findByUser(user);
-        var courseIds = enrollments.stream().map(e -> e.getCourse().getId()).collect(Collectors.toList());
-        var enrolledCourses = enrollments.stream().map(e -> e.getCourse().getTitle()).collect(Collectors.toList());
+        var enrollments = enrollmentRepository.findEntriesByUserId(userId);
+        var courseIds = enrollments.stream().map(StudentDto.EnrollmentEntry::getCourseId).collect(Collectors.toList());
+        var enrolledCourses = enrollments.stream().map(StudentDto.EnrollmentEntry::getCourseTitle)
+                .collect(Collectors.toList());
         java.util.Map<String, Object> result = new java.util.LinkedHashMap<>();
         result.put("courseIds", courseIds);
         result.put("name", user.getName() != null ? user.getName() : "");
@@ -212,19 +231,23 @@ public class AdminController {
         return ResponseEntity.ok(result);
     }
 
+    // Every student (or those matching q), newest first, streamed page by page; the directory below pages
     @GetMapping("/students")
-    public ResponseEntity<List<Map<String, Object>>> getAllStudents() {
-        var students = studentService.getAllStudents();
-        var response = students.stream().map(u -> {
-            java.util.Map<String, Object> m = new java.util.LinkedHashMap<>();
-            m.put("id", u.getId());
-            m.put("name", u.getName() != null ? u.getName() : "");
-            m.put("email", u.getEmail() != null ? u.getEmail() : "");
-            m.put("phone", u.getPhone() != null ? u.getPhone() : "");
-            m.put("address", u.getAddress() != null ? u.getAddress() : "");
-            return m;
-        }).collect(Collectors.toList());
-        return ResponseEntity.ok(response);
+    public ResponseEntity<StreamingResponseBody> getAllStudents(
+            @RequestParam(value = "q", required = false) String q) {
+        // Checked before streaming starts so a bad query still gets a 400
+        studentDirectoryService.checkQuery(q);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> studentDirectoryService.writeAll(q, out));
+    }
+
+    @GetMapping("/students/directory")
+    public ResponseEntity<StudentDto.DirectoryPage> getStudentDirectory(
+            @RequestParam(value = "q", required = false) String q,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "size", required = false) Integer size) {
+        return ResponseEntity.ok(studentDirectoryService.getDirectory(q, after, size));
     }
 
     // STUDENT MANAGEMENT
@@ -269,11 +292,7 @@ public class AdminController {
         if (enrollmentRepository.findByUserAndCourseId(user, courseId).isPresent()) {
             return ResponseEntity.badRequest().body("Student is already enrolled in this course");
         }
-        com.finallms.backend.entity.Enrollment enrollment = new com.finallms.backend.entity.Enrollment();
-        enrollment.setUser(user);
-        enrollment.setCourse(course);
-        enrollment.setEnrolledAt(java.time.LocalDateTime.now());
-        enrollmentRepository.save(enrollment);
+        enrollmentService.enroll(user.getId(), course.getId());
         return ResponseEntity.ok("Course assigned successfully");
     }
 
@@ -283,7 +302,7 @@ public class AdminController {
         if (!enrollmentRepository.existsById(enrollmentId)) {
             return ResponseEntity.badRequest().body("Enrollment not found");
         }
-        enrollmentRepository.deleteById(enrollmentId);
+        enrollmentService.remove(enrollmentId);
         return ResponseEntity.ok("Enrollment removed successfully");
     }
 
@@ -291,7 +310,7 @@ public class AdminController {
     @DeleteMapping("/students/{userId}")
     public ResponseEntity<?> deleteStudent(@PathVariable Long userId) {
         User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("Student not found"));
-        enrollmentRepository.findByUser(user).forEach(e -> enrollmentRepository.deleteById(e.getId()));
+        enrollmentRepository.findByUser(user).forEach(e -> enrollmentService.remove(e.getId()));
         userRepository.deleteById(userId);
         return ResponseEntity.ok("Student deleted successfully");
     }
@@ -299,12 +318,12 @@ public class AdminController {
     // Get enrollments with enrollment IDs (for remove button)
     @GetMapping("/students/{userId}/enrollments")
     public ResponseEntity<?> getStudentEnrollments(@PathVariable Long userId) {
-        User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("Student not found"));
-        var enrollments = enrollmentRepository.findByUser(user);
-        var result = enrollments.stream().map(e -> java.util.Map.of(
-                "enrollmentId", e.getId(),
-                "courseId", e.getCourse().getId(),
-                "courseTitle", e.getCourse().getTitle(),
+        if (!userRepository.existsById(userId))
+            throw new RuntimeException("Student not found");
+        var result = enrollmentRepository.findEntriesByUserId(userId).stream().map(e -> java.util.Map.of(
+                "enrollmentId", e.getEnrollmentId(),
+                "courseId", e.getCourseId(),
+                "courseTitle", e.getCourseTitle(),
                 "enrolledAt", e.getEnrolledAt() != null ? e.getEnrolledAt().toString() : ""))
                 .collect(Collectors.toList());
         return ResponseEntity.ok(result);
@@ -342,4 +361,143 @@ public class AdminController {
             @RequestBody QuestionDto.CreateQuestionRequest request) {
         return ResponseEntity.ok(examService.addQuestion(examId, request));
     }
+
+    @Autowired
+    private QuestionImportService questionImportService;
+
+    // Bulk question import; columns: questionText, type, marks, options (a|b|c), correctAnswer
+    @PostMapping("/exams/{examId}/questions/import")
+    public ResponseEntity<QuestionDto.ImportResponse> importQuestions(@PathVariable Long examId,
+            @RequestParam("file") MultipartFile file) {
+        return ResponseEntity.ok(questionImportService.importQuestions(examId, file));
+    }
+
+    // MANUAL GRADING
+
+    @Autowired
+    private GradingService gradingService;
+
+    @GetMapping("/grading/queue")
+    public ResponseEntity<GradingDto.QueuePage> getGradingQueue(
+            @RequestParam(value = "examId", required = false) Long examId,
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "size", required = false) Integer size) {
+        return ResponseEntity.ok(gradingService.getQueue(examId, after, size));
+    }
+
+    @PostMapping("/grading/grade")
+    public ResponseEntity<GradingDto.BulkGradeResponse> gradeAnswers(@RequestBody GradingDto.BulkGradeRequest request) {
+        return ResponseEntity.ok(gradingService.gradeAnswers(request));
+    }
+
+    // EXAM ANALYTICS
+
+    @Autowired
+    private ExamAnalyticsService examAnalyticsService;
+
+    @GetMapping("/exams/{examId}/analytics")
+    public ResponseEntity<ExamAnalyticsDto.ExamAnalyticsResponse> getExamAnalytics(@PathVariable Long examId) {
+        return ResponseEntity.ok(examAnalyticsService.getExamAnalytics(examId));
+    }
+
+    @PostMapping("/exams/{examId}/analytics/backfill")
+    public ResponseEntity<ExamAnalyticsDto.BackfillResponse> backfillExamAnalytics(@PathVariable Long examId) {
+        return ResponseEntity.ok(examAnalyticsService.backfillExam(examId));
+    }
+
+    // CERTIFICATE RENDERING
+
+    @Autowired
+    private CertificateRenderService certificateRenderService;
+
+    @Autowired
+    private CohortCertificateService cohortCertificateService;
+
+    // Every eligible student's certificate as a ZIP, streamed as renders finish
+    @GetMapping("/courses/{courseId}/certificates/zip")
+    public ResponseEntity<StreamingResponseBody> downloadCohortCertificates(@PathVariable Long courseId) {
+        List<Certificate> certificates = cohortCertificateService.issueForCohort(courseId);
+        StreamingResponseBody body = out -> cohortCertificateService.writeZip(certificates, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"course-" + courseId + "-certificates.zip\"")
+                .body(body);
+    }
+
+    // EXPORTS (streamed from the database as CSV or XLSX)
+
+    @Autowired
+    private DataExportService dataExportService;
+
+    @GetMapping("/exports/students")
+    public ResponseEntity<StreamingResponseBody> exportStudents(
+            @RequestParam(value = "format", defaultValue = "csv") String format) {
+        ExportFormat f = DataExportService.parseFormat(format);
+        return exportResponse("students", f, dataExportService.exportStudents(f));
+    }
+
+    @GetMapping("/exports/enrollments")
+    public ResponseEntity<StreamingResponseBody> exportEnrollments(
+            @RequestParam(value = "format", defaultValue = "csv") String format,
+            @RequestParam(value = "courseId", required = false) Long courseId) {
+        ExportFormat f = DataExportService.parseFormat(format);
+        return exportResponse("enrollments", f, dataExportService.exportEnrollments(f, courseId));
+    }
+
+    @GetMapping("/exports/payments")
+    public ResponseEntity<StreamingResponseBody> exportPayments(
+            @RequestParam(value = "format", defaultValue = "csv") String format,
+            @RequestParam(value = "status", required = false) PaymentStatus status,
+            @RequestParam(value = "courseId", required = false) Long courseId,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) java.time.LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) java.time.LocalDate to) {
+        ExportFormat f = DataExportService.parseFormat(format);
+        return exportResponse("payments", f, dataExportService.exportPayments(f, status, courseId, from, to));
+    }
+
+    @GetMapping("/exports/results")
+    public ResponseEntity<StreamingResponseBody> exportResults(
+            @RequestParam(value = "format", defaultValue = "csv") String format,
+            @RequestParam(value = "courseId", required = false) Long courseId,
+            @RequestParam(value = "examId", required = false) Long examId) {
+        ExportFormat f = DataExportService.parseFormat(format);
+        return exportResponse("results", f, dataExportService.exportResults(f, courseId, examId));
+    }
+
+    private ResponseEntity<StreamingResponseBody> exportResponse(String name, ExportFormat format,
+            StreamingResponseBody body) {
+        String extension = format == ExportFormat.XLSX ? "xlsx" : "csv";
+        MediaType type = format == ExportFormat.XLSX
+                ? MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
+                : MediaType.parseMediaType("text/csv; charset=UTF-8");
+        return ResponseEntity.ok()
+                .contentType(type)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + "-"
+                        + java.time.LocalDate.now().format(java.time.format.DateTimeFormatter.BASIC_ISO_DATE) + "."
+                        + extension + "\"")
+                .body(body);
+    }
+
+    // Queue depth, rejections and render latency of the certificate render pool
+    @GetMapping("/certificates/render-stats")
+    public ResponseEntity<CertificateDto.RenderStatsResponse> getCertificateRenderStats() {
+        return ResponseEntity.ok(certificateRenderService.getStats());
+    }
+
+    // OTP DELIVERY
+
+    @Autowired
+    private OtpDeliveryService otpDeliveryService;
+
+    @GetMapping("/otp/delivery-stats")
+    public ResponseEntity<AuthDto.OtpDeliveryStats> getOtpDeliveryStats() {
+        return ResponseEntity.ok(otpDeliveryService.getStats());
+    }
+
+    // Status of the latest OTP sent to a phone (digits only) or email, for support
+    @GetMapping("/otp/deliveries")
+    public ResponseEntity<AuthDto.OtpDeliveryResponse> getOtpDelivery(@RequestParam String recipient) {
+        return ResponseEntity.ok(otpDeliveryService.getLatest(recipient.trim()));
+    }
 }
@@ -3,81 +3,241 @@ package com.finallms.backend.controller;
 import com.finallms.backend.entity.*;
 import com.finallms.backend.repository.*;
 import com.finallms.backend.service.*;
+import com.finallms.backend.dto.CertificateDto;
+import com.finallms.backend.enums.CertificateJobStatus;
+import com.finallms.backend.exception.BadRequestException;
+import com.finallms.backend.exception.ResourceNotFoundException;
+import com.finallms.backend.exception.ServiceBusyException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
+import java.net.URI;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/certificates")
 public class CertificateController {
 
+    private static final String NOT_ISSUED = "Certificate not issued yet. It is issued once you complete all "
+            + "modules, videos, assignments and exams";
+
     @Autowired
-    private CertificateService certificateService;
+    private UserRepository userRepository;
 
     @Autowired
-    private StudentService studentService;
+    private CourseRepository courseRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private CertificateRepository certificateRepository;
 
     @Autowired
-    private CourseRepository courseRepository;
+    private CertificateArtifactService certificateArtifactService;
+
+    @Autowired
+    private CertificateRenderService certificateRenderService;
+
+    @Autowired
+    private CertificateVerificationService certificateVerificationService;
+
+    @Autowired
+    private CertificateIssuanceService certificateIssuanceService;
 
+    // How long a download waits for a queued render before answering 202 with the job
+    @Value("${app.certificate.download-wait-ms:20000}")
+    private long downloadWaitMs;
+
+    /**
+     * Serves the certificate PDF. When a render has to be queued the request is
+     * held asynchronously, without tying up a servlet thread, until the job
+     * finishes or the download wait runs out, which answers 202 with the job.
+     */
     @GetMapping("/download/{courseId}")
-    public ResponseEntity<byte[]> downloadCertificate(@PathVariable Long courseId, Authentication authentication) {
+    public DeferredResult<ResponseEntity<?>> downloadCertificate(@PathVariable Long courseId,
+            Authentication authentication,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         System.out.println("DEBUG: Received certificate download request for course " + courseId);
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(Math.max(1L, downloadWaitMs));
         try {
-            String identifier = authentication.getName();
-            System.out.println("DEBUG: Authenticated user identifier: " + identifier);
-
-            User user;
-            if (identifier.contains("@")) {
-                user = userRepository.findByEmail(identifier)
-                        .orElseThrow(() -> new RuntimeException("User not found with email: " + identifier));
-            } else {
-                user = userRepository.findByPhone(identifier)
-                        .orElseThrow(() -> new RuntimeException("User not found with phone: " + identifier));
-            }
+            User user = resolveUser(authentication);
+            System.out.println("DEBUG: Authenticated user identifier: " + authentication.getName());
 
             Course course = courseRepository.findById(courseId)
                     .orElseThrow(() -> new RuntimeException("Course not found"));
 
-            System.out.println("DEBUG: User Name from DB: '" + user.getName() + "', User ID: " + user.getId()
-                    + ", Role: " + user.getRole());
+            Certificate certificate = issuedCertificate(user, course);
+            if (certificate == null) {
+                result.setResult(new ResponseEntity<>(
+                        NOT_ISSUED.getBytes(),
+                        HttpStatus.FORBIDDEN));
+                return result;
+            }
 
-            // Check if course is completed
-            if (!studentService.isCourseCompleted(user, course)) {
-                return new ResponseEntity<>(
-                        "You must complete all modules, videos, assignments and exams to download the certificate"
-                                .getBytes(),
-                        HttpStatus.FORBIDDEN);
+            String etag = "\"" + certificateArtifactService.fingerprint(certificate) + "\"";
+            CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+            if (etag.equals(ifNoneMatch)) {
+                result.setResult(
+                        ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build());
+                return result;
             }
 
-            System.out.println(
-                    "DEBUG: Generating certificate for user " + user.getId() + " and course " + course.getId());
+            // Renders go through the bounded render pool; wait a while, then hand out the job
+            CertificateDto.RenderJobResponse job = certificateRenderService.request(certificate);
+            if (job.getStatus() == CertificateJobStatus.READY) {
+                result.setResult(pdfResponse(user, certificate, etag, cacheControl));
+                return result;
+            }
+            String jobId = job.getJobId();
+            if (downloadWaitMs <= 0) {
+                result.setResult(jobAccepted(jobId, user.getId()));
+                return result;
+            }
+            result.onTimeout(() -> result.setResult(jobAccepted(jobId, user.getId())));
+            certificateRenderService.awaitJob(jobId, user.getId()).thenAccept(done -> {
+                if (done.getStatus() != CertificateJobStatus.READY) {
+                    result.setResult(new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR));
+                    return;
+                }
+                try {
+                    Certificate rendered = certificateRenderService.getReadyCertificate(jobId, user.getId());
+                    result.setResult(pdfResponse(user, rendered, etag, cacheControl));
+                } catch (Exception e) {
+                    result.setResult(new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR));
+                }
+            });
+            return result;
+
+        } catch (ServiceBusyException e) {
+            result.setResult(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .build());
+            return result;
+        } catch (Exception e) {
+            System.err.println("DEBUG: Controller caught exception:");
+            e.printStackTrace();
+            result.setResult(new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR));
+            return result;
+        }
+    }
 
-            byte[] pdfBytes = certificateService.generatePdfCertificate(user, course);
-            System.out.println("DEBUG: Certificate generated, size: " + pdfBytes.length);
+    private ResponseEntity<?> jobAccepted(String jobId, Long userId) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/certificates/jobs/" + jobId))
+                .body(certificateRenderService.getJob(jobId, userId));
+    }
 
-            String filename = "Certificate_" + user.getName().replaceAll("\\s+", "_") + ".pdf";
+    // Queue a render and return the job to poll; READY at once when the stored PDF is current
+    @PostMapping("/jobs/{courseId}")
+    public ResponseEntity<?> requestCertificate(@PathVariable Long courseId, Authentication authentication) {
+        User user = resolveUser(authentication);
+        Course course = courseRepository.findById(courseId)
+                .orElseThrow(() -> new ResourceNotFoundException("Course not found"));
+        Certificate certificate = issuedCertificate(user, course);
+        if (certificate == null) {
+            throw new BadRequestException(NOT_ISSUED);
+        }
+        CertificateDto.RenderJobResponse job = certificateRenderService.request(certificate);
+        if (job.getStatus() == CertificateJobStatus.READY)
+            return ResponseEntity.ok(job);
+        return ResponseEntity.accepted().location(URI.create("/api/certificates/jobs/" + job.getJobId())).body(job);
+    }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDispositionFormData("attachment", filename);
-            headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
+    /**
+     * Job status. With waitSeconds the response is held until the job finishes or
+     * the wait runs out, so clients learn of completion without tight polling.
+     */
+    @GetMapping("/jobs/{jobId}")
+    public DeferredResult<CertificateDto.RenderJobResponse> getJob(@PathVariable String jobId,
+            @RequestParam(defaultValue = "0") int waitSeconds, Authentication authentication) {
+        Long userId = resolveUser(authentication).getId();
+        int wait = Math.max(0, Math.min(waitSeconds, 60));
+        CertificateDto.RenderJobResponse current = certificateRenderService.getJob(jobId, userId);
+        DeferredResult<CertificateDto.RenderJobResponse> result = new DeferredResult<>(wait * 1000L);
+        if (wait == 0 || current.getStatus() == CertificateJobStatus.READY
+                || current.getStatus() == CertificateJobStatus.FAILED) {
+            result.setResult(current);
+            return result;
+        }
+        result.onTimeout(() -> result.setResult(certificateRenderService.getJob(jobId, userId)));
+        certificateRenderService.awaitJob(jobId, userId).thenAccept(result::setResult);
+        return result;
+    }
 
-            return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
+    @GetMapping("/jobs/{jobId}/download")
+    public ResponseEntity<byte[]> downloadJob(@PathVariable String jobId, Authentication authentication)
+            throws IOException {
+        User user = resolveUser(authentication);
+        Certificate certificate = certificateRenderService.getReadyCertificate(jobId, user.getId());
+        String etag = "\"" + certificateArtifactService.fingerprint(certificate) + "\"";
+        return pdfResponse(user, certificate, etag, CacheControl.noCache().cachePrivate());
+    }
 
-        } catch (Exception e) {
-            System.err.println("DEBUG: Controller caught exception:");
-            e.printStackTrace();
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    /**
+     * Public verification of a certificate id, as linked from the printed
+     * certificate. Rate limited per client IP; answers are publicly cacheable.
+     */
+    @GetMapping("/verify/{certificateId}")
+    public ResponseEntity<CertificateDto.VerificationResponse> verifyCertificate(@PathVariable String certificateId,
+            HttpServletRequest request, WebRequest webRequest) {
+        certificateVerificationService.checkRateLimit(request.getRemoteAddr());
+        Optional<CertificateDto.VerificationResponse> found = certificateVerificationService.verify(certificateId);
+        if (found.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .cacheControl(CacheControl.maxAge(1, TimeUnit.MINUTES).cachePublic())
+                    .body(CertificateDto.VerificationResponse.builder().certificateId(certificateId).valid(false)
+                            .build());
+        }
+        CertificateDto.VerificationResponse verification = found.get();
+        String etag = "\"" + Integer.toHexString(verification.hashCode()) + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(10, TimeUnit.MINUTES).cachePublic())
+                .eTag(etag)
+                .body(verification);
+    }
+
+    private ResponseEntity<byte[]> pdfResponse(User user, Certificate certificate, String etag,
+            CacheControl cacheControl) throws IOException {
+        byte[] pdfBytes = certificateArtifactService.getOrRender(certificate);
+        System.out.println("DEBUG: Certificate ready, size: " + pdfBytes.length);
+
+        String filename = "Certificate_" + user.getName().replaceAll("\\s+", "_") + ".pdf";
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.setContentDispositionFormData("attachment", filename);
+        headers.setCacheControl(cacheControl);
+        headers.setETag(etag);
+
+        return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
+    }
+
+    // Issued on completion, so this is normally a fetch; with none on record it checks completion and may issue
+    private Certificate issuedCertificate(User user, Course course) {
+        return certificateRepository.findByUserAndCourse(user, course)
+                .orElseGet(() -> certificateIssuanceService.issueOnDownload(user, course));
+    }
+
+    private User resolveUser(Authentication authentication) {
+        String identifier = authentication.getName();
+        if (identifier.contains("@")) {
+            return userRepository.findByEmail(identifier)
+                    .orElseThrow(() -> new RuntimeException("User not found with email: " + identifier));
         }
+        return userRepository.findByPhone(identifier)
+                .orElseThrow(() -> new RuntimeException("User not found with phone: " + identifier));
     }
 }
@@ -0,0 +1,49 @@
+package com.finallms.backend.controller;
+
+import com.finallms.backend.dto.PaymentDto;
+import com.finallms.backend.entity.Payment;
+import com.finallms.backend.entity.User;
+import com.finallms.backend.exception.ResourceNotFoundException;
+import com.finallms.backend.repository.PaymentRepository;
+import com.finallms.backend.repository.UserRepository;
+import com.finallms.backend.service.FakePaymentGateway;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.security.Principal;
+
+/**
+ * Stands in for the Razorpay checkout page when the fake provider is active: pays
+ * an order of the logged-in student and returns the fields the page would post to
+ * /payment/verify. Not registered at all with the real provider.
+ */
+@RestController
+@RequestMapping("/api/student/payment/fake-checkout")
+@ConditionalOnProperty(name = "app.payments.provider", havingValue = "fake")
+public class FakeCheckoutController {
+
+    @Autowired
+    private FakePaymentGateway fakePaymentGateway;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @PostMapping("/{orderId}")
+    public ResponseEntity<?> pay(Principal principal, @PathVariable String orderId,
+            @RequestParam(defaultValue = "true") boolean succeed) {
+        if (principal == null)
+            return ResponseEntity.status(401).body("Please login to pay");
+        // Someone else's order is answered as missing, like one that does not exist
+        User user = userRepository.findByEmail(principal.getName())
+                .or(() -> userRepository.findByPhone(principal.getName()))
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        Payment payment = paymentRepository.findByOrderId(orderId)
+                .filter(p -> p.getUser() != null && user.getId().equals(p.getUser().getId()))
+                .orElseThrow(() -> new ResourceNotFoundException("Order not found"));
+        PaymentDto.VerifyRequest checkout = fakePaymentGateway.pay(payment.getOrderId(), succeed);
+        return ResponseEntity.ok(checkout);
+    }
+}
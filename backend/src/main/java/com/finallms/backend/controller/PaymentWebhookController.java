@@ -15,14 +15,22 @@ public class PaymentWebhookController {
     @Autowired
     private com.finallms.backend.service.PaymentService paymentService;
 
+    @Autowired
+    private com.finallms.backend.service.WebhookInboxService webhookInboxService;
+
+    // Acknowledged once stored in the inbox; the payment is updated in the background
     @PostMapping("/webhook")
     public ResponseEntity<?> webhook(@RequestBody String payload,
-                                     @RequestHeader(name = "X-Razorpay-Signature", required = false) String signature) {
-        boolean ok = paymentService.handleWebhook(payload, signature);
-        if (ok) {
-            return ResponseEntity.ok().build();
-        } else {
+                                     @RequestHeader(name = "X-Razorpay-Signature", required = false) String signature,
+                                     @RequestHeader(name = "X-Razorpay-Event-Id", required = false) String eventId) {
+        if (!paymentService.verifyWebhookSignature(payload, signature)) {
+            return ResponseEntity.status(400).body("Invalid webhook");
+        }
+        try {
+            webhookInboxService.receive(payload, signature, eventId);
+        } catch (org.json.JSONException e) {
             return ResponseEntity.status(400).body("Invalid webhook");
         }
+        return ResponseEntity.ok().build();
     }
 }
@@ -1,10 +1,7 @@
 package com.finallms.backend.controller;
 
 import com.finallms.backend.dto.*;
-import com.finallms.backend.entity.Answer;
-import com.finallms.backend.entity.ExamSubmission;
 import com.finallms.backend.entity.User;
-import com.finallms.backend.repository.ExamSubmissionRepository;
 import com.finallms.backend.repository.UserRepository;
 import com.finallms.backend.service.*;
 import com.finallms.backend.util.JwtUtil;
@@ -38,7 +35,7 @@ public class StudentController {
     private UserRepository userRepository;
 
     @Autowired
-    private ExamSubmissionRepository examSubmissionRepository;
+    private ExamResultService examResultService;
 
     @PostMapping("/enroll/{courseId}")
     public ResponseEntity<?> enrollFree(Principal principal, @PathVariable Long courseId) {
@@ -161,27 +158,7 @@ public class StudentController {
         User student = userRepository.findByPhone(principal.getName())
                 .or(() -> userRepository.findByEmail(principal.getName()))
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        List<ExamSubmission> submissions = examSubmissionRepository.findByStudent(student);
-        var result = submissions.stream().map(sub -> {
-            java.util.Map<String, Object> m = new java.util.LinkedHashMap<>();
-            m.put("submissionId", sub.getId());
-            m.put("examId", sub.getExam().getId());
-            m.put("examTitle", sub.getExam().getTitle() != null ? sub.getExam().getTitle() : "Exam");
-            m.put("moduleTitle", sub.getExam().getModule() != null && sub.getExam().getModule().getTitle() != null
-                    ? sub.getExam().getModule().getTitle()
-                    : "");
-            m.put("courseName", sub.getExam().getModule() != null && sub.getExam().getModule().getCourse() != null
-                    ? sub.getExam().getModule().getCourse().getTitle()
-                    : "");
-            m.put("obtainedMarks", sub.getTotalObtainedMarks());
-            m.put("totalQuestions", sub.getExam().getQuestions() != null ? sub.getExam().getQuestions().size() : 0);
-            m.put("passingMarks", sub.getExam().getPassingMarks());
-            m.put("status", sub.getStatus() != null ? sub.getStatus().name() : "SUBMITTED");
-            m.put("passed", sub.getTotalObtainedMarks() >= sub.getExam().getPassingMarks());
-            m.put("submittedAt", sub.getSubmittedAt() != null ? sub.getSubmittedAt().toString() : "");
-            return m;
-        }).collect(java.util.stream.Collectors.toList());
-        return ResponseEntity.ok(result);
+        return ResponseEntity.ok(examResultService.getMyResults(student.getId()));
     }
 
     // EXAM REVIEW — shows which questions were right/wrong, but NOT the correct
@@ -193,44 +170,11 @@ public class StudentController {
         User student = userRepository.findByPhone(principal.getName())
                 .or(() -> userRepository.findByEmail(principal.getName()))
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        com.finallms.backend.entity.ExamSubmission sub = examSubmissionRepository.findById(submissionId)
-                .orElseThrow(() -> new RuntimeException("Submission not found"));
+        ExamSubmissionDto.SubmissionReviewResponse review = examResultService.getSubmissionReview(submissionId);
         // Ensure this submission belongs to this student
-        if (!sub.getStudent().getId().equals(student.getId())) {
+        if (!student.getId().equals(review.getStudentId())) {
             return ResponseEntity.status(403).body("Forbidden");
         }
-        // Build summary
-        java.util.Map<String, Object> summary = new java.util.LinkedHashMap<>();
-        summary.put("examTitle", sub.getExam().getTitle() != null ? sub.getExam().getTitle() : "Exam");
-        summary.put("obtainedMarks", sub.getTotalObtainedMarks());
-        summary.put("totalQuestions", sub.getAnswers() != null ? sub.getAnswers().size() : 0);
-        summary.put("passingMarks", sub.getExam().getPassingMarks());
-        summary.put("passed", sub.getTotalObtainedMarks() >= sub.getExam().getPassingMarks());
-        summary.put("submittedAt", sub.getSubmittedAt() != null ? sub.getSubmittedAt().toString() : "");
-
-        // Build per-question review — NO correctAnswer exposed
-        List<Answer> answers = sub.getAnswers() != null ? sub.getAnswers() : java.util.Collections.emptyList();
-        var questions = answers.stream().map(ans -> {
-            java.util.Map<String, Object> q = new java.util.LinkedHashMap<>();
-            q.put("questionText", ans.getQuestion().getQuestionText());
-            q.put("questionType",
-                    ans.getQuestion().getType() != null ? ans.getQuestion().getType().name() : "MCQ");
-            q.put("studentAnswer", ans.getStudentAnswer() != null ? ans.getStudentAnswer() : "(No answer)");
-            q.put("marksObtained", ans.getMarksObtained());
-            q.put("maxMarks", ans.getQuestion().getMarks());
-            // correct = full marks obtained, incorrect = 0 marks
-            q.put("isCorrect", ans.getMarksObtained() > 0);
-            q.put("adminRemarks", ans.getAdminRemarks() != null ? ans.getAdminRemarks() : "");
-            // optionsJson for MCQ display (so student can see what options were)
-            q.put("optionsJson", ans.getQuestion().getType() != null
-                    && ans.getQuestion().getType().name().equals("MCQ")
-                            ? ans.getQuestion().getOptionsJson()
-                            : null);
-            // correctAnswer is intentionally OMITTED
-            return q;
-        }).collect(java.util.stream.Collectors.toList());
-
-        summary.put("questions", questions);
-        return ResponseEntity.ok(summary);
+        return ResponseEntity.ok(review);
     }
 }
@@ -200,4 +200,38 @@ public class AuthDto {
             this.address = address;
         }
     }
+
+    // Latest OTP delivery to one phone or email, for support
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class OtpDeliveryResponse {
+        private String channel;
+        private String recipient;
+        private com.finallms.backend.enums.OtpDeliveryStatus status;
+        private int attempts;
+        private String lastError;
+        private java.time.LocalDateTime queuedAt;
+        private java.time.LocalDateTime sentAt;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class OtpDeliveryStats {
+        private String smsProvider;
+        private int workers;
+        private int queueCapacity;
+        private int queueDepth;
+        private int activeSends;
+        private long queued;
+        private long rejected;
+        private long sent;
+        private long retried;
+        private long failed;
+        private long avgDeliveryMs;
+        private long maxDeliveryMs;
+    }
 }
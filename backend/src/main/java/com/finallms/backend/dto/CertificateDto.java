@@ -0,0 +1,67 @@
+package com.finallms.backend.dto;
+
+import com.finallms.backend.enums.CertificateJobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+public class CertificateDto {
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class RenderJobResponse {
+        private String jobId;
+        private Long courseId;
+        private String certificateId;
+        private CertificateJobStatus status;
+        private String error;
+        private LocalDateTime requestedAt;
+        private LocalDateTime completedAt;
+        private String downloadUrl; // set once READY
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class RenderStatsResponse {
+        private int concurrency;
+        private int queueCapacity;
+        private int queueDepth;
+        private int activeRenders;
+        private long submitted;
+        private long rejected;
+        private long completed;
+        private long failed;
+        private long avgRenderMs;
+        private long p95RenderMs;
+        private long maxRenderMs;
+        private long avgQueueWaitMs;
+        private long freeHeapMb;
+    }
+
+    // Public verification result; only what a printed certificate already shows
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class VerificationResponse {
+        private String certificateId;
+        private boolean valid;
+        private String studentName;
+        private String courseTitle;
+        private Integer courseDuration;
+        private LocalDateTime issuedDate;
+        private String verificationUrl;
+
+        public VerificationResponse(String certificateId, String studentName, String courseTitle,
+                Integer courseDuration, LocalDateTime issuedDate, String verificationUrl) {
+            this(certificateId, true, studentName, courseTitle, courseDuration, issuedDate, verificationUrl);
+        }
+    }
+}
@@ -308,4 +308,13 @@ public class CourseDto {
             this.instructor = instructor;
         }
     }
+
+    // Per-student count of course items (completed videos, submissions, passed exams)
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StudentCount {
+        private Long userId;
+        private long count;
+    }
 }
@@ -0,0 +1,63 @@
+package com.finallms.backend.dto;
+
+import com.finallms.backend.enums.QuestionType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public class ExamAnalyticsDto {
+
+    // One graded answer, as fed into the running statistics
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder(toBuilder = true)
+    public static class AnswerSample {
+        private Long answerId;
+        private Long questionId;
+        private Long submissionId;
+        private int totalObtainedMarks;
+        private String studentAnswer;
+        private int marksObtained;
+        private QuestionType type;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class QuestionStatsResponse {
+        private Long questionId;
+        private String questionText;
+        private long attempts;
+        private long correctCount;
+        private Double correctRate;
+        private Double pointBiserial; // null when undefined (no variance)
+        private Map<String, Long> optionDistribution;
+        private LocalDateTime updatedAt;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class ExamAnalyticsResponse {
+        private Long examId;
+        private String title;
+        private List<QuestionStatsResponse> questions;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class BackfillResponse {
+        private Long examId;
+        private long answersScanned;
+        private int questionsUpdated;
+    }
+}
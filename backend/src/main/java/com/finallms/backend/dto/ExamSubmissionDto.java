@@ -1,10 +1,14 @@
 package com.finallms.backend.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.finallms.backend.enums.QuestionType;
 import com.finallms.backend.enums.SubmissionStatus;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public class ExamSubmissionDto {
@@ -63,4 +67,94 @@ public class ExamSubmissionDto {
         private boolean passed;
         private List<AnswerResponse> answers;
     }
+
+    // Row of the student's "my results" list, built directly by a constructor query
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MyResultResponse {
+        private Long submissionId;
+        private Long examId;
+        private String examTitle;
+        private String moduleTitle;
+        private String courseName;
+        private int obtainedMarks;
+        private int totalQuestions;
+        private int passingMarks;
+        private String status;
+        private boolean passed;
+        private String submittedAt;
+
+        public MyResultResponse(Long submissionId, Long examId, String examTitle, String moduleTitle,
+                String courseName, int obtainedMarks, Integer questionCount, int passingMarks,
+                SubmissionStatus status, LocalDateTime submittedAt) {
+            this.submissionId = submissionId;
+            this.examId = examId;
+            this.examTitle = examTitle != null ? examTitle : "Exam";
+            this.moduleTitle = moduleTitle != null ? moduleTitle : "";
+            this.courseName = courseName != null ? courseName : "";
+            this.obtainedMarks = obtainedMarks;
+            this.totalQuestions = questionCount != null ? questionCount : 0;
+            this.passingMarks = passingMarks;
+            this.status = status != null ? status.name() : "SUBMITTED";
+            this.passed = obtainedMarks >= passingMarks;
+            this.submittedAt = submittedAt != null ? submittedAt.toString() : "";
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SubmissionReviewResponse {
+        @JsonIgnore
+        private Long studentId;
+        private String examTitle;
+        private int obtainedMarks;
+        private int totalQuestions;
+        private int passingMarks;
+        private boolean passed;
+        private String submittedAt;
+        private List<ReviewQuestion> questions;
+
+        public SubmissionReviewResponse(Long studentId, String examTitle, int obtainedMarks, int passingMarks,
+                LocalDateTime submittedAt) {
+            this.studentId = studentId;
+            this.examTitle = examTitle != null ? examTitle : "Exam";
+            this.obtainedMarks = obtainedMarks;
+            this.passingMarks = passingMarks;
+            this.passed = obtainedMarks >= passingMarks;
+            this.submittedAt = submittedAt != null ? submittedAt.toString() : "";
+        }
+    }
+
+    // Per-question review row; the correct answer is intentionally not part of it
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ReviewQuestion {
+        private String questionText;
+        private String questionType;
+        private String studentAnswer;
+        private int marksObtained;
+        private int maxMarks;
+        @JsonProperty("isCorrect")
+        private boolean correct;
+        private String adminRemarks;
+        private String optionsJson;
+
+        public ReviewQuestion(String questionText, QuestionType type, String studentAnswer, int marksObtained,
+                int maxMarks, String adminRemarks, String optionsJson) {
+            QuestionType effectiveType = type != null ? type : QuestionType.MCQ;
+            this.questionText = questionText;
+            this.questionType = effectiveType.name();
+            this.studentAnswer = studentAnswer != null ? studentAnswer : "(No answer)";
+            this.marksObtained = marksObtained;
+            this.maxMarks = maxMarks;
+            // correct = full marks obtained, incorrect = 0 marks
+            this.correct = marksObtained > 0;
+            this.adminRemarks = adminRemarks != null ? adminRemarks : "";
+            // optionsJson for MCQ display (so student can see what options were)
+            this.optionsJson = effectiveType == QuestionType.MCQ ? optionsJson : null;
+        }
+    }
 }
@@ -0,0 +1,74 @@
+package com.finallms.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class GradingDto {
+
+    // One FILE_UPLOAD answer waiting for a grader
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class QueueItem {
+        private Long answerId;
+        private Long submissionId;
+        private Long examId;
+        private String examTitle;
+        private Long studentId;
+        private String studentName;
+        private Long questionId;
+        private String questionText;
+        private int maxMarks;
+        private String studentAnswer; // uploaded file key
+        private LocalDateTime submittedAt;
+        private String fileUrl;
+
+        public QueueItem(Long answerId, Long submissionId, Long examId, String examTitle, Long studentId,
+                String studentName, Long questionId, String questionText, int maxMarks, String studentAnswer,
+                LocalDateTime submittedAt) {
+            this(answerId, submissionId, examId, examTitle, studentId, studentName, questionId, questionText,
+                    maxMarks, studentAnswer, submittedAt, null);
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class QueuePage {
+        private List<QueueItem> items;
+        private Long nextCursor; // pass as "after" to fetch the next page; null when done
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class GradeRequest {
+        private Long answerId;
+        private int marks;
+        private String remarks;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class BulkGradeRequest {
+        private List<GradeRequest> grades;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class BulkGradeResponse {
+        private int answersGraded;
+        private int submissionsUpdated;
+    }
+}
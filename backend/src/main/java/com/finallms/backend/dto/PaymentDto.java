@@ -119,12 +119,33 @@ public class PaymentDto {
         private String userName;
         private Long userId;
         private Long courseId;
+        private String courseTitle;
         private String errorReason;
         private java.time.LocalDateTime createdAt;
         private java.time.LocalDateTime updatedAt;
 
         public AdminPaymentResponse() {}
 
+        // Ledger projection
+        public AdminPaymentResponse(Long id, String orderId, String paymentId, String signature, Double amount,
+                com.finallms.backend.enums.PaymentStatus status, String userName, Long userId, Long courseId,
+                String courseTitle, String errorReason, java.time.LocalDateTime createdAt,
+                java.time.LocalDateTime updatedAt) {
+            this.id = id;
+            this.orderId = orderId;
+            this.paymentId = paymentId;
+            this.signature = signature;
+            this.amount = amount;
+            this.status = status != null ? status.name() : null;
+            this.userName = userName;
+            this.userId = userId;
+            this.courseId = courseId;
+            this.courseTitle = courseTitle;
+            this.errorReason = errorReason;
+            this.createdAt = createdAt;
+            this.updatedAt = updatedAt;
+        }
+
         public Long getId() { return id; }
         public void setId(Long id) { this.id = id; }
         public String getOrderId() { return orderId; }
@@ -143,6 +164,8 @@ public class PaymentDto {
         public void setUserId(Long userId) { this.userId = userId; }
         public Long getCourseId() { return courseId; }
         public void setCourseId(Long courseId) { this.courseId = courseId; }
+        public String getCourseTitle() { return courseTitle; }
+        public void setCourseTitle(String courseTitle) { this.courseTitle = courseTitle; }
         public String getErrorReason() { return errorReason; }
         public void setErrorReason(String errorReason) { this.errorReason = errorReason; }
         public java.time.LocalDateTime getCreatedAt() { return createdAt; }
@@ -150,4 +173,34 @@ public class PaymentDto {
         public java.time.LocalDateTime getUpdatedAt() { return updatedAt; }
         public void setUpdatedAt(java.time.LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
     }
+
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class LedgerPage {
+        private java.util.List<AdminPaymentResponse> items;
+        private String nextCursor; // pass as "after" to fetch the next page; null when done
+    }
+
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class PendingPayment {
+        private Long id;
+        private String orderId;
+        private java.time.LocalDateTime createdAt;
+        private java.time.LocalDateTime lastReconciledAt;
+    }
+
+    // What the payment provider reports for an order
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ProviderOrderStatus {
+        private boolean paid;
+        private String paymentId;
+    }
 }
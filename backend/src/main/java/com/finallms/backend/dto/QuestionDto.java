@@ -33,4 +33,25 @@ public class QuestionDto {
         private List<String> options;
         // correctAnswer is NOT included for student view
     }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class ImportRowError {
+        private long row; // 1-based, as shown in the spreadsheet
+        private String message;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class ImportResponse {
+        private Long examId;
+        private long rowsRead;
+        private long imported;
+        private long errorCount;
+        private List<ImportRowError> errors; // first errors only, see errorCount for the total
+    }
 }
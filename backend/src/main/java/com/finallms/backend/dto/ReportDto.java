@@ -0,0 +1,59 @@
+package com.finallms.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class ReportDto {
+
+    // Count and amount of the rows in a range
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Totals {
+        private long count;
+        private double amount;
+    }
+
+    // One row of history read by the rollup backfill
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Activity {
+        private Long id;
+        private Long courseId;
+        private LocalDateTime at;
+        private Double amount;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class RollupPoint {
+        private LocalDate periodStart;
+        private long enrollments;
+        private long payments;
+        private double revenue;
+        private long refunds;
+        private double refundedAmount;
+        private long completions;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class RollupReport {
+        private String period;
+        private Long courseId; // null when summed over all courses
+        private List<RollupPoint> points;
+    }
+}
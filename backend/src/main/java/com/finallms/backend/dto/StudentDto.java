@@ -0,0 +1,63 @@
+package com.finallms.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class StudentDto {
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class DirectoryEntry {
+        private Long id;
+        private String name;
+        private String email;
+        private String phone;
+        private String address;
+        private long enrollmentCount;
+
+        // Query projection; the count is filled in from a grouped query afterwards
+        public DirectoryEntry(Long id, String name, String email, String phone, String address) {
+            this.id = id;
+            this.name = name;
+            this.email = email;
+            this.phone = phone;
+            this.address = address;
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class DirectoryPage {
+        private List<DirectoryEntry> items;
+        private String nextCursor; // null on the last page
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class EnrollmentCount {
+        private Long userId;
+        private long count;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class EnrollmentEntry {
+        private Long enrollmentId;
+        private Long courseId;
+        private String courseTitle;
+        private LocalDateTime enrolledAt;
+    }
+}
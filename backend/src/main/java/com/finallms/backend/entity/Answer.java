@@ -2,13 +2,16 @@ package com.finallms.backend.entity;
 
 import javax.persistence.*;
 import lombok.*;
+import java.time.LocalDateTime;
 
 @Entity
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Table(name = "answers")
+@Table(name = "answers", indexes = {
+        @Index(name = "idx_answers_graded_at", columnList = "graded_at")
+})
 public class Answer {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -28,4 +31,7 @@ public class Answer {
     private int marksObtained;
 
     private String adminRemarks; // For manual or auto feedback
+
+    @Column(name = "graded_at")
+    private LocalDateTime gradedAt; // null while waiting for manual grading
 }
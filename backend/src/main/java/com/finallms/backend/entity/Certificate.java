@@ -7,6 +7,8 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "certificates", uniqueConstraints = {
         @UniqueConstraint(columnNames = { "user_id", "course_id" })
+}, indexes = {
+        @Index(name = "idx_certificates_course_issued", columnList = "course_id, issued_date")
 })
 @Data
 @NoArgsConstructor
@@ -19,7 +21,7 @@ public class Certificate {
     private Long id;
 
     @Column(unique = true, nullable = false)
-    private String certificateId; // Unique 5-digit ID like "34543"
+    private String certificateId; // 10-digit checksummed ID like "1147077356" (older ones are 5 digits)
 
     @ManyToOne
     @JoinColumn(name = "user_id", nullable = false)
@@ -29,12 +31,16 @@ public class Certificate {
     @JoinColumn(name = "course_id", nullable = false)
     private Course course;
 
-    @Column(nullable = false)
+    @Column(name = "issued_date", nullable = false)
     private LocalDateTime issuedDate;
 
     @Column(nullable = false)
     private String verificationUrl;
 
+    // Rendered PDF in storage and the fingerprint it was rendered from (served as ETag)
+    private String pdfKey;
+    private String pdfFingerprint;
+
     public Long getId() {
         return id;
     }
@@ -82,4 +88,20 @@ public class Certificate {
     public void setVerificationUrl(String verificationUrl) {
         this.verificationUrl = verificationUrl;
     }
+
+    public String getPdfKey() {
+        return pdfKey;
+    }
+
+    public void setPdfKey(String pdfKey) {
+        this.pdfKey = pdfKey;
+    }
+
+    public String getPdfFingerprint() {
+        return pdfFingerprint;
+    }
+
+    public void setPdfFingerprint(String pdfFingerprint) {
+        this.pdfFingerprint = pdfFingerprint;
+    }
 }
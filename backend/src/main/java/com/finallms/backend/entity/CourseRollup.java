@@ -0,0 +1,49 @@
+package com.finallms.backend.entity;
+
+import com.finallms.backend.enums.RollupPeriod;
+import javax.persistence.*;
+import lombok.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Per-course activity for one day or one month, so reports never scan payments
+ * or enrollments. A payment counts on the day it succeeded and, if refunded,
+ * again as a refund on the day it was refunded.
+ */
+@Entity
+@Table(name = "course_rollups", uniqueConstraints = {
+        @UniqueConstraint(columnNames = { "course_id", "period", "period_start" })
+}, indexes = {
+        @Index(name = "idx_course_rollups_period", columnList = "period, period_start")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CourseRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "period", nullable = false, length = 10)
+    private RollupPeriod period;
+
+    // The day, or the first day of the month
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    private long enrollments;
+    private long payments;
+    private double revenue;
+    private long refunds;
+    private double refundedAmount;
+    private long completions;
+
+    private LocalDateTime updatedAt;
+}
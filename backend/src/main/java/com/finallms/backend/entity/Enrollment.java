@@ -7,6 +7,8 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "enrollments", uniqueConstraints = {
         @UniqueConstraint(columnNames = { "user_id", "course_id" })
+}, indexes = {
+        @Index(name = "idx_enrollments_course_enrolled", columnList = "course_id, enrolled_at")
 })
 @Data
 @NoArgsConstructor
@@ -26,6 +28,7 @@ public class Enrollment {
     @JoinColumn(name = "course_id")
     private Course course;
 
+    @Column(name = "enrolled_at")
     private LocalDateTime enrolledAt;
 
     public Long getId() {
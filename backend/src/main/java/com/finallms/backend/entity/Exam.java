@@ -27,6 +27,9 @@ public class Exam {
     private int durationMinutes;
     private int passingMarks;
 
+    // Precomputed size of questions, kept in sync by ExamRepository.refreshQuestionCount
+    private Integer questionCount;
+
     @OneToMany(mappedBy = "exam", cascade = CascadeType.ALL)
     @ToString.Exclude
     private List<Question> questions;
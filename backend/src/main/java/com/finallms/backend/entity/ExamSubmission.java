@@ -11,6 +11,9 @@ import lombok.*;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@Table(name = "exam_submission", indexes = {
+        @Index(name = "idx_exam_submission_status", columnList = "status")
+})
 public class ExamSubmission {
 
     @Id
@@ -0,0 +1,26 @@
+package com.finallms.backend.entity;
+
+import javax.persistence.*;
+import lombok.*;
+
+/**
+ * Named counter handed out in blocks. A node locks the row, takes the next
+ * {@code blockSize} values and works through them in memory, so ids stay unique
+ * across nodes with one short transaction per block.
+ */
+@Entity
+@Table(name = "id_sequences")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdSequence {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    // First value not yet handed to any node
+    @Column(nullable = false)
+    private long nextValue;
+}
@@ -0,0 +1,29 @@
+package com.finallms.backend.entity;
+
+import javax.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Lease on a scheduled job, so a job that must not run on several nodes at once
+ * runs on the node holding the lease. A lease that is not renewed lapses at
+ * {@code lockedUntil} and can then be taken by any node.
+ */
+@Entity
+@Table(name = "job_locks")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class JobLock {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(length = 128)
+    private String owner;
+
+    @Column(nullable = false)
+    private LocalDateTime lockedUntil;
+}
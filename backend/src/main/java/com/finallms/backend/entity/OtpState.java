@@ -0,0 +1,34 @@
+package com.finallms.backend.entity;
+
+import javax.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the shared OTP state store: an OTP hash, a flag such as a resend
+ * cooldown, or a rate-limit counter. Rows past {@code expiresAt} are ignored and
+ * swept periodically.
+ */
+@Entity
+@Table(name = "otp_state", indexes = {
+        @Index(name = "idx_otp_state_expires", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OtpState {
+
+    @Id
+    @Column(name = "state_key", length = 191)
+    private String stateKey;
+
+    @Column(name = "state_value")
+    private String stateValue;
+
+    @Column(name = "counter", nullable = false)
+    private long counter;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
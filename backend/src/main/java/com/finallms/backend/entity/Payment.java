@@ -6,7 +6,14 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = {
+        @Index(name = "idx_payments_user_course", columnList = "user_id, course_id, status, created_at"),
+        @Index(name = "idx_payments_status_created", columnList = "status, created_at, id"),
+        @Index(name = "idx_payments_course_created", columnList = "course_id, created_at, id"),
+        @Index(name = "idx_payments_created", columnList = "created_at, id"),
+        @Index(name = "idx_payments_course_paid", columnList = "course_id, paid_at"),
+        @Index(name = "idx_payments_course_refunded", columnList = "course_id, refunded_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -39,9 +46,19 @@ public class Payment {
     @Column(length = 1000)
     private String errorReason;
 
+    @Column(name = "created_at")
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
+    // When the payment succeeded and, if it was, refunded; they date it in the course rollups
+    @Column(name = "paid_at")
+    private LocalDateTime paidAt;
+    @Column(name = "refunded_at")
+    private LocalDateTime refundedAt;
+
+    // Last time reconciliation asked the provider about this order
+    private LocalDateTime lastReconciledAt;
+
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
@@ -77,4 +94,13 @@ public class Payment {
 
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public LocalDateTime getPaidAt() { return paidAt; }
+    public void setPaidAt(LocalDateTime paidAt) { this.paidAt = paidAt; }
+
+    public LocalDateTime getRefundedAt() { return refundedAt; }
+    public void setRefundedAt(LocalDateTime refundedAt) { this.refundedAt = refundedAt; }
+
+    public LocalDateTime getLastReconciledAt() { return lastReconciledAt; }
+    public void setLastReconciledAt(LocalDateTime lastReconciledAt) { this.lastReconciledAt = lastReconciledAt; }
 }
@@ -0,0 +1,46 @@
+package com.finallms.backend.entity;
+
+import javax.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Running per-question statistics, updated incrementally as exams are graded.
+ * Only the sums needed for correct rate and point-biserial correlation are kept,
+ * so the row size does not grow with the number of answers.
+ */
+@Entity
+@Table(name = "question_stats", indexes = {
+        @Index(name = "idx_question_stats_exam", columnList = "exam_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class QuestionStats {
+
+    @Id
+    @Column(name = "question_id")
+    private Long questionId;
+
+    @Column(name = "exam_id", nullable = false)
+    private Long examId;
+
+    private long attempts;
+
+    private long correctCount;
+
+    // Sum of the submission total score over all attempts (and its square)
+    private double sumTotalScore;
+
+    private double sumTotalScoreSquared;
+
+    // Sum of the submission total score over correct attempts only
+    private double sumTotalScoreCorrect;
+
+    // Option -> count, stored as JSON
+    @Lob
+    private String optionCountsJson;
+
+    private LocalDateTime updatedAt;
+}
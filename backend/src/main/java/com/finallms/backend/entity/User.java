@@ -6,7 +6,12 @@ import java.time.LocalDateTime;
 import com.finallms.backend.enums.Role;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_role_id", columnList = "role, id"),
+        @Index(name = "idx_users_role_name", columnList = "role, name"),
+        @Index(name = "idx_users_role_phone", columnList = "role, phone"),
+        @Index(name = "idx_users_role_email", columnList = "role, email")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
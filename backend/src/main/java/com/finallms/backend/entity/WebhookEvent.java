@@ -0,0 +1,67 @@
+package com.finallms.backend.entity;
+
+import com.finallms.backend.enums.WebhookEventStatus;
+import javax.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * A verified payment webhook as received, kept in the inbox until it has been
+ * applied. {@code eventId} is the provider's event id, so a redelivered event is
+ * stored only once. A node applying the event first claims it (PROCESSING, with
+ * {@code nextAttemptAt} as the end of its lease), so no other node applies it too.
+ */
+@Entity
+@Table(name = "webhook_events", indexes = {
+        @Index(name = "idx_webhook_events_status", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_webhook_events_order", columnList = "order_id, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WebhookEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_id", nullable = false, unique = true, length = 100)
+    private String eventId;
+
+    private String eventType;
+
+    // Events of one order are applied in id order
+    @Column(name = "order_id", length = 100)
+    private String orderId;
+
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+
+    private String signature;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private WebhookEventStatus status;
+
+    private int attempts;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    private LocalDateTime receivedAt;
+
+    // Retry time, or end of the claim while PROCESSING
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    // Node that claimed the event last
+    @Column(length = 100)
+    private String claimedBy;
+
+    private LocalDateTime processedAt;
+
+    @Version
+    private long version;
+}
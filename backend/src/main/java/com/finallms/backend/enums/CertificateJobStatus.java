@@ -0,0 +1,8 @@
+package com.finallms.backend.enums;
+
+public enum CertificateJobStatus {
+    QUEUED,
+    RUNNING,
+    READY,
+    FAILED
+}
@@ -0,0 +1,6 @@
+package com.finallms.backend.enums;
+
+public enum ExportFormat {
+    CSV,
+    XLSX
+}
@@ -0,0 +1,8 @@
+package com.finallms.backend.enums;
+
+public enum OtpDeliveryStatus {
+    QUEUED,
+    RETRYING,
+    SENT,
+    FAILED
+}
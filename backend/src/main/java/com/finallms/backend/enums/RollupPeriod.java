@@ -0,0 +1,5 @@
+package com.finallms.backend.enums;
+
+public enum RollupPeriod {
+    DAY, MONTH
+}
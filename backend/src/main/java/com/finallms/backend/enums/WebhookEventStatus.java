@@ -0,0 +1,9 @@
+package com.finallms.backend.enums;
+
+public enum WebhookEventStatus {
+    RECEIVED,
+    PROCESSING,
+    PROCESSED,
+    FAILED,
+    DEAD
+}
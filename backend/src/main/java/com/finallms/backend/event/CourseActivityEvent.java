@@ -0,0 +1,27 @@
+package com.finallms.backend.event;
+
+import java.time.LocalDate;
+
+/**
+ * Something counted in the course rollups changed on {@code day}: an enrollment,
+ * a payment succeeding or being refunded, or a certificate being issued.
+ * Listeners run after the change commits.
+ */
+public class CourseActivityEvent {
+
+    private final Long courseId;
+    private final LocalDate day;
+
+    public CourseActivityEvent(Long courseId, LocalDate day) {
+        this.courseId = courseId;
+        this.day = day;
+    }
+
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+}
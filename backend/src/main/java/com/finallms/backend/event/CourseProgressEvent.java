@@ -0,0 +1,25 @@
+package com.finallms.backend.event;
+
+/**
+ * A student finished an item of a course (watched a video, submitted an
+ * assignment, or got an exam result) and may now have completed the course.
+ * Listeners run after the change commits.
+ */
+public class CourseProgressEvent {
+
+    private final Long userId;
+    private final Long courseId;
+
+    public CourseProgressEvent(Long userId, Long courseId) {
+        this.userId = userId;
+        this.courseId = courseId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getCourseId() {
+        return courseId;
+    }
+}
@@ -0,0 +1,15 @@
+package com.finallms.backend.exception;
+
+// A failed OTP send; retryable when trying again later may succeed
+public class OtpDeliveryException extends Exception {
+    private final boolean retryable;
+
+    public OtpDeliveryException(String message, boolean retryable) {
+        super(message);
+        this.retryable = retryable;
+    }
+
+    public boolean isRetryable() {
+        return retryable;
+    }
+}
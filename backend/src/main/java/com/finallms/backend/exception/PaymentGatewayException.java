@@ -0,0 +1,13 @@
+package com.finallms.backend.exception;
+
+// A payment provider call that failed or was refused
+public class PaymentGatewayException extends Exception {
+
+    public PaymentGatewayException(String message) {
+        super(message);
+    }
+
+    public PaymentGatewayException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
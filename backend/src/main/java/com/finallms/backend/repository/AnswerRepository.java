@@ -1,10 +1,68 @@
 package com.finallms.backend.repository;
 
+import com.finallms.backend.dto.ExamAnalyticsDto;
+import com.finallms.backend.dto.ExamSubmissionDto;
+import com.finallms.backend.dto.GradingDto;
 import com.finallms.backend.entity.Answer;
+import com.finallms.backend.enums.QuestionType;
+import com.finallms.backend.enums.SubmissionStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface AnswerRepository extends JpaRepository<Answer, Long> {
     java.util.List<Answer> findBySubmissionId(Long submissionId);
+
+    // Keyset-ordered chunk of graded answers for an exam (analytics backfill)
+    @Query("SELECT new com.finallms.backend.dto.ExamAnalyticsDto$AnswerSample("
+            + "a.id, q.id, s.id, s.totalObtainedMarks, a.studentAnswer, a.marksObtained, q.type) "
+            + "FROM Answer a JOIN a.submission s JOIN a.question q "
+            + "WHERE s.exam.id = :examId AND s.status IS NOT NULL AND a.id > :afterId "
+            + "ORDER BY a.id")
+    java.util.List<ExamAnalyticsDto.AnswerSample> findSamplesAfter(@Param("examId") Long examId,
+            @Param("afterId") Long afterId, Pageable pageable);
+
+    // Samples of the given submissions' answers of one question type, with the submissions' current totals
+    @Query("SELECT new com.finallms.backend.dto.ExamAnalyticsDto$AnswerSample("
+            + "a.id, q.id, s.id, s.totalObtainedMarks, a.studentAnswer, a.marksObtained, q.type) "
+            + "FROM Answer a JOIN a.submission s JOIN a.question q "
+            + "WHERE s.id IN :submissionIds AND q.type = :type")
+    java.util.List<ExamAnalyticsDto.AnswerSample> findSamplesBySubmissionIds(
+            @Param("submissionIds") java.util.Collection<Long> submissionIds, @Param("type") QuestionType type);
+
+    // Keyset page of ungraded answers in submissions awaiting manual grading
+    @Query("SELECT new com.finallms.backend.dto.GradingDto$QueueItem("
+            + "a.id, s.id, e.id, e.title, u.id, u.name, q.id, q.questionText, q.marks, a.studentAnswer, "
+            + "s.submittedAt) "
+            + "FROM Answer a JOIN a.submission s JOIN s.exam e JOIN s.student u JOIN a.question q "
+            + "WHERE s.status = :status AND q.type = :type AND a.gradedAt IS NULL AND a.id > :afterId "
+            + "AND (:examId IS NULL OR e.id = :examId) "
+            + "ORDER BY a.id")
+    java.util.List<GradingDto.QueueItem> findGradingQueue(@Param("status") SubmissionStatus status,
+            @Param("type") QuestionType type, @Param("examId") Long examId, @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    @Query("SELECT a FROM Answer a JOIN FETCH a.question JOIN FETCH a.submission WHERE a.id IN :ids")
+    java.util.List<Answer> findWithQuestionAndSubmission(@Param("ids") java.util.Collection<Long> ids);
+
+    @Query("SELECT new com.finallms.backend.dto.ExamSubmissionDto$ReviewQuestion("
+            + "q.questionText, q.type, a.studentAnswer, a.marksObtained, q.marks, a.adminRemarks, q.optionsJson) "
+            + "FROM Answer a JOIN a.question q WHERE a.submission.id = :submissionId ORDER BY a.id")
+    java.util.List<ExamSubmissionDto.ReviewQuestion> findReviewBySubmissionId(
+            @Param("submissionId") Long submissionId);
+
+    // Storage keys of uploaded answers, collected before the rows are bulk-deleted
+    @Query("SELECT a.studentAnswer FROM Answer a WHERE a.submission.exam.id IN :examIds "
+            + "AND a.question.type = :type AND a.studentAnswer IS NOT NULL")
+    java.util.List<String> findFileKeysByExamIds(@Param("examIds") java.util.Collection<Long> examIds,
+            @Param("type") QuestionType type);
+
+    @Modifying
+    @Query("DELETE FROM Answer a WHERE a.submission.id IN "
+            + "(SELECT s.id FROM ExamSubmission s WHERE s.exam.id IN :examIds)")
+    int deleteByExamIds(@Param("examIds") java.util.Collection<Long> examIds);
 }
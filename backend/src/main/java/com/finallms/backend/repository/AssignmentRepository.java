@@ -1,9 +1,28 @@
 package com.finallms.backend.repository;
 
 import com.finallms.backend.entity.Assignment;
+import com.finallms.backend.enums.AssignmentType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
+
+    @Query("SELECT a.fileKey FROM Assignment a WHERE a.module.id IN :moduleIds AND a.type = :type "
+            + "AND a.fileKey IS NOT NULL")
+    List<String> findFileKeysByModuleIds(@Param("moduleIds") Collection<Long> moduleIds,
+            @Param("type") AssignmentType type);
+
+    @Modifying
+    @Query("DELETE FROM Assignment a WHERE a.module.id IN :moduleIds")
+    int deleteByModuleIds(@Param("moduleIds") Collection<Long> moduleIds);
+
+    @Query("SELECT COUNT(a) FROM Assignment a WHERE a.module.course.id = :courseId")
+    long countByCourseId(@Param("courseId") Long courseId);
 }
@@ -1,12 +1,17 @@
 package com.finallms.backend.repository;
 
+import com.finallms.backend.dto.CourseDto;
 import com.finallms.backend.entity.AssignmentSubmission;
 import com.finallms.backend.entity.Assignment;
 import com.finallms.backend.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
+import java.util.Collection;
 
 @Repository
 public interface AssignmentSubmissionRepository extends JpaRepository<AssignmentSubmission, Long> {
@@ -19,4 +24,21 @@ public interface AssignmentSubmissionRepository extends JpaRepository<Assignment
     java.util.List<AssignmentSubmission> findByAssignment(Assignment assignment);
 
     void deleteByAssignment(Assignment assignment);
+
+    @Query("SELECT s.fileKey FROM AssignmentSubmission s WHERE s.assignment.module.id IN :moduleIds "
+            + "AND s.fileKey IS NOT NULL")
+    java.util.List<String> findFileKeysByModuleIds(@Param("moduleIds") Collection<Long> moduleIds);
+
+    @Modifying
+    @Query("DELETE FROM AssignmentSubmission s WHERE s.assignment.id IN "
+            + "(SELECT a.id FROM Assignment a WHERE a.module.id IN :moduleIds)")
+    int deleteByModuleIds(@Param("moduleIds") Collection<Long> moduleIds);
+
+    @Query("SELECT new com.finallms.backend.dto.CourseDto$StudentCount(s.user.id, COUNT(s)) "
+            + "FROM AssignmentSubmission s WHERE s.assignment.module.course.id = :courseId GROUP BY s.user.id")
+    java.util.List<CourseDto.StudentCount> countSubmittedByCourseId(@Param("courseId") Long courseId);
+
+    @Query("SELECT COUNT(s) FROM AssignmentSubmission s WHERE s.user.id = :userId "
+            + "AND s.assignment.module.course.id = :courseId")
+    long countSubmittedByUserIdAndCourseId(@Param("userId") Long userId, @Param("courseId") Long courseId);
 }
@@ -1,11 +1,18 @@
 package com.finallms.backend.repository;
 
+import com.finallms.backend.dto.CertificateDto;
+import com.finallms.backend.dto.ReportDto;
 import com.finallms.backend.entity.Certificate;
 import com.finallms.backend.entity.Course;
 import com.finallms.backend.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,5 +27,40 @@ public interface CertificateRepository extends JpaRepository<Certificate, Long>
 
     boolean existsByCertificateId(String certificateId);
 
+    @Query("SELECT COUNT(c) > 0 FROM Certificate c WHERE c.user.id = :userId AND c.course.id = :courseId")
+    boolean existsByUserIdAndCourseId(@Param("userId") Long userId, @Param("courseId") Long courseId);
+
     void deleteByCourse(Course course);
+
+    @Query("SELECT c.pdfKey FROM Certificate c WHERE c.course.id = :courseId AND c.pdfKey IS NOT NULL")
+    List<String> findPdfKeysByCourseId(@Param("courseId") Long courseId);
+
+    @Modifying
+    @Query("DELETE FROM Certificate c WHERE c.course.id = :courseId")
+    int deleteByCourseId(@Param("courseId") Long courseId);
+
+    @Query("SELECT c.user.id FROM Certificate c WHERE c.course.id = :courseId")
+    List<Long> findUserIdsByCourseId(@Param("courseId") Long courseId);
+
+    @Query("SELECT c FROM Certificate c JOIN FETCH c.user JOIN FETCH c.course WHERE c.course.id = :courseId")
+    List<Certificate> findByCourseIdWithUser(@Param("courseId") Long courseId);
+
+    @Query("SELECT new com.finallms.backend.dto.CertificateDto$VerificationResponse(c.certificateId, u.name, "
+            + "co.title, co.duration, c.issuedDate, c.verificationUrl) "
+            + "FROM Certificate c JOIN c.user u JOIN c.course co WHERE c.certificateId = :certificateId")
+    Optional<CertificateDto.VerificationResponse> findVerificationByCertificateId(
+            @Param("certificateId") String certificateId);
+
+    @Query("SELECT c.certificateId FROM Certificate c")
+    List<String> findAllCertificateIds();
+
+    @Query("SELECT COUNT(c) FROM Certificate c WHERE c.course.id = :courseId "
+            + "AND c.issuedDate >= :from AND c.issuedDate < :to")
+    long countIssued(@Param("courseId") Long courseId, @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    // Keyset chunk of issue history for the rollup backfill
+    @Query("SELECT new com.finallms.backend.dto.ReportDto$Activity(c.id, c.course.id, c.issuedDate, 0.0) "
+            + "FROM Certificate c WHERE c.id > :afterId ORDER BY c.id")
+    List<ReportDto.Activity> findIssueHistory(@Param("afterId") Long afterId, Pageable pageable);
 }
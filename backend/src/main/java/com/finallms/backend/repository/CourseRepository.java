@@ -2,8 +2,18 @@ package com.finallms.backend.repository;
 
 import com.finallms.backend.entity.Course;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface CourseRepository extends JpaRepository<Course, Long> {
+
+    @Query("SELECT c.thumbnail FROM Course c WHERE c.id = :courseId")
+    String findThumbnailById(@Param("courseId") Long courseId);
+
+    @Modifying
+    @Query("DELETE FROM Course c WHERE c.id = :courseId")
+    int deleteCourseById(@Param("courseId") Long courseId);
 }
@@ -0,0 +1,64 @@
+package com.finallms.backend.repository;
+
+import com.finallms.backend.dto.ReportDto;
+import com.finallms.backend.entity.CourseRollup;
+import com.finallms.backend.enums.RollupPeriod;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CourseRollupRepository extends JpaRepository<CourseRollup, Long> {
+
+    // Sets the period's figures, creating the row on first use
+    @Modifying
+    @Query(value = "INSERT INTO course_rollups (course_id, period, period_start, enrollments, payments, revenue, "
+            + "refunds, refunded_amount, completions, updated_at) "
+            + "VALUES (:courseId, :period, :periodStart, :enrollments, :payments, :revenue, :refunds, "
+            + ":refundedAmount, :completions, :updatedAt) "
+            + "ON DUPLICATE KEY UPDATE enrollments = VALUES(enrollments), payments = VALUES(payments), "
+            + "revenue = VALUES(revenue), refunds = VALUES(refunds), refunded_amount = VALUES(refunded_amount), "
+            + "completions = VALUES(completions), updated_at = VALUES(updated_at)", nativeQuery = true)
+    int upsert(@Param("courseId") Long courseId, @Param("period") String period,
+            @Param("periodStart") LocalDate periodStart, @Param("enrollments") long enrollments,
+            @Param("payments") long payments, @Param("revenue") double revenue, @Param("refunds") long refunds,
+            @Param("refundedAmount") double refundedAmount, @Param("completions") long completions,
+            @Param("updatedAt") LocalDateTime updatedAt);
+
+    // Day rows of a course in [from, to) summed up, for the month row
+    @Query("SELECT new com.finallms.backend.dto.ReportDto$RollupPoint(MIN(r.periodStart), "
+            + "COALESCE(SUM(r.enrollments), 0L), COALESCE(SUM(r.payments), 0L), COALESCE(SUM(r.revenue), 0.0), "
+            + "COALESCE(SUM(r.refunds), 0L), COALESCE(SUM(r.refundedAmount), 0.0), COALESCE(SUM(r.completions), 0L)) "
+            + "FROM CourseRollup r WHERE r.courseId = :courseId AND r.period = :period "
+            + "AND r.periodStart >= :from AND r.periodStart < :to")
+    ReportDto.RollupPoint sumRange(@Param("courseId") Long courseId, @Param("period") RollupPeriod period,
+            @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT new com.finallms.backend.dto.ReportDto$RollupPoint(r.periodStart, r.enrollments, r.payments, "
+            + "r.revenue, r.refunds, r.refundedAmount, r.completions) "
+            + "FROM CourseRollup r WHERE r.courseId = :courseId AND r.period = :period "
+            + "AND r.periodStart >= :from AND r.periodStart <= :to ORDER BY r.periodStart")
+    List<ReportDto.RollupPoint> findSeries(@Param("courseId") Long courseId, @Param("period") RollupPeriod period,
+            @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT new com.finallms.backend.dto.ReportDto$RollupPoint(r.periodStart, SUM(r.enrollments), "
+            + "SUM(r.payments), SUM(r.revenue), SUM(r.refunds), SUM(r.refundedAmount), SUM(r.completions)) "
+            + "FROM CourseRollup r WHERE r.period = :period AND r.periodStart >= :from AND r.periodStart <= :to "
+            + "GROUP BY r.periodStart ORDER BY r.periodStart")
+    List<ReportDto.RollupPoint> findSeriesAllCourses(@Param("period") RollupPeriod period,
+            @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Query("DELETE FROM CourseRollup r WHERE r.courseId = :courseId")
+    int deleteByCourseId(@Param("courseId") Long courseId);
+
+    @Modifying
+    @Query("DELETE FROM CourseRollup r")
+    int deleteAllRollups();
+}
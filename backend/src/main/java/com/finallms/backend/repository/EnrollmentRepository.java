@@ -1,11 +1,19 @@
 package com.finallms.backend.repository;
 
+import com.finallms.backend.dto.ReportDto;
+import com.finallms.backend.dto.StudentDto;
 import com.finallms.backend.entity.Enrollment;
 import com.finallms.backend.entity.User;
 import com.finallms.backend.entity.Course;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,4 +24,39 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
     Optional<Enrollment> findByUserAndCourseId(User user, Long courseId);
 
     List<Enrollment> findByCourse(Course course);
+
+    @Modifying
+    @Query("DELETE FROM Enrollment e WHERE e.course.id = :courseId")
+    int deleteByCourseId(@Param("courseId") Long courseId);
+
+    @Query("SELECT e.user.id FROM Enrollment e WHERE e.course.id = :courseId")
+    List<Long> findUserIdsByCourseId(@Param("courseId") Long courseId);
+
+    @Query("SELECT COUNT(e) > 0 FROM Enrollment e WHERE e.user.id = :userId AND e.course.id = :courseId")
+    boolean existsByUserIdAndCourseId(@Param("userId") Long userId, @Param("courseId") Long courseId);
+
+    // Insert-if-absent: an existing enrollment for the pair leaves the row as it was
+    @Modifying
+    @Query(value = "INSERT INTO enrollments (user_id, course_id, enrolled_at) VALUES (:userId, :courseId, :enrolledAt) "
+            + "ON DUPLICATE KEY UPDATE enrolled_at = enrolled_at", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId, @Param("courseId") Long courseId,
+            @Param("enrolledAt") LocalDateTime enrolledAt);
+
+    @Query("SELECT COUNT(e) FROM Enrollment e WHERE e.course.id = :courseId "
+            + "AND e.enrolledAt >= :from AND e.enrolledAt < :to")
+    long countEnrolled(@Param("courseId") Long courseId, @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    // Keyset chunk of enrollment history for the rollup backfill
+    @Query("SELECT new com.finallms.backend.dto.ReportDto$Activity(e.id, e.course.id, e.enrolledAt, 0.0) "
+            + "FROM Enrollment e WHERE e.id > :afterId ORDER BY e.id")
+    List<ReportDto.Activity> findEnrollmentHistory(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT new com.finallms.backend.dto.StudentDto$EnrollmentCount(e.user.id, COUNT(e)) "
+            + "FROM Enrollment e WHERE e.user.id IN :userIds GROUP BY e.user.id")
+    List<StudentDto.EnrollmentCount> countByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    @Query("SELECT new com.finallms.backend.dto.StudentDto$EnrollmentEntry(e.id, c.id, c.title, e.enrolledAt) "
+            + "FROM Enrollment e JOIN e.course c WHERE e.user.id = :userId ORDER BY e.id")
+    List<StudentDto.EnrollmentEntry> findEntriesByUserId(@Param("userId") Long userId);
 }
@@ -3,10 +3,35 @@ package com.finallms.backend.repository;
 import com.finallms.backend.entity.Exam;
 import com.finallms.backend.entity.Module;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
+import java.util.Collection;
 
 @Repository
 public interface ExamRepository extends JpaRepository<Exam, Long> {
     List<Exam> findByModule(Module module);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Exam e SET e.questionCount = (SELECT COUNT(q.id) FROM Question q WHERE q.exam.id = e.id) "
+            + "WHERE e.id = :examId")
+    int refreshQuestionCount(@Param("examId") Long examId);
+
+    // One-off fill for exams created before questionCount existed
+    @Modifying
+    @Query("UPDATE Exam e SET e.questionCount = (SELECT COUNT(q.id) FROM Question q WHERE q.exam.id = e.id) "
+            + "WHERE e.questionCount IS NULL")
+    int fillMissingQuestionCounts();
+
+    @Query("SELECT e.id FROM Exam e WHERE e.module.id IN :moduleIds")
+    List<Long> findIdsByModuleIds(@Param("moduleIds") Collection<Long> moduleIds);
+
+    @Modifying
+    @Query("DELETE FROM Exam e WHERE e.id IN :examIds")
+    int deleteByIdIn(@Param("examIds") Collection<Long> examIds);
+
+    @Query("SELECT COUNT(e) FROM Exam e WHERE e.module.course.id = :courseId")
+    long countByCourseId(@Param("courseId") Long courseId);
 }
@@ -1,10 +1,18 @@
 package com.finallms.backend.repository;
 
+import com.finallms.backend.dto.CourseDto;
+import com.finallms.backend.dto.ExamSubmissionDto;
 import com.finallms.backend.entity.ExamSubmission;
 import com.finallms.backend.entity.Exam;
 import com.finallms.backend.entity.User;
+import com.finallms.backend.enums.QuestionType;
+import com.finallms.backend.enums.SubmissionStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,4 +25,47 @@ public interface ExamSubmissionRepository extends JpaRepository<ExamSubmission,
     List<ExamSubmission> findByStudent(User student);
 
     void deleteByExam(Exam exam);
+
+    // "My results" rows straight from the joined tables, without loading entities
+    @Query("SELECT new com.finallms.backend.dto.ExamSubmissionDto$MyResultResponse("
+            + "s.id, e.id, e.title, m.title, c.title, s.totalObtainedMarks, e.questionCount, e.passingMarks, "
+            + "s.status, s.submittedAt) "
+            + "FROM ExamSubmission s JOIN s.exam e LEFT JOIN e.module m LEFT JOIN m.course c "
+            + "WHERE s.student.id = :studentId ORDER BY s.id")
+    List<ExamSubmissionDto.MyResultResponse> findResultsByStudentId(@Param("studentId") Long studentId);
+
+    @Query("SELECT new com.finallms.backend.dto.ExamSubmissionDto$SubmissionReviewResponse("
+            + "s.student.id, e.title, s.totalObtainedMarks, e.passingMarks, s.submittedAt) "
+            + "FROM ExamSubmission s JOIN s.exam e WHERE s.id = :id")
+    Optional<ExamSubmissionDto.SubmissionReviewResponse> findReviewSummary(@Param("id") Long id);
+
+    @Query("SELECT DISTINCT s.student.id FROM ExamSubmission s WHERE s.id IN :ids")
+    List<Long> findStudentIdsByIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ExamSubmission s SET s.totalObtainedMarks = "
+            + "(SELECT COALESCE(SUM(a.marksObtained), 0) FROM Answer a WHERE a.submission.id = s.id) "
+            + "WHERE s.id IN :ids")
+    int recomputeTotals(@Param("ids") Collection<Long> ids);
+
+    // Marks submissions GRADED once none of their manually graded answers are outstanding
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ExamSubmission s SET s.status = :graded "
+            + "WHERE s.id IN :ids AND NOT EXISTS (SELECT a.id FROM Answer a JOIN a.question q "
+            + "WHERE a.submission.id = s.id AND q.type = :manualType AND a.gradedAt IS NULL)")
+    int markGradedWhereComplete(@Param("ids") Collection<Long> ids, @Param("graded") SubmissionStatus graded,
+            @Param("manualType") QuestionType manualType);
+
+    @Modifying
+    @Query("DELETE FROM ExamSubmission s WHERE s.exam.id IN :examIds")
+    int deleteByExamIds(@Param("examIds") Collection<Long> examIds);
+
+    @Query("SELECT new com.finallms.backend.dto.CourseDto$StudentCount(s.student.id, COUNT(s)) "
+            + "FROM ExamSubmission s WHERE s.exam.module.course.id = :courseId "
+            + "AND s.totalObtainedMarks >= s.exam.passingMarks GROUP BY s.student.id")
+    List<CourseDto.StudentCount> countPassedByCourseId(@Param("courseId") Long courseId);
+
+    @Query("SELECT COUNT(s) FROM ExamSubmission s WHERE s.student.id = :userId "
+            + "AND s.exam.module.course.id = :courseId AND s.totalObtainedMarks >= s.exam.passingMarks")
+    long countPassedByStudentIdAndCourseId(@Param("userId") Long userId, @Param("courseId") Long courseId);
 }
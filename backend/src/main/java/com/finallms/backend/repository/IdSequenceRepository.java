@@ -0,0 +1,22 @@
+package com.finallms.backend.repository;
+
+import com.finallms.backend.entity.IdSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+@Repository
+public interface IdSequenceRepository extends JpaRepository<IdSequence, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM IdSequence s WHERE s.name = :name")
+    Optional<IdSequence> lockByName(@Param("name") String name);
+
+    @Query("SELECT s.nextValue FROM IdSequence s WHERE s.name = :name")
+    Optional<Long> findNextValue(@Param("name") String name);
+}
@@ -0,0 +1,30 @@
+package com.finallms.backend.repository;
+
+import com.finallms.backend.entity.JobLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface JobLockRepository extends JpaRepository<JobLock, String> {
+
+    // Takes the lease if it has lapsed, or extends it if this owner already holds it
+    @Modifying
+    @Query("UPDATE JobLock l SET l.owner = :owner, l.lockedUntil = :until "
+            + "WHERE l.name = :name AND (l.lockedUntil <= :now OR l.owner = :owner)")
+    int acquire(@Param("name") String name, @Param("owner") String owner, @Param("until") LocalDateTime until,
+            @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = "INSERT INTO job_locks (name, owner, locked_until) VALUES (:name, :owner, :until)",
+            nativeQuery = true)
+    int insert(@Param("name") String name, @Param("owner") String owner, @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Query("UPDATE JobLock l SET l.lockedUntil = :now WHERE l.name = :name AND l.owner = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("now") LocalDateTime now);
+}
@@ -2,8 +2,21 @@ package com.finallms.backend.repository;
 
 import com.finallms.backend.entity.Module;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface ModuleRepository extends JpaRepository<Module, Long> {
+
+    @Query("SELECT m.id FROM Module m WHERE m.course.id = :courseId")
+    List<Long> findIdsByCourseId(@Param("courseId") Long courseId);
+
+    @Modifying
+    @Query("DELETE FROM Module m WHERE m.id IN :moduleIds")
+    int deleteByIdIn(@Param("moduleIds") Collection<Long> moduleIds);
 }
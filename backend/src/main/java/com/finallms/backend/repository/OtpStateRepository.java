@@ -0,0 +1,62 @@
+package com.finallms.backend.repository;
+
+import com.finallms.backend.entity.OtpState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface OtpStateRepository extends JpaRepository<OtpState, String> {
+
+    @Query("SELECT s.stateValue FROM OtpState s WHERE s.stateKey = :key AND s.expiresAt > :now")
+    String findLiveValue(@Param("key") String key, @Param("now") LocalDateTime now);
+
+    @Query("SELECT s.counter FROM OtpState s WHERE s.stateKey = :key")
+    Long findCounter(@Param("key") String key);
+
+    @Modifying
+    @Query(value = "INSERT INTO otp_state (state_key, state_value, counter, expires_at) "
+            + "VALUES (:key, :value, :counter, :expiresAt)", nativeQuery = true)
+    int insert(@Param("key") String key, @Param("value") String value, @Param("counter") long counter,
+            @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("UPDATE OtpState s SET s.stateValue = :value, s.counter = 0, s.expiresAt = :expiresAt WHERE s.stateKey = :key")
+    int overwrite(@Param("key") String key, @Param("value") String value,
+            @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Takes over the key only if its entry has expired
+    @Modifying
+    @Query("UPDATE OtpState s SET s.stateValue = :value, s.counter = 0, s.expiresAt = :expiresAt "
+            + "WHERE s.stateKey = :key AND s.expiresAt <= :now")
+    int overwriteExpired(@Param("key") String key, @Param("value") String value,
+            @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now);
+
+    // Restarts an expired counter's window; run before increment in the same transaction
+    @Modifying
+    @Query("UPDATE OtpState s SET s.counter = 0, s.stateValue = NULL, s.expiresAt = :expiresAt "
+            + "WHERE s.stateKey = :key AND s.expiresAt <= :now")
+    int resetExpired(@Param("key") String key, @Param("expiresAt") LocalDateTime expiresAt,
+            @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE OtpState s SET s.counter = s.counter + 1 WHERE s.stateKey = :key")
+    int increment(@Param("key") String key);
+
+    @Modifying
+    @Query("UPDATE OtpState s SET s.counter = s.counter - 1 "
+            + "WHERE s.stateKey = :key AND s.counter > 0 AND s.expiresAt > :now")
+    int decrementLive(@Param("key") String key, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM OtpState s WHERE s.stateKey = :key AND s.expiresAt > :now")
+    int deleteLive(@Param("key") String key, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM OtpState s WHERE s.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -1,9 +1,18 @@
 package com.finallms.backend.repository;
 
 import com.finallms.backend.entity.Payment;
+import com.finallms.backend.dto.PaymentDto;
+import com.finallms.backend.dto.ReportDto;
+import com.finallms.backend.enums.PaymentStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,9 +20,80 @@ import java.util.Optional;
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     Optional<Payment> findByOrderId(String orderId);
 
-    List<Payment> findTop50ByOrderByCreatedAtDesc();
+    // Keyset page of the ledger, newest first, after the (createdAt, id) cursor
+    @Query("SELECT new com.finallms.backend.dto.PaymentDto$AdminPaymentResponse("
+            + "p.id, p.orderId, p.paymentId, p.signature, p.amount, p.status, COALESCE(u.name, p.userName), u.id, "
+            + "c.id, c.title, p.errorReason, p.createdAt, p.updatedAt) "
+            + "FROM Payment p LEFT JOIN p.user u LEFT JOIN p.course c "
+            + "WHERE (p.createdAt < :afterCreatedAt OR (p.createdAt = :afterCreatedAt AND p.id < :afterId)) "
+            + "AND p.createdAt >= :from AND p.createdAt < :to "
+            + "AND (:status IS NULL OR p.status = :status) "
+            + "AND (:courseId IS NULL OR c.id = :courseId) "
+            + "AND (:userId IS NULL OR u.id = :userId) "
+            + "ORDER BY p.createdAt DESC, p.id DESC")
+    List<PaymentDto.AdminPaymentResponse> findLedgerPage(@Param("status") PaymentStatus status,
+            @Param("courseId") Long courseId, @Param("userId") Long userId, @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to, @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+            @Param("afterId") Long afterId, Pageable pageable);
 
-    List<Payment> findTop50ByStatusOrderByCreatedAtDesc(com.finallms.backend.enums.PaymentStatus status);
+    // Keyset page of payments in a status, oldest first from a (createdAt, id) cursor; start it at the age cutoff
+    @Query("SELECT new com.finallms.backend.dto.PaymentDto$PendingPayment(p.id, p.orderId, p.createdAt, p.lastReconciledAt) "
+            + "FROM Payment p WHERE p.status = :status AND p.createdAt >= :afterCreatedAt "
+            + "AND (p.createdAt > :afterCreatedAt OR p.id > :afterId) ORDER BY p.createdAt, p.id")
+    List<PaymentDto.PendingPayment> findPageByStatusCreatedAfter(@Param("status") PaymentStatus status,
+            @Param("afterCreatedAt") LocalDateTime afterCreatedAt, @Param("afterId") Long afterId, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Payment p SET p.lastReconciledAt = :now WHERE p.id IN :ids")
+    int markReconciled(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Query("SELECT p.status FROM Payment p WHERE p.orderId = :orderId")
+    PaymentStatus findStatusByOrderId(@Param("orderId") String orderId);
+
+    // Newest pending order of a user for a course at a given amount, for reuse at checkout
+    @Query("SELECT p FROM Payment p WHERE p.user.id = :userId AND p.course.id = :courseId AND p.status = :status "
+            + "AND p.amount = :amount AND p.createdAt >= :since ORDER BY p.createdAt DESC")
+    List<Payment> findReusable(@Param("userId") Long userId, @Param("courseId") Long courseId,
+            @Param("status") PaymentStatus status, @Param("amount") Double amount,
+            @Param("since") LocalDateTime since, Pageable pageable);
 
     void deleteByCourse(com.finallms.backend.entity.Course course);
+
+    @Modifying
+    @Query("DELETE FROM Payment p WHERE p.course.id = :courseId")
+    int deleteByCourseId(@Param("courseId") Long courseId);
+
+    @Query("SELECT new com.finallms.backend.dto.ReportDto$Totals(COUNT(p), COALESCE(SUM(p.amount), 0.0)) "
+            + "FROM Payment p WHERE p.course.id = :courseId AND p.status IN :statuses "
+            + "AND p.paidAt >= :from AND p.paidAt < :to")
+    ReportDto.Totals sumPaid(@Param("courseId") Long courseId, @Param("statuses") Collection<PaymentStatus> statuses,
+            @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT new com.finallms.backend.dto.ReportDto$Totals(COUNT(p), COALESCE(SUM(p.amount), 0.0)) "
+            + "FROM Payment p WHERE p.course.id = :courseId AND p.status = :status "
+            + "AND p.refundedAt >= :from AND p.refundedAt < :to")
+    ReportDto.Totals sumRefunded(@Param("courseId") Long courseId, @Param("status") PaymentStatus status,
+            @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Keyset chunks of payment history for the rollup backfill
+    @Query("SELECT new com.finallms.backend.dto.ReportDto$Activity(p.id, p.course.id, p.paidAt, p.amount) "
+            + "FROM Payment p WHERE p.id > :afterId AND p.status IN :statuses AND p.paidAt IS NOT NULL ORDER BY p.id")
+    List<ReportDto.Activity> findPaidHistory(@Param("statuses") Collection<PaymentStatus> statuses,
+            @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT new com.finallms.backend.dto.ReportDto$Activity(p.id, p.course.id, p.refundedAt, p.amount) "
+            + "FROM Payment p WHERE p.id > :afterId AND p.status = :status AND p.refundedAt IS NOT NULL ORDER BY p.id")
+    List<ReportDto.Activity> findRefundHistory(@Param("status") PaymentStatus status,
+            @Param("afterId") Long afterId, Pageable pageable);
+
+    // Dates payments settled before paidAt and refundedAt were recorded
+    @Modifying
+    @Query("UPDATE Payment p SET p.paidAt = COALESCE(p.updatedAt, p.createdAt) "
+            + "WHERE p.status = :status AND p.paidAt IS NULL")
+    int backfillPaidAt(@Param("status") PaymentStatus status);
+
+    @Modifying
+    @Query("UPDATE Payment p SET p.paidAt = COALESCE(p.paidAt, p.createdAt), "
+            + "p.refundedAt = COALESCE(p.updatedAt, p.createdAt) WHERE p.status = :status AND p.refundedAt IS NULL")
+    int backfillRefundedAt(@Param("status") PaymentStatus status);
 }
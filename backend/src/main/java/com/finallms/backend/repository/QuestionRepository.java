@@ -2,8 +2,19 @@ package com.finallms.backend.repository;
 
 import com.finallms.backend.entity.Question;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Collection;
+
 @Repository
 public interface QuestionRepository extends JpaRepository<Question, Long> {
+    List<Question> findByExamId(Long examId);
+
+    @Modifying
+    @Query("DELETE FROM Question q WHERE q.exam.id IN :examIds")
+    int deleteByExamIds(@Param("examIds") Collection<Long> examIds);
 }
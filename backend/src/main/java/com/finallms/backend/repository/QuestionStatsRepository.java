@@ -0,0 +1,32 @@
+package com.finallms.backend.repository;
+
+import com.finallms.backend.entity.QuestionStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface QuestionStatsRepository extends JpaRepository<QuestionStats, Long> {
+
+    List<QuestionStats> findByExamIdOrderByQuestionId(Long examId);
+
+    // Rows are locked in id order so concurrent graders cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM QuestionStats s WHERE s.questionId IN :questionIds ORDER BY s.questionId")
+    List<QuestionStats> lockByQuestionIds(@Param("questionIds") Collection<Long> questionIds);
+
+    @Modifying
+    @Query("DELETE FROM QuestionStats s WHERE s.examId = :examId")
+    int deleteByExamId(@Param("examId") Long examId);
+
+    @Modifying
+    @Query("DELETE FROM QuestionStats s WHERE s.examId IN :examIds")
+    int deleteByExamIds(@Param("examIds") Collection<Long> examIds);
+}
@@ -1,13 +1,45 @@
 package com.finallms.backend.repository;
 
+import com.finallms.backend.dto.StudentDto;
 import com.finallms.backend.entity.User;
+import com.finallms.backend.enums.Role;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     Optional<User> findByPhone(String phone);
+
+    // Directory page, newest first, keyset on id
+    @Query("SELECT new com.finallms.backend.dto.StudentDto$DirectoryEntry(u.id, u.name, u.email, u.phone, u.address) "
+            + "FROM User u WHERE u.role = :role AND u.id < :afterId ORDER BY u.id DESC")
+    List<StudentDto.DirectoryEntry> findDirectoryPage(@Param("role") Role role, @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    // Prefix searches, one per column so each is a range on its (role, column) index ('!' escapes wildcards);
+    // the range is then sorted by id, so each reads every match of the prefix
+    @Query("SELECT new com.finallms.backend.dto.StudentDto$DirectoryEntry(u.id, u.name, u.email, u.phone, u.address) "
+            + "FROM User u WHERE u.role = :role AND u.name LIKE :prefix ESCAPE '!' AND u.id < :afterId "
+            + "ORDER BY u.id DESC")
+    List<StudentDto.DirectoryEntry> findDirectoryPageByName(@Param("role") Role role, @Param("prefix") String prefix,
+            @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT new com.finallms.backend.dto.StudentDto$DirectoryEntry(u.id, u.name, u.email, u.phone, u.address) "
+            + "FROM User u WHERE u.role = :role AND u.phone LIKE :prefix ESCAPE '!' AND u.id < :afterId "
+            + "ORDER BY u.id DESC")
+    List<StudentDto.DirectoryEntry> findDirectoryPageByPhone(@Param("role") Role role, @Param("prefix") String prefix,
+            @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT new com.finallms.backend.dto.StudentDto$DirectoryEntry(u.id, u.name, u.email, u.phone, u.address) "
+            + "FROM User u WHERE u.role = :role AND u.email LIKE :prefix ESCAPE '!' AND u.id < :afterId "
+            + "ORDER BY u.id DESC")
+    List<StudentDto.DirectoryEntry> findDirectoryPageByEmail(@Param("role") Role role, @Param("prefix") String prefix,
+            @Param("afterId") Long afterId, Pageable pageable);
 }
@@ -1,8 +1,13 @@
 package com.finallms.backend.repository;
 
+import com.finallms.backend.dto.CourseDto;
 import com.finallms.backend.entity.*;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.Optional;
+import java.util.Collection;
 
 public interface VideoProgressRepository extends JpaRepository<VideoProgress, Long> {
     Optional<VideoProgress> findByUserAndVideo(User user, Video video);
@@ -12,4 +17,18 @@ public interface VideoProgressRepository extends JpaRepository<VideoProgress, Lo
     java.util.List<VideoProgress> findByUser(User user);
 
     void deleteByVideo(Video video);
+
+    @Modifying
+    @Query("DELETE FROM VideoProgress p WHERE p.video.id IN "
+            + "(SELECT v.id FROM Video v WHERE v.module.id IN :moduleIds)")
+    int deleteByModuleIds(@Param("moduleIds") Collection<Long> moduleIds);
+
+    // Completed videos of the course per student, for whole-cohort completion checks
+    @Query("SELECT new com.finallms.backend.dto.CourseDto$StudentCount(p.user.id, COUNT(p)) FROM VideoProgress p "
+            + "WHERE p.completed = true AND p.video.module.course.id = :courseId GROUP BY p.user.id")
+    java.util.List<CourseDto.StudentCount> countCompletedByCourseId(@Param("courseId") Long courseId);
+
+    @Query("SELECT COUNT(p) FROM VideoProgress p WHERE p.completed = true AND p.user.id = :userId "
+            + "AND p.video.module.course.id = :courseId")
+    long countCompletedByUserIdAndCourseId(@Param("userId") Long userId, @Param("courseId") Long courseId);
 }
@@ -2,8 +2,24 @@ package com.finallms.backend.repository;
 
 import com.finallms.backend.entity.Video;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface VideoRepository extends JpaRepository<Video, Long> {
+
+    @Query("SELECT v.s3Key FROM Video v WHERE v.module.id IN :moduleIds AND v.s3Key IS NOT NULL")
+    List<String> findKeysByModuleIds(@Param("moduleIds") Collection<Long> moduleIds);
+
+    @Modifying
+    @Query("DELETE FROM Video v WHERE v.module.id IN :moduleIds")
+    int deleteByModuleIds(@Param("moduleIds") Collection<Long> moduleIds);
+
+    @Query("SELECT COUNT(v) FROM Video v WHERE v.module.course.id = :courseId")
+    long countByCourseId(@Param("courseId") Long courseId);
 }
@@ -0,0 +1,40 @@
+package com.finallms.backend.repository;
+
+import com.finallms.backend.entity.WebhookEvent;
+import com.finallms.backend.enums.WebhookEventStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface WebhookEventRepository extends JpaRepository<WebhookEvent, Long> {
+
+    // Orders with events waiting to be applied, oldest first
+    @Query("SELECT e.orderId FROM WebhookEvent e WHERE e.status IN :statuses AND e.nextAttemptAt <= :now "
+            + "GROUP BY e.orderId ORDER BY MIN(e.id)")
+    List<String> findDueOrderIds(@Param("statuses") Collection<WebhookEventStatus> statuses,
+            @Param("now") LocalDateTime now, Pageable pageable);
+
+    @Query("SELECT e FROM WebhookEvent e WHERE e.orderId = :orderId AND e.status IN :statuses ORDER BY e.id")
+    List<WebhookEvent> findPendingByOrderId(@Param("orderId") String orderId,
+            @Param("statuses") Collection<WebhookEventStatus> statuses);
+
+    // Claims the event for one node unless another holds a live claim; the caller applies it only on 1
+    @Modifying
+    @Query("UPDATE WebhookEvent e SET e.status = :processing, e.claimedBy = :owner, e.nextAttemptAt = :leaseUntil, "
+            + "e.version = e.version + 1 WHERE e.id = :id AND e.status IN :claimable AND e.nextAttemptAt <= :now")
+    int claim(@Param("id") Long id, @Param("owner") String owner, @Param("leaseUntil") LocalDateTime leaseUntil,
+            @Param("now") LocalDateTime now, @Param("processing") WebhookEventStatus processing,
+            @Param("claimable") Collection<WebhookEventStatus> claimable);
+
+    @Modifying
+    @Query("DELETE FROM WebhookEvent e WHERE e.status = :status AND e.processedAt < :before")
+    int deleteProcessedBefore(@Param("status") WebhookEventStatus status, @Param("before") LocalDateTime before);
+}
@@ -0,0 +1,103 @@
+package com.finallms.backend.service;
+
+import com.finallms.backend.entity.Certificate;
+import com.finallms.backend.entity.Course;
+import com.finallms.backend.entity.User;
+import com.finallms.backend.repository.CertificateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+
+/**
+ * Rendered certificate PDFs, stored once per certificate and reused. Each stored
+ * PDF is tied to a fingerprint of everything printed on it plus the template
+ * version; a changed name, course title or template yields a new fingerprint and
+ * the next download re-renders. The fingerprint doubles as the HTTP ETag.
+ */
+@Service
+public class CertificateArtifactService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CertificateArtifactService.class);
+
+    @Autowired
+    private CertificateService certificateService;
+    @Autowired
+    private CertificateRepository certificateRepository;
+    @Autowired
+    private S3Service s3Service;
+    @Autowired
+    private StorageCleanupService storageCleanupService;
+    @Autowired
+    private CertificateTemplate certificateTemplate;
+
+    // Bump to force every certificate to re-render after a layout change in code
+    @Value("${app.certificate.template-version:1}")
+    private String configuredTemplateVersion;
+
+    @Value("${app.certificate.pdf-renderer:vector}")
+    private String pdfRenderer;
+
+    private String templateVersion;
+
+    @PostConstruct
+    public void init() {
+        // Content hash of the template file and the renderer, so changing either invalidates stored PDFs
+        templateVersion = configuredTemplateVersion + ":" + certificateTemplate.digest() + ":" + pdfRenderer;
+        logger.info("Certificate template version {}", templateVersion);
+    }
+
+    public String fingerprint(Certificate certificate) {
+        User user = certificate.getUser();
+        Course course = certificate.getCourse();
+        String source = String.join("\u0000",
+                templateVersion,
+                certificate.getCertificateId(),
+                String.valueOf(certificate.getIssuedDate().toLocalDate()),
+                String.valueOf(certificate.getVerificationUrl()),
+                String.valueOf(user.getName()),
+                String.valueOf(course.getTitle()),
+                String.valueOf(course.getDuration()));
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The certificate's PDF: served from storage when the stored copy matches the
+     * current fingerprint, otherwise rendered, stored and recorded.
+     */
+    public byte[] getOrRender(Certificate certificate) throws IOException {
+        String fingerprint = fingerprint(certificate);
+        if (fingerprint.equals(certificate.getPdfFingerprint())) {
+            byte[] stored = s3Service.getArtifact(certificate.getPdfKey());
+            if (stored != null)
+                return stored;
+        }
+
+        byte[] pdf = certificateService.generatePdfCertificate(certificate.getUser(), certificate.getCourse());
+        String key = "certificates/" + certificate.getCertificateId() + "-" + fingerprint + ".pdf";
+        s3Service.putArtifact(key, pdf, "application/pdf");
+
+        String previousKey = certificate.getPdfKey();
+        certificate.setPdfKey(key);
+        certificate.setPdfFingerprint(fingerprint);
+        certificateRepository.save(certificate);
+        if (previousKey != null && !previousKey.equals(key)) {
+            storageCleanupService.deleteAfterCommit(Collections.singletonList(previousKey));
+        }
+        return pdf;
+    }
+}
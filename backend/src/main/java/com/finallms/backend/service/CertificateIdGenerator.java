@@ -0,0 +1,151 @@
+package com.finallms.backend.service;
+
+import com.finallms.backend.entity.IdSequence;
+import com.finallms.backend.repository.IdSequenceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Certificate ids without collision probes. Sequence numbers are reserved from
+ * {@code id_sequences} a block at a time and handed out from memory; each one is
+ * scrambled into 9 digits by a fixed bijection (so consecutive certificates do not
+ * get consecutive ids) and followed by a Luhn check digit, giving 10-digit ids.
+ * Ids from a block that a node never used are simply skipped, and a block older
+ * than {@code app.certificate.id-block-max-age-ms} is abandoned, so an id is always
+ * issued within that time of its block being reserved.
+ */
+@Service
+public class CertificateIdGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(CertificateIdGenerator.class);
+    private static final String SEQUENCE = "certificate_id";
+    private static final long SPACE = 1_000_000_000L;
+    // Coprime with 10, so multiplying by it modulo SPACE is a permutation
+    private static final long MULTIPLIER = 738_219_451L;
+    // MULTIPLIER * INVERSE == 1 modulo SPACE
+    private static final long INVERSE = 955_208_051L;
+    private static final long OFFSET = 104_729L;
+    private static final int LENGTH = 10;
+    // Ids issued before the block allocator were random 5-digit numbers
+    private static final int LEGACY_LENGTH = 5;
+
+    @Autowired
+    private IdSequenceRepository idSequenceRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.certificate.id-block-size:100}")
+    private int blockSize;
+    @Value("${app.certificate.id-block-max-age-ms:3600000}")
+    private long blockMaxAgeMs;
+
+    private TransactionTemplate requiresNew;
+    private long next;
+    private long blockEnd;
+    private long blockReservedAt;
+
+    @PostConstruct
+    public void init() {
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public synchronized String nextId() {
+        long now = System.currentTimeMillis();
+        if (next >= blockEnd || now - blockReservedAt > blockMaxAgeMs) {
+            int size = Math.max(1, blockSize);
+            next = reserveBlock(size);
+            blockEnd = next + size;
+            blockReservedAt = now;
+        }
+        return format(next++);
+    }
+
+    /** First sequence number not yet reserved by any node; ids from it on were never issued. */
+    public long reservedUpTo() {
+        return idSequenceRepository.findNextValue(SEQUENCE).orElse(0L);
+    }
+
+    public long getBlockMaxAgeMs() {
+        return blockMaxAgeMs;
+    }
+
+    // Reserved in its own transaction so the row lock is held only for the update
+    private long reserveBlock(int size) {
+        for (int attempt = 0;; attempt++) {
+            try {
+                Long start = requiresNew.execute(status -> {
+                    IdSequence sequence = idSequenceRepository.lockByName(SEQUENCE)
+                            .orElseGet(() -> idSequenceRepository.saveAndFlush(new IdSequence(SEQUENCE, 1)));
+                    long first = sequence.getNextValue();
+                    sequence.setNextValue(first + size);
+                    return first;
+                });
+                if (start + size > SPACE)
+                    throw new IllegalStateException("Certificate id space exhausted");
+                logger.debug("Reserved certificate ids {}..{}", start, start + size - 1);
+                return start;
+            } catch (DataIntegrityViolationException e) {
+                // Another node created the sequence row first; it exists now
+                if (attempt > 0)
+                    throw e;
+            }
+        }
+    }
+
+    static String format(long sequence) {
+        long scrambled = Math.floorMod(sequence * MULTIPLIER + OFFSET, SPACE);
+        String body = String.format("%09d", scrambled);
+        return body + luhnDigit(body);
+    }
+
+    /**
+     * Sequence number a well-formed 10-digit id was made from, or -1 for a legacy id.
+     */
+    public static long sequenceOf(String id) {
+        if (id.length() != LENGTH)
+            return -1;
+        long scrambled = Long.parseLong(id.substring(0, LENGTH - 1));
+        return Math.floorMod((scrambled - OFFSET) * INVERSE, SPACE);
+    }
+
+    /**
+     * Whether {@code id} could have been issued: a legacy 5-digit id, or a 10-digit
+     * id with a valid check digit. Lets typos and made-up ids be rejected up front.
+     */
+    public static boolean isWellFormed(String id) {
+        if (id == null || (id.length() != LENGTH && id.length() != LEGACY_LENGTH))
+            return false;
+        for (int i = 0; i < id.length(); i++) {
+            if (id.charAt(i) < '0' || id.charAt(i) > '9')
+                return false;
+        }
+        return id.length() == LEGACY_LENGTH
+                || luhnDigit(id.substring(0, LENGTH - 1)) == id.charAt(LENGTH - 1) - '0';
+    }
+
+    private static int luhnDigit(String digits) {
+        int sum = 0;
+        boolean doubled = true;
+        for (int i = digits.length() - 1; i >= 0; i--) {
+            int d = digits.charAt(i) - '0';
+            if (doubled) {
+                d *= 2;
+                if (d > 9)
+                    d -= 9;
+            }
+            sum += d;
+            doubled = !doubled;
+        }
+        return (10 - sum % 10) % 10;
+    }
+}
@@ -0,0 +1,281 @@
+package com.finallms.backend.service;
+
+import com.finallms.backend.entity.Certificate;
+import com.finallms.backend.entity.Course;
+import com.finallms.backend.entity.User;
+import com.finallms.backend.event.CourseProgressEvent;
+import com.finallms.backend.exception.ServiceBusyException;
+import com.finallms.backend.repository.CertificateRepository;
+import com.finallms.backend.repository.CourseRepository;
+import com.finallms.backend.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Issues certificates when students complete courses instead of on download.
+ * Progress events are handled after commit on a single background thread: the
+ * completion check runs once per event, a completed course gets its certificate
+ * row, the PDF is pre-rendered on the render pool and the student is notified.
+ * A sweep at startup and then periodically, run by one node at a time, issues
+ * certificates to anyone who completed a course before this ran or whose event was
+ * dropped; a download with no certificate on record checks completion itself.
+ */
+@Service
+public class CertificateIssuanceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CertificateIssuanceService.class);
+
+    @Autowired
+    private StudentService studentService;
+    @Autowired
+    private CertificateService certificateService;
+    @Autowired
+    private CertificateRenderService certificateRenderService;
+    @Autowired
+    private JobLockService jobLockService;
+    @Autowired
+    private CertificateRepository certificateRepository;
+    @Autowired
+    private CourseRepository courseRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired(required = false)
+    private JavaMailSender mailSender;
+
+    @Value("${app.mail.from:no-reply@skilledup.local}")
+    private String mailFrom;
+
+    @Value("${app.mail.test-mode:false}")
+    private boolean mailTestMode;
+
+    @Value("${app.certificate.issue-queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.certificate.issue-sweep-on-startup:true}")
+    private boolean sweepOnStartup;
+
+    private static final String SWEEP_LOCK = "certificate-issue-sweep";
+
+    // Students found not to have completed a course on download, until their next progress event
+    private final Cache<String, Boolean> notCompleted = Caffeine.newBuilder()
+            .expireAfterWrite(10, TimeUnit.MINUTES)
+            .maximumSize(100000)
+            .build();
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        // One thread, so two events for the same student and course never race to issue
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                    Thread thread = new Thread(runnable, "certificate-issue");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCourseProgress(CourseProgressEvent event) {
+        notCompleted.invalidate(event.getUserId() + ":" + event.getCourseId());
+        try {
+            executor.execute(() -> issueIfCompleted(event.getUserId(), event.getCourseId()));
+        } catch (RejectedExecutionException e) {
+            // The next sweep picks the student up
+            logger.warn("Certificate issue queue full, dropped check for user {} course {}", event.getUserId(),
+                    event.getCourseId());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void sweepOnStartup() {
+        if (sweepOnStartup)
+            requestSweep();
+    }
+
+    @Scheduled(fixedDelayString = "${app.certificate.issue-sweep-ms:3600000}",
+            initialDelayString = "${app.certificate.issue-sweep-ms:3600000}")
+    public void sweepPeriodically() {
+        requestSweep();
+    }
+
+    /**
+     * Certificate for a download when none is on record, issued here if the student
+     * has completed the course (their event may still be queued, or was dropped).
+     * A negative answer is remembered until the student's next progress event, so
+     * repeated clicks do not repeat the check.
+     */
+    public Certificate issueOnDownload(User user, Course course) {
+        String key = user.getId() + ":" + course.getId();
+        if (notCompleted.getIfPresent(key) != null)
+            return null;
+        if (!studentService.hasCompletedCourse(user.getId(), course.getId())) {
+            notCompleted.put(key, Boolean.TRUE);
+            return null;
+        }
+        try {
+            // Rendered by the download itself
+            return issue(user, course, false);
+        } catch (DataIntegrityViolationException e) {
+            // Issued concurrently by the background thread or another node
+            return certificateRepository.findByUserAndCourse(user, course).orElse(null);
+        }
+    }
+
+    /**
+     * Issue the certificate of a student who completed the course and tell them,
+     * optionally pre-rendering the PDF.
+     */
+    public Certificate issue(User user, Course course, boolean prerender) {
+        Certificate certificate = certificateService.generateOrGetCertificate(user, course);
+        logger.info("Issued certificate {} to user {} for course {}", certificate.getCertificateId(), user.getId(),
+                course.getId());
+        if (prerender)
+            prerender(certificate);
+        notifyIssued(user, course, certificate);
+        return certificate;
+    }
+
+    private void requestSweep() {
+        try {
+            executor.execute(this::sweep);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Certificate issue queue full, sweep skipped");
+        }
+    }
+
+    private void sweep() {
+        Duration lease = Duration.ofMinutes(10);
+        try {
+            if (!jobLockService.tryAcquire(SWEEP_LOCK, lease))
+                return;
+        } catch (RuntimeException e) {
+            logger.warn("Certificate sweep lock unavailable: {}", e.getMessage());
+            return;
+        }
+        long start = System.nanoTime();
+        int courses = 0;
+        int issued = 0;
+        try {
+            for (Course course : courseRepository.findAll()) {
+                try {
+                    issued += issueMissing(course);
+                    courses++;
+                } catch (RuntimeException e) {
+                    logger.warn("Certificate sweep failed for course {}: {}", course.getId(), e.getMessage());
+                }
+                // Keep the lease for as long as the sweep takes
+                if (!jobLockService.tryAcquire(SWEEP_LOCK, lease))
+                    break;
+            }
+        } finally {
+            try {
+                jobLockService.release(SWEEP_LOCK);
+            } catch (RuntimeException e) {
+                logger.debug("Releasing certificate sweep lock failed: {}", e.getMessage());
+            }
+        }
+        logger.info("Certificate sweep over {} courses issued {} in {} ms", courses, issued,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private int issueMissing(Course course) {
+        Set<Long> missing = new HashSet<>(studentService.findCompletedStudentIds(course.getId()));
+        missing.removeAll(certificateRepository.findUserIdsByCourseId(course.getId()));
+        int issued = 0;
+        for (User user : userRepository.findAllById(missing)) {
+            try {
+                issue(user, course, true);
+                issued++;
+            } catch (DataIntegrityViolationException e) {
+                logger.debug("Certificate for user {} course {} already issued", user.getId(), course.getId());
+            }
+        }
+        return issued;
+    }
+
+    private void issueIfCompleted(Long userId, Long courseId) {
+        try {
+            if (certificateRepository.existsByUserIdAndCourseId(userId, courseId)
+                    || !studentService.hasCompletedCourse(userId, courseId))
+                return;
+            User user = userRepository.findById(userId).orElse(null);
+            Course course = courseRepository.findById(courseId).orElse(null);
+            if (user == null || course == null)
+                return;
+            issue(user, course, true);
+        } catch (DataIntegrityViolationException e) {
+            // Issued concurrently elsewhere (another node, a download, or the cohort download)
+            logger.debug("Certificate for user {} course {} already issued", userId, courseId);
+        } catch (RuntimeException e) {
+            logger.warn("Certificate issue failed for user {} course {}: {}", userId, courseId, e.getMessage());
+        }
+    }
+
+    // Best effort: if the pool is busy the first download renders instead
+    private void prerender(Certificate certificate) {
+        try {
+            certificateRenderService.renderAsync(certificate.getId()).whenComplete((pdf, error) -> {
+                if (error != null)
+                    logger.warn("Pre-render of certificate {} failed: {}", certificate.getCertificateId(),
+                            error.getMessage());
+            });
+        } catch (ServiceBusyException e) {
+            logger.info("Render pool busy, certificate {} will render on first download",
+                    certificate.getCertificateId());
+        }
+    }
+
+    private void notifyIssued(User user, Course course, Certificate certificate) {
+        String text = "Congratulations " + user.getName() + "! You have completed " + course.getTitle()
+                + " and your certificate is ready to download from your dashboard.\n\nCertificate ID: "
+                + certificate.getCertificateId() + "\nVerify at: " + certificate.getVerificationUrl();
+        if (user.getEmail() == null || user.getEmail().isBlank()) {
+            logger.info("No email for user {}, certificate {} not notified", user.getId(),
+                    certificate.getCertificateId());
+            return;
+        }
+        try {
+            if (mailTestMode || mailSender == null) {
+                logger.info("DEV certificate email to {}: {}", user.getEmail(), text);
+                return;
+            }
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setTo(user.getEmail());
+            message.setFrom(mailFrom);
+            message.setSubject("Your certificate for " + course.getTitle());
+            message.setText(text);
+            mailSender.send(message);
+        } catch (RuntimeException e) {
+            logger.warn("Certificate email to user {} failed: {}", user.getId(), e.getMessage());
+        }
+    }
+}
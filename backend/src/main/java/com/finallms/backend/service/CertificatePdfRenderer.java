@@ -0,0 +1,683 @@
+package com.finallms.backend.service;
+
+import org.apache.fontbox.ttf.NamingTable;
+import org.apache.fontbox.ttf.TTFParser;
+import org.apache.fontbox.ttf.TrueTypeFont;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDFontDescriptor;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceRGB;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.util.Matrix;
+import org.apache.poi.sl.draw.DrawFactory;
+import org.apache.poi.sl.draw.DrawPaint;
+import org.apache.poi.sl.draw.DrawTextBox;
+import org.apache.poi.sl.draw.DrawTextShape;
+import org.apache.poi.sl.draw.Drawable;
+import org.apache.poi.sl.usermodel.Insets2D;
+import org.apache.poi.sl.usermodel.PaintStyle;
+import org.apache.poi.sl.usermodel.TextBox;
+import org.apache.poi.sl.usermodel.TextParagraph;
+import org.apache.poi.sl.usermodel.TextShape;
+import org.apache.poi.sl.usermodel.VerticalAlignment;
+import org.apache.poi.xslf.usermodel.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Vector PDF output for the certificate template. Everything on a slide except its
+ * own text is rasterized once per template into a compressed background image;
+ * each render embeds those bytes as they are and lays the filled text out with PDF
+ * text operators, so no full-page bitmap is drawn or encoded per certificate.
+ *
+ * Templates this renderer cannot reproduce (tables, text no available font can
+ * show) raise {@link UnsupportedOperationException} so the caller can rasterize
+ * instead.
+ */
+@Component
+public class CertificatePdfRenderer {
+
+    private static final Logger logger = LoggerFactory.getLogger(CertificatePdfRenderer.class);
+
+    private static final List<String> DEFAULT_FONT_DIRS = List.of("/usr/share/fonts", "/usr/local/share/fonts",
+            System.getProperty("user.home") + "/.fonts", "C:/Windows/Fonts", "/Library/Fonts",
+            "/System/Library/Fonts");
+    // Tried in order when the requested font cannot show a string, e.g. a non-Latin name
+    private static final List<String> UNICODE_FALLBACKS = List.of("Noto Sans", "DejaVu Sans", "Arial Unicode MS",
+            "Liberation Sans", "Arial");
+    private static final Pattern TOKEN = Pattern.compile("\\s+|\\S+");
+    private static final float DEFAULT_FONT_SIZE = 18f;
+
+    @Value("${app.certificate.background-scale:2}")
+    private double backgroundScale;
+
+    // Comma separated directories searched for .ttf files; empty uses the usual system locations
+    @Value("${app.certificate.font-dirs:}")
+    private String fontDirs;
+
+    private volatile List<Background> backgrounds;
+    private volatile String unsupported;
+    private volatile Map<String, Path> fontFiles;
+    private final Map<Path, byte[]> fontBytes = new ConcurrentHashMap<>();
+
+    public byte[] render(CertificateTemplate.Compiled compiled) throws IOException {
+        XMLSlideShow ppt = compiled.getSlideShow();
+        if (ppt.getSlides().isEmpty())
+            throw new IOException("No slides found in template");
+        List<Background> pageBackgrounds = backgrounds(ppt);
+        Dimension size = ppt.getPageSize();
+        float width = (float) size.getWidth();
+        float height = (float) size.getHeight();
+
+        try (PDDocument pdf = new PDDocument()) {
+            Fonts fonts = new Fonts(pdf);
+            List<XSLFSlide> slides = ppt.getSlides();
+            for (int i = 0; i < slides.size(); i++) {
+                PDPage page = new PDPage(new PDRectangle(width, height));
+                pdf.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(pdf, page)) {
+                    content.drawImage(pageBackgrounds.get(i).embed(pdf), 0, 0, width, height);
+                    drawShapes(content, slides.get(i).getShapes(), new AffineTransform(), fonts, height);
+                }
+            }
+            try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+                pdf.save(out);
+                return out.toByteArray();
+            }
+        }
+    }
+
+    // ---- background ----
+
+    /**
+     * A slide drawn without its text, kept as a Flate encoded RGB stream so every
+     * document can embed it without decoding or compressing it again.
+     */
+    private static final class Background {
+        private final byte[] encoded;
+        private final int width;
+        private final int height;
+
+        private Background(byte[] encoded, int width, int height) {
+            this.encoded = encoded;
+            this.width = width;
+            this.height = height;
+        }
+
+        private PDImageXObject embed(PDDocument pdf) throws IOException {
+            return new PDImageXObject(pdf, new ByteArrayInputStream(encoded), COSName.FLATE_DECODE, width, height,
+                    8, PDDeviceRGB.INSTANCE);
+        }
+    }
+
+    private List<Background> backgrounds(XMLSlideShow ppt) throws IOException {
+        List<Background> result = backgrounds;
+        if (result == null) {
+            synchronized (this) {
+                result = backgrounds;
+                if (result == null && unsupported == null) {
+                    unsupported = findUnsupported(ppt);
+                    if (unsupported == null) {
+                        long start = System.nanoTime();
+                        List<Background> built = new ArrayList<>();
+                        for (XSLFSlide slide : ppt.getSlides()) {
+                            built.add(renderBackground(ppt.getPageSize(), slide));
+                        }
+                        result = backgrounds = Collections.unmodifiableList(built);
+                        logger.info("Rendered certificate background in {} ms ({} bytes)",
+                                (System.nanoTime() - start) / 1_000_000,
+                                built.stream().mapToInt(b -> b.encoded.length).sum());
+                    }
+                }
+            }
+        }
+        if (result == null)
+            throw new UnsupportedOperationException(unsupported);
+        return result;
+    }
+
+    private String findUnsupported(XMLSlideShow ppt) {
+        for (XSLFSlide slide : ppt.getSlides()) {
+            String reason = findUnsupported(slide.getShapes());
+            if (reason != null)
+                return reason;
+        }
+        return null;
+    }
+
+    private String findUnsupported(List<XSLFShape> shapes) {
+        for (XSLFShape shape : shapes) {
+            if (shape instanceof XSLFTable)
+                return "template contains a table";
+            if (shape instanceof XSLFGroupShape) {
+                String reason = findUnsupported(((XSLFGroupShape) shape).getShapes());
+                if (reason != null)
+                    return reason;
+            }
+        }
+        return null;
+    }
+
+    private Background renderBackground(Dimension pageSize, XSLFSlide slide) throws IOException {
+        double scale = backgroundScale > 0 ? backgroundScale : 1;
+        int width = (int) Math.ceil(pageSize.getWidth() * scale);
+        int height = (int) Math.ceil(pageSize.getHeight() * scale);
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = img.createGraphics();
+        try {
+            graphics.setPaint(Color.white);
+            graphics.fillRect(0, 0, width, height);
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(Drawable.DRAW_FACTORY, new WithoutSlideText(slide));
+            graphics.scale(scale, scale);
+            slide.draw(graphics);
+        } finally {
+            graphics.dispose();
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DeflaterOutputStream deflate = new DeflaterOutputStream(out, deflater, 64 * 1024)) {
+            byte[] row = new byte[width * 3];
+            int[] pixels = new int[width];
+            for (int y = 0; y < height; y++) {
+                img.getRGB(0, y, width, 1, pixels, 0, width);
+                for (int x = 0, o = 0; x < width; x++) {
+                    int rgb = pixels[x];
+                    row[o++] = (byte) (rgb >> 16);
+                    row[o++] = (byte) (rgb >> 8);
+                    row[o++] = (byte) rgb;
+                }
+                deflate.write(row);
+            }
+        } finally {
+            deflater.end();
+        }
+        return new Background(out.toByteArray(), width, height);
+    }
+
+    // Draws shapes as usual but leaves out the text of shapes on the given slide
+    private static final class WithoutSlideText extends DrawFactory {
+        private final XSLFSlide slide;
+
+        private WithoutSlideText(XSLFSlide slide) {
+            this.slide = slide;
+        }
+
+        @Override
+        public DrawTextBox getDrawable(TextBox<?, ?> shape) {
+            if (shape.getSheet() != slide)
+                return super.getDrawable(shape);
+            return new DrawTextBox(shape) {
+                @Override
+                public void drawContent(Graphics2D graphics) {
+                }
+            };
+        }
+
+        @Override
+        public DrawTextShape getDrawable(TextShape<?, ?> shape) {
+            if (shape.getSheet() != slide)
+                return super.getDrawable(shape);
+            return new DrawTextShape(shape) {
+                @Override
+                public void drawContent(Graphics2D graphics) {
+                }
+            };
+        }
+    }
+
+    // ---- text ----
+
+    private void drawShapes(PDPageContentStream content, List<XSLFShape> shapes, AffineTransform transform,
+            Fonts fonts, float pageHeight) throws IOException {
+        for (XSLFShape shape : shapes) {
+            if (shape instanceof XSLFGroupShape) {
+                XSLFGroupShape group = (XSLFGroupShape) shape;
+                Rectangle2D anchor = group.getAnchor();
+                Rectangle2D interior = group.getInteriorAnchor();
+                AffineTransform child = new AffineTransform(transform);
+                child.translate(anchor.getX(), anchor.getY());
+                if (interior.getWidth() > 0 && interior.getHeight() > 0) {
+                    child.scale(anchor.getWidth() / interior.getWidth(), anchor.getHeight() / interior.getHeight());
+                }
+                child.translate(-interior.getX(), -interior.getY());
+                drawShapes(content, group.getShapes(), child, fonts, pageHeight);
+            } else if (shape instanceof XSLFTextShape) {
+                XSLFTextShape textShape = (XSLFTextShape) shape;
+                if (!textShape.getText().isBlank()) {
+                    Rectangle2D box = transform.createTransformedShape(textShape.getAnchor()).getBounds2D();
+                    drawTextShape(content, textShape, box, fonts, pageHeight);
+                }
+            }
+        }
+    }
+
+    private static final class Span {
+        private final String text;
+        private final PDFont font;
+        private final float size;
+        private final Color color;
+        private final boolean underline;
+        private final float width;
+        private final boolean blank;
+
+        private Span(String text, PDFont font, float size, Color color, boolean underline) throws IOException {
+            this.text = text;
+            this.font = font;
+            this.size = size;
+            this.color = color;
+            this.underline = underline;
+            this.width = font.getStringWidth(text) / 1000f * size;
+            this.blank = text.isBlank();
+        }
+
+        private boolean sameStyle(Span other) {
+            return font == other.font && size == other.size && color.equals(other.color)
+                    && underline == other.underline;
+        }
+    }
+
+    private static final class Line {
+        private final List<Span> spans = new ArrayList<>();
+        private float width;
+        private float ascent;
+        private float descent;
+        private float height;
+        private float x;
+    }
+
+    private void drawTextShape(PDPageContentStream content, XSLFTextShape shape, Rectangle2D box, Fonts fonts,
+            float pageHeight) throws IOException {
+        Insets2D insets = shape.getInsets();
+        float left = (float) (box.getX() + insets.left);
+        float innerWidth = (float) (box.getWidth() - insets.left - insets.right);
+        float innerHeight = (float) (box.getHeight() - insets.top - insets.bottom);
+        boolean wrap = shape.getWordWrap();
+
+        List<XSLFTextParagraph> paragraphs = shape.getTextParagraphs();
+        List<List<Line>> paragraphLines = new ArrayList<>();
+        float textHeight = 0;
+        for (int p = 0; p < paragraphs.size(); p++) {
+            XSLFTextParagraph paragraph = paragraphs.get(p);
+            float leftMargin = value(paragraph.getLeftMargin());
+            float rightMargin = value(paragraph.getRightMargin());
+            float indent = value(paragraph.getIndent());
+            float available = innerWidth - leftMargin - rightMargin;
+            List<Line> lines = layout(paragraph, available, indent, wrap, fonts);
+
+            TextParagraph.TextAlign align = paragraph.getTextAlign();
+            for (int i = 0; i < lines.size(); i++) {
+                Line line = lines.get(i);
+                float lineIndent = i == 0 ? indent : 0;
+                float slack = available - lineIndent - line.width;
+                float offset = align == TextParagraph.TextAlign.CENTER ? slack / 2
+                        : align == TextParagraph.TextAlign.RIGHT ? slack : 0;
+                line.x = left + leftMargin + lineIndent + offset;
+                line.height = lineHeight(paragraph.getLineSpacing(), line);
+                textHeight += line.height;
+            }
+            textHeight += spaceAround(paragraph, p, lines);
+            paragraphLines.add(lines);
+        }
+
+        VerticalAlignment anchor = shape.getVerticalAlignment();
+        float y = (float) (box.getY() + insets.top);
+        if (anchor == VerticalAlignment.MIDDLE)
+            y += (innerHeight - textHeight) / 2;
+        else if (anchor == VerticalAlignment.BOTTOM)
+            y += innerHeight - textHeight;
+
+        double rotation = shape.getRotation();
+        if (rotation != 0) {
+            float cx = (float) box.getCenterX();
+            float cy = pageHeight - (float) box.getCenterY();
+            content.saveGraphicsState();
+            Matrix matrix = Matrix.getTranslateInstance(cx, cy);
+            matrix.rotate(Math.toRadians(-rotation));
+            matrix.translate(-cx, -cy);
+            content.transform(matrix);
+        }
+
+        for (int p = 0; p < paragraphs.size(); p++) {
+            XSLFTextParagraph paragraph = paragraphs.get(p);
+            List<Line> lines = paragraphLines.get(p);
+            if (p > 0)
+                y += spacing(paragraph.getSpaceBefore(), lines.get(0).height);
+            for (Line line : lines) {
+                float baseline = y + (line.height - line.ascent - line.descent) / 2 + line.ascent;
+                drawLine(content, line, pageHeight - baseline);
+                y += line.height;
+            }
+            y += spacing(paragraph.getSpaceAfter(), lines.get(0).height);
+        }
+
+        if (rotation != 0)
+            content.restoreGraphicsState();
+    }
+
+    // Space before (not for the first paragraph, as PowerPoint does) and after a paragraph
+    private float spaceAround(XSLFTextParagraph paragraph, int index, List<Line> lines) {
+        float lineHeight = lines.get(0).height;
+        float space = spacing(paragraph.getSpaceAfter(), lineHeight);
+        if (index > 0)
+            space += spacing(paragraph.getSpaceBefore(), lineHeight);
+        return space;
+    }
+
+    private List<Line> layout(XSLFTextParagraph paragraph, float width, float indent, boolean wrap, Fonts fonts)
+            throws IOException {
+        List<Line> lines = new ArrayList<>();
+        Line line = new Line();
+        for (XSLFTextRun run : paragraph.getTextRuns()) {
+            String text = run.getRawText();
+            if (text == null || text.isEmpty())
+                continue;
+            float size = run.getFontSize() != null ? run.getFontSize().floatValue() : DEFAULT_FONT_SIZE;
+            PDFont font = fonts.get(run.getFontFamily(), run.isBold(), run.isItalic(), text);
+            Color color = color(run.getFontColor());
+            boolean underline = run.isUnderlined();
+
+            String[] parts = text.split("[\\n\\u000B]", -1);
+            for (int p = 0; p < parts.length; p++) {
+                if (p > 0) {
+                    finish(line, font, size);
+                    lines.add(line);
+                    line = new Line();
+                }
+                Matcher tokens = TOKEN.matcher(parts[p]);
+                while (tokens.find()) {
+                    Span span = new Span(tokens.group(), font, size, color, underline);
+                    float available = lines.isEmpty() ? width - indent : width;
+                    if (wrap && !span.blank && !line.spans.isEmpty()
+                            && trimmedWidth(line) + trailingBlank(line) + span.width > available) {
+                        finish(line, font, size);
+                        lines.add(line);
+                        line = new Line();
+                    }
+                    if (span.blank && line.spans.isEmpty() && !lines.isEmpty())
+                        continue;
+                    line.spans.add(span);
+                }
+            }
+        }
+        Double defaultSize = paragraph.getDefaultFontSize();
+        finish(line, PDType1Font.HELVETICA, defaultSize != null ? defaultSize.floatValue() : DEFAULT_FONT_SIZE);
+        lines.add(line);
+        return lines;
+    }
+
+    private float trimmedWidth(Line line) {
+        float width = 0;
+        int end = line.spans.size();
+        while (end > 0 && line.spans.get(end - 1).blank)
+            end--;
+        for (int i = 0; i < end; i++)
+            width += line.spans.get(i).width;
+        return width;
+    }
+
+    private float trailingBlank(Line line) {
+        float width = 0;
+        for (int i = line.spans.size() - 1; i >= 0 && line.spans.get(i).blank; i--)
+            width += line.spans.get(i).width;
+        return width;
+    }
+
+    // Fixes width and font metrics; an empty line takes its height from the given font
+    private void finish(Line line, PDFont emptyFont, float emptySize) {
+        while (!line.spans.isEmpty() && line.spans.get(line.spans.size() - 1).blank)
+            line.spans.remove(line.spans.size() - 1);
+        line.width = trimmedWidth(line);
+        if (line.spans.isEmpty()) {
+            line.ascent = ascent(emptyFont) * emptySize;
+            line.descent = descent(emptyFont) * emptySize;
+            line.height = Math.max(line.ascent + line.descent, emptySize * 1.2f);
+            return;
+        }
+        for (Span span : line.spans) {
+            line.ascent = Math.max(line.ascent, ascent(span.font) * span.size);
+            line.descent = Math.max(line.descent, descent(span.font) * span.size);
+            line.height = Math.max(line.height, span.size * 1.2f);
+        }
+        line.height = Math.max(line.height, line.ascent + line.descent);
+    }
+
+    private float lineHeight(Double lineSpacing, Line line) {
+        if (lineSpacing == null)
+            return line.height;
+        // Positive values are a percentage of single spacing, negative ones are points
+        return lineSpacing > 0 ? line.height * lineSpacing.floatValue() / 100f : -lineSpacing.floatValue();
+    }
+
+    private float spacing(Double space, float lineHeight) {
+        if (space == null || space == 0)
+            return 0;
+        return space > 0 ? lineHeight * space.floatValue() / 100f : -space.floatValue();
+    }
+
+    private void drawLine(PDPageContentStream content, Line line, float baseline) throws IOException {
+        if (line.spans.isEmpty())
+            return;
+        float x = line.x;
+        int i = 0;
+        while (i < line.spans.size()) {
+            Span first = line.spans.get(i);
+            StringBuilder text = new StringBuilder(first.text);
+            float width = first.width;
+            int j = i + 1;
+            while (j < line.spans.size() && line.spans.get(j).sameStyle(first)) {
+                text.append(line.spans.get(j).text);
+                width += line.spans.get(j).width;
+                j++;
+            }
+            content.setNonStrokingColor(first.color);
+            content.beginText();
+            content.setFont(first.font, first.size);
+            content.newLineAtOffset(x, baseline);
+            content.showText(text.toString());
+            content.endText();
+            if (first.underline) {
+                float thickness = Math.max(0.5f, first.size / 18f);
+                content.addRect(x, baseline - first.size * 0.12f - thickness, width, thickness);
+                content.fill();
+            }
+            x += width;
+            i = j;
+        }
+    }
+
+    private static float value(Double value) {
+        return value != null ? value.floatValue() : 0f;
+    }
+
+    private static Color color(PaintStyle paint) {
+        if (paint instanceof PaintStyle.SolidPaint) {
+            Color color = DrawPaint.applyColorTransform(((PaintStyle.SolidPaint) paint).getSolidColor());
+            if (color != null)
+                return new Color(color.getRed(), color.getGreen(), color.getBlue());
+        }
+        return Color.BLACK;
+    }
+
+    private static float ascent(PDFont font) {
+        PDFontDescriptor descriptor = font.getFontDescriptor();
+        float ascent = descriptor != null ? descriptor.getAscent() : 0;
+        return ascent > 0 ? ascent / 1000f : 0.8f;
+    }
+
+    private static float descent(PDFont font) {
+        PDFontDescriptor descriptor = font.getFontDescriptor();
+        float descent = descriptor != null ? -descriptor.getDescent() : 0;
+        return descent > 0 ? descent / 1000f : 0.2f;
+    }
+
+    // ---- fonts ----
+
+    /**
+     * Fonts of one document: the requested family from an installed TrueType file
+     * when there is one, a standard PDF font otherwise, and a Unicode font for text
+     * neither can show.
+     */
+    private final class Fonts {
+        private final PDDocument pdf;
+        private final Map<Path, PDFont> loaded = new HashMap<>();
+
+        private Fonts(PDDocument pdf) {
+            this.pdf = pdf;
+        }
+
+        private PDFont get(String family, boolean bold, boolean italic, String text) throws IOException {
+            Path file = fontFile(family, bold, italic);
+            if (file != null) {
+                PDFont font = load(file);
+                if (canShow(font, text))
+                    return font;
+            }
+            PDFont standard = standard(family, bold, italic);
+            if (canShow(standard, text))
+                return standard;
+            for (String fallback : UNICODE_FALLBACKS) {
+                file = fontFile(fallback, bold, italic);
+                if (file != null) {
+                    PDFont font = load(file);
+                    if (canShow(font, text))
+                        return font;
+                }
+            }
+            throw new UnsupportedOperationException("no installed font can show '" + text + "'");
+        }
+
+        private PDFont load(Path file) throws IOException {
+            PDFont font = loaded.get(file);
+            if (font == null) {
+                byte[] bytes = fontBytes.get(file);
+                if (bytes == null) {
+                    bytes = Files.readAllBytes(file);
+                    fontBytes.put(file, bytes);
+                }
+                font = PDType0Font.load(pdf, new ByteArrayInputStream(bytes), true);
+                loaded.put(file, font);
+            }
+            return font;
+        }
+
+        private PDFont standard(String family, boolean bold, boolean italic) {
+            String name = family != null ? family.toLowerCase(Locale.ROOT) : "";
+            if (name.contains("courier") || name.contains("mono") || name.contains("consolas")) {
+                return bold ? (italic ? PDType1Font.COURIER_BOLD_OBLIQUE : PDType1Font.COURIER_BOLD)
+                        : (italic ? PDType1Font.COURIER_OBLIQUE : PDType1Font.COURIER);
+            }
+            if (name.contains("script") || name.contains("vibes")) {
+                // Nearest standard face to a script font
+                return bold ? PDType1Font.TIMES_BOLD_ITALIC : PDType1Font.TIMES_ITALIC;
+            }
+            if (name.contains("times") || name.contains("georgia") || name.contains("garamond")
+                    || name.contains("cambria") || (name.contains("serif") && !name.contains("sans"))) {
+                return bold ? (italic ? PDType1Font.TIMES_BOLD_ITALIC : PDType1Font.TIMES_BOLD)
+                        : (italic ? PDType1Font.TIMES_ITALIC : PDType1Font.TIMES_ROMAN);
+            }
+            return bold ? (italic ? PDType1Font.HELVETICA_BOLD_OBLIQUE : PDType1Font.HELVETICA_BOLD)
+                    : (italic ? PDType1Font.HELVETICA_OBLIQUE : PDType1Font.HELVETICA);
+        }
+
+        private boolean canShow(PDFont font, String text) {
+            try {
+                font.encode(text.replaceAll("[\\n\\u000B]", ""));
+                return true;
+            } catch (IllegalArgumentException | IOException e) {
+                return false;
+            }
+        }
+    }
+
+    private Path fontFile(String family, boolean bold, boolean italic) {
+        if (family == null)
+            return null;
+        Map<String, Path> files = fontFiles();
+        Path file = files.get(fontKey(family, bold, italic));
+        if (file == null && (bold || italic))
+            file = files.get(fontKey(family, false, false));
+        return file;
+    }
+
+    private static String fontKey(String family, boolean bold, boolean italic) {
+        return family.toLowerCase(Locale.ROOT).replace(" ", "") + (bold ? "|b" : "|") + (italic ? "i" : "");
+    }
+
+    // Family name index of installed TrueType fonts, built on first use
+    private Map<String, Path> fontFiles() {
+        Map<String, Path> files = fontFiles;
+        if (files != null)
+            return files;
+        synchronized (this) {
+            if (fontFiles != null)
+                return fontFiles;
+            long start = System.nanoTime();
+            List<String> dirs = fontDirs == null || fontDirs.isBlank() ? DEFAULT_FONT_DIRS
+                    : Arrays.asList(fontDirs.split(","));
+            Map<String, Path> index = new HashMap<>();
+            for (String dir : dirs) {
+                Path root = Paths.get(dir.trim());
+                if (!Files.isDirectory(root))
+                    continue;
+                try (Stream<Path> paths = Files.walk(root)) {
+                    paths.filter(p -> p.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".ttf"))
+                            .sorted()
+                            .forEach(p -> indexFont(p, index));
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("Could not scan font directory {}: {}", root, e.getMessage());
+                }
+            }
+            logger.info("Indexed {} certificate fonts in {} ms", index.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+            fontFiles = index;
+            return index;
+        }
+    }
+
+    private void indexFont(Path path, Map<String, Path> index) {
+        try (TrueTypeFont ttf = new TTFParser().parse(path.toFile())) {
+            NamingTable naming = ttf.getNaming();
+            if (naming == null || naming.getFontFamily() == null)
+                return;
+            String style = String.valueOf(naming.getFontSubFamily()).toLowerCase(Locale.ROOT);
+            boolean bold = style.contains("bold");
+            boolean italic = style.contains("italic") || style.contains("oblique");
+            index.putIfAbsent(fontKey(naming.getFontFamily(), bold, italic), path);
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Skipping font {}: {}", path, e.getMessage());
+        }
+    }
+}
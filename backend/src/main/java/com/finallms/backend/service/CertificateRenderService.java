@@ -0,0 +1,304 @@
+package com.finallms.backend.service;
+
+import com.finallms.backend.dto.CertificateDto;
+import com.finallms.backend.entity.Certificate;
+import com.finallms.backend.enums.CertificateJobStatus;
+import com.finallms.backend.exception.BadRequestException;
+import com.finallms.backend.exception.ResourceNotFoundException;
+import com.finallms.backend.exception.ServiceBusyException;
+import com.finallms.backend.repository.CertificateRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Certificate rendering off the request threads. Renders run on a fixed pool
+ * behind a bounded queue; a request is turned away with {@link ServiceBusyException}
+ * when the queue is full or the heap is too low to take on another render. Each
+ * request becomes a job that can be polled, awaited and downloaded once READY;
+ * concurrent requests for the same certificate share one job.
+ */
+@Service
+public class CertificateRenderService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CertificateRenderService.class);
+    private static final int LATENCY_SAMPLES = 512;
+    private static final long MB = 1024L * 1024L;
+
+    @Autowired
+    private CertificateArtifactService certificateArtifactService;
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Value("${app.certificate.render-concurrency:2}")
+    private int concurrency;
+    @Value("${app.certificate.render-queue-capacity:50}")
+    private int queueCapacity;
+    // Admission: the heap left after reserving this much per running render must stay above the minimum
+    @Value("${app.certificate.render-heap-per-job-mb:48}")
+    private long heapPerJobMb;
+    @Value("${app.certificate.render-min-free-heap-mb:64}")
+    private long minFreeHeapMb;
+    @Value("${app.certificate.render-retry-after-seconds:10}")
+    private int retryAfterSeconds;
+
+    private ThreadPoolExecutor executor;
+
+    private final Cache<String, RenderJob> jobs = Caffeine.newBuilder()
+            .expireAfterWrite(30, TimeUnit.MINUTES)
+            .maximumSize(10000)
+            .build();
+    // Queued or running job per certificate row, so repeated clicks do not queue duplicates
+    private final Map<Long, RenderJob> pending = new ConcurrentHashMap<>();
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder totalRenderMs = new LongAdder();
+    private final LongAdder totalQueueWaitMs = new LongAdder();
+    private final AtomicLong maxRenderMs = new AtomicLong();
+    private final long[] recentRenderMs = new long[LATENCY_SAMPLES];
+    private final AtomicInteger recentCount = new AtomicInteger();
+
+    private static final class RenderJob {
+        private final String id = UUID.randomUUID().toString();
+        private final Long userId;
+        private final Long courseId;
+        private final Long certificateRowId;
+        private final String certificateId;
+        private final LocalDateTime requestedAt = LocalDateTime.now();
+        private final long queuedNanos = System.nanoTime();
+        private final CompletableFuture<RenderJob> done = new CompletableFuture<>();
+        private volatile CertificateJobStatus status = CertificateJobStatus.QUEUED;
+        private volatile String error;
+        private volatile LocalDateTime completedAt;
+
+        private RenderJob(Certificate certificate) {
+            this.userId = certificate.getUser().getId();
+            this.courseId = certificate.getCourse().getId();
+            this.certificateRowId = certificate.getId();
+            this.certificateId = certificate.getCertificateId();
+        }
+
+        private void finish(CertificateJobStatus status, String error) {
+            this.status = status;
+            this.error = error;
+            this.completedAt = LocalDateTime.now();
+            done.complete(this);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        int threads = Math.max(1, concurrency);
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                    Thread thread = new Thread(runnable, "certificate-render-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Start (or join) a render of the certificate's PDF. A certificate whose stored
+     * PDF is still current is READY straight away without using the pool.
+     */
+    public CertificateDto.RenderJobResponse request(Certificate certificate) {
+        if (certificate.getPdfKey() != null
+                && certificateArtifactService.fingerprint(certificate).equals(certificate.getPdfFingerprint())) {
+            RenderJob job = new RenderJob(certificate);
+            job.finish(CertificateJobStatus.READY, null);
+            jobs.put(job.id, job);
+            return toResponse(job);
+        }
+
+        RenderJob created = new RenderJob(certificate);
+        RenderJob job = pending.computeIfAbsent(certificate.getId(), id -> created);
+        if (job != created)
+            return toResponse(job);
+
+        jobs.put(job.id, job);
+        try {
+            admit();
+            executor.execute(() -> run(job));
+            submitted.increment();
+        } catch (RejectedExecutionException | ServiceBusyException e) {
+            // Anyone who joined this job in the meantime sees it fail rather than wait forever
+            job.finish(CertificateJobStatus.FAILED, "Certificate rendering is busy, please retry shortly");
+            pending.remove(certificate.getId(), job);
+            rejected.increment();
+            if (e instanceof ServiceBusyException)
+                throw (ServiceBusyException) e;
+            throw new ServiceBusyException("Certificate rendering is busy, please retry shortly", retryAfterSeconds);
+        }
+        return toResponse(job);
+    }
+
+    private void admit() {
+        Runtime runtime = Runtime.getRuntime();
+        long free = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+        long reserved = (long) (executor.getActiveCount() + 1) * heapPerJobMb * MB;
+        if (free - reserved < minFreeHeapMb * MB) {
+            logger.warn("Rejecting certificate render: {} MB heap free, {} renders running", free / MB,
+                    executor.getActiveCount());
+            throw new ServiceBusyException("Server is low on memory, please retry shortly", retryAfterSeconds);
+        }
+    }
+
+    private void run(RenderJob job) {
+        job.status = CertificateJobStatus.RUNNING;
+        try {
+            render(job.certificateRowId, job.queuedNanos);
+            job.finish(CertificateJobStatus.READY, null);
+        } catch (Exception | OutOfMemoryError e) {
+            logger.error("Certificate render {} failed", job.certificateId, e);
+            job.finish(CertificateJobStatus.FAILED, "Could not generate the certificate, please try again");
+        } finally {
+            pending.remove(job.certificateRowId, job);
+        }
+    }
+
+    /**
+     * Render on the shared pool for a batch caller that keeps its own small window
+     * of renders in flight. Throws {@link ServiceBusyException} when the pool cannot
+     * take it right now; the caller retries once one of its renders has finished.
+     */
+    public CompletableFuture<byte[]> renderAsync(Long certificateRowId) {
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        long queuedNanos = System.nanoTime();
+        try {
+            admit();
+            executor.execute(() -> {
+                try {
+                    result.complete(render(certificateRowId, queuedNanos));
+                } catch (Exception | OutOfMemoryError e) {
+                    result.completeExceptionally(e);
+                }
+            });
+            submitted.increment();
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceBusyException("Certificate rendering is busy, please retry shortly", retryAfterSeconds);
+        } catch (ServiceBusyException e) {
+            rejected.increment();
+            throw e;
+        }
+        return result;
+    }
+
+    private byte[] render(Long certificateRowId, long queuedNanos) throws IOException {
+        long start = System.nanoTime();
+        totalQueueWaitMs.add((start - queuedNanos) / 1_000_000);
+        try {
+            Certificate certificate = certificateRepository.findById(certificateRowId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Certificate no longer exists"));
+            byte[] pdf = certificateArtifactService.getOrRender(certificate);
+            recordLatency((System.nanoTime() - start) / 1_000_000);
+            completed.increment();
+            return pdf;
+        } catch (IOException | RuntimeException | OutOfMemoryError e) {
+            failed.increment();
+            throw e;
+        }
+    }
+
+    private void recordLatency(long ms) {
+        totalRenderMs.add(ms);
+        maxRenderMs.accumulateAndGet(ms, Math::max);
+        int slot = recentCount.getAndIncrement() % LATENCY_SAMPLES;
+        synchronized (recentRenderMs) {
+            recentRenderMs[slot] = ms;
+        }
+    }
+
+    public CertificateDto.RenderJobResponse getJob(String jobId, Long userId) {
+        return toResponse(findJob(jobId, userId));
+    }
+
+    // Completes with the job's final state; already complete when the job has finished
+    public CompletableFuture<CertificateDto.RenderJobResponse> awaitJob(String jobId, Long userId) {
+        return findJob(jobId, userId).done.thenApply(this::toResponse);
+    }
+
+    // The certificate of a READY job, for serving its stored PDF
+    public Certificate getReadyCertificate(String jobId, Long userId) {
+        RenderJob job = findJob(jobId, userId);
+        if (job.status != CertificateJobStatus.READY)
+            throw new BadRequestException("Certificate is not ready yet");
+        return certificateRepository.findById(job.certificateRowId)
+                .orElseThrow(() -> new ResourceNotFoundException("Certificate not found"));
+    }
+
+    private RenderJob findJob(String jobId, Long userId) {
+        RenderJob job = jobs.getIfPresent(jobId);
+        if (job == null || !job.userId.equals(userId))
+            throw new ResourceNotFoundException("Certificate job not found");
+        return job;
+    }
+
+    private CertificateDto.RenderJobResponse toResponse(RenderJob job) {
+        CertificateJobStatus status = job.status;
+        return CertificateDto.RenderJobResponse.builder()
+                .jobId(job.id)
+                .courseId(job.courseId)
+                .certificateId(job.certificateId)
+                .status(status)
+                .error(job.error)
+                .requestedAt(job.requestedAt)
+                .completedAt(job.completedAt)
+                .downloadUrl(status == CertificateJobStatus.READY
+                        ? "/api/certificates/jobs/" + job.id + "/download"
+                        : null)
+                .build();
+    }
+
+    public CertificateDto.RenderStatsResponse getStats() {
+        long done = completed.sum();
+        int samples = Math.min(recentCount.get(), LATENCY_SAMPLES);
+        long[] recent;
+        synchronized (recentRenderMs) {
+            recent = Arrays.copyOf(recentRenderMs, samples);
+        }
+        Arrays.sort(recent);
+        long started = done + failed.sum() + executor.getActiveCount();
+        Runtime runtime = Runtime.getRuntime();
+        return CertificateDto.RenderStatsResponse.builder()
+                .concurrency(executor.getMaximumPoolSize())
+                .queueCapacity(Math.max(1, queueCapacity))
+                .queueDepth(executor.getQueue().size())
+                .activeRenders(executor.getActiveCount())
+                .submitted(submitted.sum())
+                .rejected(rejected.sum())
+                .completed(done)
+                .failed(failed.sum())
+                .avgRenderMs(done > 0 ? totalRenderMs.sum() / done : 0)
+                .p95RenderMs(samples > 0 ? recent[(int) Math.ceil(samples * 0.95) - 1] : 0)
+                .maxRenderMs(maxRenderMs.get())
+                .avgQueueWaitMs(started > 0 ? totalQueueWaitMs.sum() / started : 0)
+                .freeHeapMb((runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory())) / MB)
+                .build();
+    }
+}
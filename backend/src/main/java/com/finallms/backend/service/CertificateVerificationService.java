@@ -0,0 +1,187 @@
+package com.finallms.backend.service;
+
+import com.finallms.backend.dto.CertificateDto;
+import com.finallms.backend.exception.TooManyRequestsException;
+import com.finallms.backend.repository.CertificateRepository;
+import com.finallms.backend.util.BloomFilter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Public certificate verification. Verified certificates are cached; ids that were
+ * never issued are turned away without a certificate lookup, and misses are
+ * remembered briefly. An id whose sequence number has not been reserved yet cannot
+ * exist. Below that, a Bloom filter over the issued ids answers "absent" for the
+ * sequence numbers every node had finished issuing when it was built; ids issued
+ * since, possibly on another node, are looked up in the table.
+ */
+@Service
+public class CertificateVerificationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CertificateVerificationService.class);
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+    @Autowired
+    private CertificateIdGenerator certificateIdGenerator;
+
+    @Value("${app.certificate.verify-requests-per-minute:30}")
+    private int requestsPerMinute;
+
+    // Sizing of the issued-id filter; it is rebuilt from the table periodically
+    @Value("${app.certificate.bloom-expected-ids:100000}")
+    private long expectedIds;
+    // How stale the reserved-sequence mark may be before a higher id triggers a re-read
+    @Value("${app.certificate.sequence-refresh-ms:1000}")
+    private long sequenceRefreshMs;
+
+    private final Cache<String, CertificateDto.VerificationResponse> verified = Caffeine.newBuilder()
+            .expireAfterWrite(10, TimeUnit.MINUTES)
+            .maximumSize(50000)
+            .build();
+
+    // Ids looked up and not found: filter false positives, and lookups before the filter is built
+    private final Cache<String, Boolean> unknown = Caffeine.newBuilder()
+            .expireAfterWrite(5, TimeUnit.MINUTES)
+            .maximumSize(50000)
+            .build();
+
+    // Per-IP request counter, fixed one-minute window
+    private final Cache<String, AtomicInteger> requestsPerIp = Caffeine.newBuilder()
+            .expireAfterWrite(1, TimeUnit.MINUTES)
+            .maximumSize(100000)
+            .build();
+
+    private volatile BloomFilter issuedIds;
+    // The filter's "absent" holds for sequence numbers below this
+    private volatile long filterTrustedBelow;
+    private List<String> issuedDuringRebuild;
+    // Reserved-sequence marks read by earlier rebuilds: {read at millis, mark}
+    private final List<long[]> marks = new ArrayList<>();
+
+    private volatile long reservedUpTo;
+    private volatile long reservedReadAt;
+
+    public void checkRateLimit(String clientIp) {
+        AtomicInteger count = requestsPerIp.get(String.valueOf(clientIp), k -> new AtomicInteger(0));
+        if (count.incrementAndGet() > requestsPerMinute) {
+            throw new TooManyRequestsException("Too many verification requests. Try again in a minute.", 60);
+        }
+    }
+
+    public Optional<CertificateDto.VerificationResponse> verify(String certificateId) {
+        String id = certificateId == null ? "" : certificateId.trim();
+        if (!CertificateIdGenerator.isWellFormed(id))
+            return Optional.empty();
+
+        CertificateDto.VerificationResponse cached = verified.getIfPresent(id);
+        if (cached != null)
+            return Optional.of(cached);
+        long sequence = CertificateIdGenerator.sequenceOf(id);
+        if (sequence >= 0 && !reserved(sequence))
+            return Optional.empty();
+        // Read before the filter: the rebuild publishes the filter first
+        long trustedBelow = filterTrustedBelow;
+        BloomFilter filter = issuedIds;
+        // Legacy ids are no longer issued, so the filter has all of them
+        if (filter != null && sequence < trustedBelow && !filter.mightContain(id))
+            return Optional.empty();
+        if (unknown.getIfPresent(id) != null)
+            return Optional.empty();
+
+        Optional<CertificateDto.VerificationResponse> found = certificateRepository.findVerificationByCertificateId(id);
+        if (found.isPresent()) {
+            verified.put(id, found.get());
+        } else {
+            unknown.put(id, Boolean.TRUE);
+        }
+        return found;
+    }
+
+    // Whether the sequence number has been reserved; the mark is re-read at most once per refresh interval
+    private boolean reserved(long sequence) {
+        if (sequence < reservedUpTo)
+            return true;
+        long now = System.currentTimeMillis();
+        if (now - reservedReadAt < sequenceRefreshMs)
+            return false;
+        reservedReadAt = now;
+        reservedUpTo = certificateIdGenerator.reservedUpTo();
+        return sequence < reservedUpTo;
+    }
+
+    // Called when a certificate is issued so the filter and negative cache admit it at once
+    public synchronized void registerIssued(String certificateId) {
+        unknown.invalidate(certificateId);
+        BloomFilter filter = issuedIds;
+        if (filter != null)
+            filter.put(certificateId);
+        if (issuedDuringRebuild != null)
+            issuedDuringRebuild.add(certificateId);
+    }
+
+    // Certificates were deleted or their details changed
+    public void evictAll() {
+        verified.invalidateAll();
+    }
+
+    /**
+     * (Re)build the issued-id filter from the table; runs at startup and then
+     * periodically so deleted ids drop out and the false positive rate stays low.
+     * A block of ids is used for at most the generator's block age, so every id
+     * below a mark read twice that long ago had been issued before this rebuild's
+     * read and is in the filter. Newer ids miss the filter and go to the table.
+     */
+    @Scheduled(fixedDelayString = "${app.certificate.bloom-rebuild-ms:21600000}")
+    public void rebuildFilter() {
+        long start = System.nanoTime();
+        synchronized (this) {
+            issuedDuringRebuild = new ArrayList<>();
+        }
+        try {
+            long readAt = System.currentTimeMillis();
+            long mark = certificateIdGenerator.reservedUpTo();
+            List<String> ids = certificateRepository.findAllCertificateIds();
+            BloomFilter filter = new BloomFilter(Math.max(expectedIds, ids.size() * 2L), 0.01);
+            for (String id : ids) {
+                filter.put(id);
+            }
+            synchronized (this) {
+                for (String id : issuedDuringRebuild) {
+                    filter.put(id);
+                }
+                issuedIds = filter;
+                filterTrustedBelow = trustedMark(readAt);
+                marks.add(new long[] { readAt, mark });
+            }
+            logger.info("Certificate id filter built over {} ids in {} ms", ids.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            logger.warn("Could not build certificate id filter: {}", e.getMessage());
+        } finally {
+            synchronized (this) {
+                issuedDuringRebuild = null;
+            }
+        }
+    }
+
+    // Latest mark read at least twice the block age before readAt; older marks are dropped
+    private long trustedMark(long readAt) {
+        long cutoff = readAt - 2 * certificateIdGenerator.getBlockMaxAgeMs();
+        while (marks.size() > 1 && marks.get(1)[0] <= cutoff)
+            marks.remove(0);
+        return !marks.isEmpty() && marks.get(0)[0] <= cutoff ? marks.get(0)[1] : 0;
+    }
+}
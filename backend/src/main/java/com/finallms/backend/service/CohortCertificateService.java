@@ -0,0 +1,206 @@
+package com.finallms.backend.service;
+
+import com.finallms.backend.entity.Certificate;
+import com.finallms.backend.entity.Course;
+import com.finallms.backend.entity.User;
+import com.finallms.backend.exception.ResourceNotFoundException;
+import com.finallms.backend.exception.ServiceBusyException;
+import com.finallms.backend.repository.CertificateRepository;
+import com.finallms.backend.repository.CourseRepository;
+import com.finallms.backend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Certificates for a whole course cohort as one ZIP. Eligibility is worked out for
+ * the cohort in bulk, missing certificates are issued up front, and the PDFs are
+ * rendered on the shared render pool a few at a time and written to the response
+ * in the order they finish, so at most a window of PDFs is held in memory.
+ */
+@Service
+public class CohortCertificateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CohortCertificateService.class);
+
+    @Autowired
+    private StudentService studentService;
+    @Autowired
+    private CertificateIssuanceService certificateIssuanceService;
+    @Autowired
+    private CertificateRenderService certificateRenderService;
+    @Autowired
+    private CertificateRepository certificateRepository;
+    @Autowired
+    private CourseRepository courseRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    // Renders one cohort download keeps in flight on the shared pool
+    @Value("${app.certificate.batch-window:4}")
+    private int window;
+
+    // How long to keep retrying while the pool is too busy to take any of our renders
+    @Value("${app.certificate.batch-busy-timeout-ms:60000}")
+    private long busyTimeoutMs;
+
+    /**
+     * Certificates of every student who completed the course, issuing the ones not
+     * yet issued. Students who already hold a certificate are always included.
+     */
+    public List<Certificate> issueForCohort(Long courseId) {
+        Course course = courseRepository.findById(courseId)
+                .orElseThrow(() -> new ResourceNotFoundException("Course not found"));
+
+        Map<Long, Certificate> byUser = new LinkedHashMap<>();
+        for (Certificate certificate : certificateRepository.findByCourseIdWithUser(courseId)) {
+            byUser.put(certificate.getUser().getId(), certificate);
+        }
+        Set<Long> missing = new HashSet<>(studentService.findCompletedStudentIds(courseId));
+        missing.removeAll(byUser.keySet());
+        for (User user : userRepository.findAllById(missing)) {
+            // Rendered by the download itself, so only the student is told
+            byUser.put(user.getId(), certificateIssuanceService.issue(user, course, false));
+        }
+        logger.info("Cohort certificates for course {}: {} total, {} newly issued", courseId, byUser.size(),
+                missing.size());
+        return new ArrayList<>(byUser.values());
+    }
+
+    private static final class Rendered {
+        private final Certificate certificate;
+        private final byte[] pdf;
+        private final Throwable error;
+
+        private Rendered(Certificate certificate, byte[] pdf, Throwable error) {
+            this.certificate = certificate;
+            this.pdf = pdf;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Write the certificates' PDFs to {@code out} as a ZIP, one stored entry per PDF
+     * (PDFs are compressed already). Failures are listed in errors.txt at the end.
+     */
+    public void writeZip(List<Certificate> certificates, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        Deque<Certificate> waiting = new ArrayDeque<>(certificates);
+        BlockingQueue<Rendered> finished = new LinkedBlockingQueue<>();
+        List<String> errors = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        int inFlight = 0;
+        int written = 0;
+        long busySince = 0;
+
+        ZipOutputStream zip = new ZipOutputStream(out);
+        try {
+            while (!waiting.isEmpty() || inFlight > 0) {
+                // Top up the window; a busy pool just means waiting for one of ours to finish
+                while (!waiting.isEmpty() && inFlight < Math.max(1, window)) {
+                    Certificate certificate = waiting.peek();
+                    try {
+                        certificateRenderService.renderAsync(certificate.getId()).whenComplete(
+                                (pdf, error) -> finished.add(new Rendered(certificate, pdf, error)));
+                        waiting.poll();
+                        inFlight++;
+                        busySince = 0;
+                    } catch (ServiceBusyException e) {
+                        if (inFlight > 0)
+                            break;
+                        if (busySince == 0)
+                            busySince = System.nanoTime();
+                        if (System.nanoTime() - busySince > TimeUnit.MILLISECONDS.toNanos(busyTimeoutMs)) {
+                            waiting.poll();
+                            errors.add(certificate.getCertificateId() + ": render pool busy");
+                            busySince = 0;
+                            continue;
+                        }
+                        sleep(500);
+                    }
+                }
+                if (inFlight == 0)
+                    continue;
+
+                Rendered rendered = take(finished);
+                inFlight--;
+                if (rendered.error != null) {
+                    logger.warn("Cohort certificate {} failed: {}", rendered.certificate.getCertificateId(),
+                            rendered.error.getMessage());
+                    errors.add(rendered.certificate.getCertificateId() + ": could not be rendered");
+                    continue;
+                }
+                putStored(zip, entryName(rendered.certificate, names), rendered.pdf);
+                written++;
+                zip.flush();
+            }
+
+            if (!errors.isEmpty()) {
+                putStored(zip, "errors.txt", String.join("\n", errors).getBytes(StandardCharsets.UTF_8));
+            }
+            zip.finish();
+            zip.flush();
+            logger.info("Streamed {} cohort certificates ({} failed) in {} ms", written, errors.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            // Usually the client went away; renders already queued still complete and are stored
+            logger.warn("Cohort certificate download aborted after {} files: {}", written, e.getMessage());
+            throw e;
+        }
+    }
+
+    private String entryName(Certificate certificate, Set<String> used) {
+        String name = certificate.getUser().getName() != null ? certificate.getUser().getName() : "Student";
+        String base = certificate.getCertificateId() + "_" + name.trim().replaceAll("[^A-Za-z0-9._-]+", "_");
+        String entry = base + ".pdf";
+        for (int i = 2; !used.add(entry); i++) {
+            entry = base + "_" + i + ".pdf";
+        }
+        return entry;
+    }
+
+    private void putStored(ZipOutputStream zip, String name, byte[] bytes) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(bytes.length);
+        entry.setCompressedSize(bytes.length);
+        entry.setCrc(crc.getValue());
+        zip.putNextEntry(entry);
+        zip.write(bytes);
+        zip.closeEntry();
+    }
+
+    private Rendered take(BlockingQueue<Rendered> finished) throws IOException {
+        try {
+            return finished.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for certificate renders");
+        }
+    }
+
+    private void sleep(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the render pool");
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.finallms.backend.service;
+
+import com.finallms.backend.enums.AssignmentType;
+import com.finallms.backend.enums.QuestionType;
+import com.finallms.backend.repository.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Set-based deletion of courses, modules and exams. Every table is cleared with
+ * one bulk DELETE, children before parents, inside the caller's transaction;
+ * storage objects are handed to {@link StorageCleanupService} once it commits.
+ * Bulk statements bypass the persistence context, so callers must not hold
+ * managed instances of the deleted rows.
+ */
+@Service
+public class ContentDeletionService {
+
+    @Autowired
+    private CourseRepository courseRepository;
+    @Autowired
+    private ModuleRepository moduleRepository;
+    @Autowired
+    private VideoRepository videoRepository;
+    @Autowired
+    private VideoProgressRepository videoProgressRepository;
+    @Autowired
+    private AssignmentRepository assignmentRepository;
+    @Autowired
+    private AssignmentSubmissionRepository assignmentSubmissionRepository;
+    @Autowired
+    private ExamRepository examRepository;
+    @Autowired
+    private QuestionRepository questionRepository;
+    @Autowired
+    private ExamSubmissionRepository examSubmissionRepository;
+    @Autowired
+    private AnswerRepository answerRepository;
+    @Autowired
+    private QuestionStatsRepository questionStatsRepository;
+    @Autowired
+    private CertificateRepository certificateRepository;
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private CourseRollupRepository courseRollupRepository;
+    @Autowired
+    private StorageCleanupService storageCleanupService;
+    @Autowired
+    private ExamResultService examResultService;
+    @Autowired
+    private CertificateVerificationService certificateVerificationService;
+
+    @Transactional
+    public void deleteCourse(Long courseId) {
+        List<String> keys = new ArrayList<>();
+        String thumbnail = courseRepository.findThumbnailById(courseId);
+        if (thumbnail != null)
+            keys.add(thumbnail);
+
+        deleteModuleContent(moduleRepository.findIdsByCourseId(courseId), keys);
+        keys.addAll(certificateRepository.findPdfKeysByCourseId(courseId));
+        certificateRepository.deleteByCourseId(courseId);
+        certificateVerificationService.evictAll();
+        enrollmentRepository.deleteByCourseId(courseId);
+        paymentRepository.deleteByCourseId(courseId);
+        courseRollupRepository.deleteByCourseId(courseId);
+        courseRepository.deleteCourseById(courseId);
+
+        storageCleanupService.deleteAfterCommit(keys);
+    }
+
+    @Transactional
+    public void deleteModules(Collection<Long> moduleIds) {
+        List<String> keys = new ArrayList<>();
+        deleteModuleContent(moduleIds, keys);
+        storageCleanupService.deleteAfterCommit(keys);
+    }
+
+    @Transactional
+    public void deleteExams(Collection<Long> examIds) {
+        List<String> keys = new ArrayList<>();
+        deleteExamContent(examIds, keys);
+        storageCleanupService.deleteAfterCommit(keys);
+    }
+
+    private void deleteModuleContent(Collection<Long> moduleIds, List<String> keys) {
+        if (moduleIds == null || moduleIds.isEmpty())
+            return;
+
+        deleteExamContent(examRepository.findIdsByModuleIds(moduleIds), keys);
+
+        keys.addAll(videoRepository.findKeysByModuleIds(moduleIds));
+        videoProgressRepository.deleteByModuleIds(moduleIds);
+        videoRepository.deleteByModuleIds(moduleIds);
+
+        keys.addAll(assignmentRepository.findFileKeysByModuleIds(moduleIds, AssignmentType.FILE));
+        keys.addAll(assignmentSubmissionRepository.findFileKeysByModuleIds(moduleIds));
+        assignmentSubmissionRepository.deleteByModuleIds(moduleIds);
+        assignmentRepository.deleteByModuleIds(moduleIds);
+
+        moduleRepository.deleteByIdIn(moduleIds);
+    }
+
+    private void deleteExamContent(Collection<Long> examIds, List<String> keys) {
+        if (examIds == null || examIds.isEmpty())
+            return;
+
+        keys.addAll(answerRepository.findFileKeysByExamIds(examIds, QuestionType.FILE_UPLOAD));
+        answerRepository.deleteByExamIds(examIds);
+        examSubmissionRepository.deleteByExamIds(examIds);
+        questionStatsRepository.deleteByExamIds(examIds);
+        questionRepository.deleteByExamIds(examIds);
+        examRepository.deleteByIdIn(examIds);
+        examResultService.evictAll();
+    }
+}
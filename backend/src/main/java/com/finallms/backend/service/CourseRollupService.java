@@ -0,0 +1,219 @@
+package com.finallms.backend.service;
+
+import com.finallms.backend.dto.ReportDto;
+import com.finallms.backend.enums.PaymentStatus;
+import com.finallms.backend.enums.RollupPeriod;
+import com.finallms.backend.event.CourseActivityEvent;
+import com.finallms.backend.repository.CertificateRepository;
+import com.finallms.backend.repository.CourseRollupRepository;
+import com.finallms.backend.repository.EnrollmentRepository;
+import com.finallms.backend.repository.PaymentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Keeps the daily and monthly per-course rollups behind the admin reports. Each
+ * {@link CourseActivityEvent} is handled after commit on one background thread,
+ * which recounts that course's day from the indexed base tables and then the
+ * month from its day rows. Recounting instead of adding deltas means a change
+ * reported twice, or by the webhook, the browser and the reconciler at once,
+ * still lands on the right figures. The backfill rebuilds every row from history
+ * in keyset chunks and runs on the same thread, so the two never interleave.
+ */
+@Service
+public class CourseRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CourseRollupService.class);
+    private static final Set<PaymentStatus> PAID = EnumSet.of(PaymentStatus.SUCCESS, PaymentStatus.REFUNDED);
+
+    @Autowired
+    private CourseRollupRepository courseRollupRepository;
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private CertificateRepository certificateRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.reports.rollup-queue-capacity:10000}")
+    private int queueCapacity;
+    @Value("${app.reports.rollup-backfill-chunk:5000}")
+    private int chunkSize;
+    @Value("${app.reports.rollup-backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    private ThreadPoolExecutor executor;
+    private TransactionTemplate transactionTemplate;
+    // Course days with a recount queued and not yet started, so bursts queue each day once
+    private final Set<String> queuedDays = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                    Thread thread = new Thread(runnable, "course-rollup");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCourseActivity(CourseActivityEvent event) {
+        if (event.getCourseId() == null || event.getDay() == null)
+            return;
+        String key = event.getCourseId() + "|" + event.getDay();
+        if (!queuedDays.add(key))
+            return;
+        try {
+            executor.execute(() -> {
+                queuedDays.remove(key);
+                recompute(event.getCourseId(), event.getDay());
+            });
+        } catch (RejectedExecutionException e) {
+            queuedDays.remove(key);
+            // The next backfill corrects the day
+            logger.warn("Rollup queue full, dropped recount of course {} on {}", event.getCourseId(), event.getDay());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!backfillOnStartup || courseRollupRepository.count() > 0)
+            return;
+        requestBackfill();
+    }
+
+    /** Queue a rebuild of every rollup from history; false if the queue is full. */
+    public boolean requestBackfill() {
+        try {
+            executor.execute(this::backfill);
+            return true;
+        } catch (RejectedExecutionException e) {
+            logger.warn("Rollup queue full, backfill not started");
+            return false;
+        }
+    }
+
+    private void recompute(Long courseId, LocalDate day) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                LocalDateTime from = day.atStartOfDay();
+                LocalDateTime to = day.plusDays(1).atStartOfDay();
+                ReportDto.Totals paid = paymentRepository.sumPaid(courseId, PAID, from, to);
+                ReportDto.Totals refunded = paymentRepository.sumRefunded(courseId, PaymentStatus.REFUNDED, from,
+                        to);
+                LocalDateTime now = LocalDateTime.now();
+                courseRollupRepository.upsert(courseId, RollupPeriod.DAY.name(), day,
+                        enrollmentRepository.countEnrolled(courseId, from, to), paid.getCount(), paid.getAmount(),
+                        refunded.getCount(), refunded.getAmount(), certificateRepository.countIssued(courseId, from, to),
+                        now);
+
+                LocalDate month = day.withDayOfMonth(1);
+                ReportDto.RollupPoint sum = courseRollupRepository.sumRange(courseId, RollupPeriod.DAY, month,
+                        month.plusMonths(1));
+                courseRollupRepository.upsert(courseId, RollupPeriod.MONTH.name(), month, sum.getEnrollments(),
+                        sum.getPayments(), sum.getRevenue(), sum.getRefunds(), sum.getRefundedAmount(),
+                        sum.getCompletions(), now);
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Rollup recount of course {} on {} failed: {}", courseId, day, e.getMessage());
+        }
+    }
+
+    private void backfill() {
+        long start = System.nanoTime();
+        try {
+            // Payments settled before paid and refund dates were recorded
+            transactionTemplate.executeWithoutResult(status -> {
+                paymentRepository.backfillPaidAt(PaymentStatus.SUCCESS);
+                paymentRepository.backfillRefundedAt(PaymentStatus.REFUNDED);
+            });
+
+            Map<String, long[]> counts = new HashMap<>();
+            Map<String, double[]> amounts = new HashMap<>();
+            int rows = 0;
+            rows += tally(after -> enrollmentRepository.findEnrollmentHistory(after, page()), counts, amounts, 0);
+            rows += tally(after -> paymentRepository.findPaidHistory(PAID, after, page()), counts, amounts, 1);
+            rows += tally(after -> paymentRepository.findRefundHistory(PaymentStatus.REFUNDED, after, page()),
+                    counts, amounts, 2);
+            rows += tally(after -> certificateRepository.findIssueHistory(after, page()), counts, amounts, 3);
+
+            LocalDateTime now = LocalDateTime.now();
+            transactionTemplate.executeWithoutResult(status -> {
+                courseRollupRepository.deleteAllRollups();
+                counts.forEach((key, c) -> {
+                    double[] a = amounts.get(key);
+                    String[] parts = key.split("\\|");
+                    courseRollupRepository.upsert(Long.valueOf(parts[0]), parts[1], LocalDate.parse(parts[2]),
+                            c[0], c[1], a[1], c[2], a[2], c[3], now);
+                });
+            });
+            logger.info("Rollup backfill read {} rows into {} rollups in {} ms", rows, counts.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            logger.error("Rollup backfill failed", e);
+        }
+    }
+
+    // Walk one history by id and add each row to its course's day and month
+    private int tally(Function<Long, List<ReportDto.Activity>> chunk, Map<String, long[]> counts,
+            Map<String, double[]> amounts, int measure) {
+        int rows = 0;
+        long afterId = 0;
+        while (true) {
+            List<ReportDto.Activity> activities = chunk.apply(afterId);
+            if (activities.isEmpty())
+                return rows;
+            afterId = activities.get(activities.size() - 1).getId();
+            rows += activities.size();
+            for (ReportDto.Activity activity : activities) {
+                if (activity.getCourseId() == null || activity.getAt() == null)
+                    continue;
+                LocalDate day = activity.getAt().toLocalDate();
+                double amount = activity.getAmount() != null ? activity.getAmount() : 0.0;
+                for (String key : new String[] { activity.getCourseId() + "|" + RollupPeriod.DAY + "|" + day,
+                        activity.getCourseId() + "|" + RollupPeriod.MONTH + "|" + day.withDayOfMonth(1) }) {
+                    counts.computeIfAbsent(key, k -> new long[4])[measure]++;
+                    amounts.computeIfAbsent(key, k -> new double[4])[measure] += amount;
+                }
+            }
+        }
+    }
+
+    private PageRequest page() {
+        return PageRequest.of(0, Math.max(1, chunkSize));
+    }
+}
@@ -31,19 +31,11 @@ public class CourseService {
         @Autowired
         private S3Service s3Service;
         @Autowired
-        private EnrollmentRepository enrollmentRepository;
-        @Autowired
         private ExamRepository examRepository;
         @Autowired
         private AssignmentSubmissionRepository assignmentSubmissionRepository;
         @Autowired
-        private PaymentRepository paymentRepository;
-        @Autowired
-        private CertificateRepository certificateRepository;
-        @Autowired
-        private ExamSubmissionRepository examSubmissionRepository;
-        @Autowired
-        private VideoProgressRepository videoProgressRepository;
+        private ContentDeletionService contentDeletionService;
 
         @Transactional
         public Course createCourse(CourseDto.CreateCourseRequest request, MultipartFile thumbnail) throws IOException {
@@ -313,86 +305,19 @@ public class CourseService {
 
         @Transactional
         public void deleteCourse(Long courseId) {
-                Course course = courseRepository.findById(courseId)
-                                .orElseThrow(() -> new ResourceNotFoundException("Course not found"));
-
-                // 1. Delete certificates
-                certificateRepository.deleteByCourse(course);
-
-                // 2. Delete enrollments
-                enrollmentRepository.findByCourse(course).forEach(enrollmentRepository::delete);
-
-                // 3. Delete payments
-                paymentRepository.deleteByCourse(course);
-
-                // 4. Delete thumbnail from S3
-                if (course.getThumbnail() != null) {
-                        try {
-                                s3Service.deleteFile(course.getThumbnail());
-                        } catch (Exception e) {
-                                System.err.println("Failed to delete thumbnail from S3: " + e.getMessage());
-                        }
+                if (!courseRepository.existsById(courseId)) {
+                        throw new ResourceNotFoundException("Course not found");
                 }
-
-                // 5. Clean up module content
-                for (Module module : course.getModules()) {
-                        // Delete assignments and their data
-                        for (Assignment assignment : module.getAssignments()) {
-                                assignmentSubmissionRepository.deleteByAssignment(assignment);
-                                if (assignment.getType() == AssignmentType.FILE && assignment.getFileKey() != null) {
-                                        try {
-                                                s3Service.deleteFile(assignment.getFileKey());
-                                        } catch (Exception e) {
-                                                System.err.println(
-                                                                "Failed to delete assignment file: " + e.getMessage());
-                                        }
-                                }
-                        }
-
-                        // Delete videos and their data
-                        for (Video video : module.getVideos()) {
-                                videoProgressRepository.deleteByVideo(video);
-                                if (video.getS3Key() != null) {
-                                        try {
-                                                s3Service.deleteFile(video.getS3Key());
-                                        } catch (Exception e) {
-                                                System.err.println("Failed to delete video file: " + e.getMessage());
-                                        }
-                                }
-                        }
-
-                        // Delete exams and their data
-                        for (Exam exam : module.getExams()) {
-                                examSubmissionRepository.deleteByExam(exam);
-                        }
-                }
-
-                // 6. Delete the course (will cascade delete modules, assignments, videos, and
-                // exams due to CascadeType.ALL)
-                courseRepository.delete(course);
+                // Bulk deletes in dependency order; S3 objects are removed in the background
+                contentDeletionService.deleteCourse(courseId);
         }
 
         @Transactional
         public void deleteModule(Long moduleId) {
-                Module module = moduleRepository.findById(moduleId)
-                                .orElseThrow(() -> new ResourceNotFoundException("Module not found"));
-
-                // Delete assignment submissions and assignment files for this module
-                for (Assignment assignment : module.getAssignments()) {
-                        assignmentSubmissionRepository.deleteByAssignment(assignment);
-                        if (assignment.getType() == AssignmentType.FILE && assignment.getFileKey() != null) {
-                                s3Service.deleteFile(assignment.getFileKey());
-                        }
+                if (!moduleRepository.existsById(moduleId)) {
+                        throw new ResourceNotFoundException("Module not found");
                 }
-
-                // Delete all videos from S3
-                for (Video video : module.getVideos()) {
-                        if (video.getS3Key() != null) {
-                                s3Service.deleteFile(video.getS3Key());
-                        }
-                }
-
-                moduleRepository.delete(module);
+                contentDeletionService.deleteModules(java.util.Collections.singletonList(moduleId));
         }
 
         @Transactional
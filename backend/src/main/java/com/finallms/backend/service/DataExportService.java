@@ -0,0 +1,384 @@
+package com.finallms.backend.service;
+
+import com.finallms.backend.enums.ExportFormat;
+import com.finallms.backend.enums.PaymentStatus;
+import com.finallms.backend.enums.Role;
+import com.finallms.backend.exception.BadRequestException;
+import com.finallms.backend.exception.ServiceBusyException;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.annotation.PostConstruct;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admin exports of students, enrollments, payments and exam results as CSV or
+ * XLSX. Rows are read with a forward-only, read-only JDBC cursor (row by row on
+ * MySQL, {@code app.export.fetch-size} rows at a time elsewhere) and written out
+ * as they arrive: CSV straight to the response, XLSX through a streaming POI
+ * workbook that keeps only a small window of rows in memory. Heap use does not
+ * grow with the export. Each export holds a connection while it runs, so only
+ * {@code app.export.max-concurrent} run at once.
+ */
+@Service
+public class DataExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataExportService.class);
+    // Key of the async interceptor that gives an export's slot back
+    private static final String EXPORT_PERMIT = DataExportService.class.getName() + ".permit";
+    private static final DateTimeFormatter CSV_DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int XLSX_MAX_ROWS = 1_048_576;
+
+    private static final String STUDENTS_SQL = "SELECT u.id, u.name, u.email, u.phone, u.address, "
+            + "(SELECT COUNT(*) FROM enrollments e WHERE e.user_id = u.id) "
+            + "FROM users u WHERE u.role = ? ORDER BY u.id";
+    private static final String[] STUDENTS_HEADER = { "Student ID", "Name", "Email", "Phone", "Address",
+            "Enrollments" };
+
+    private static final String ENROLLMENTS_SQL = "SELECT e.id, e.enrolled_at, u.id, u.name, u.phone, u.email, "
+            + "c.id, c.title FROM enrollments e LEFT JOIN users u ON u.id = e.user_id "
+            + "LEFT JOIN courses c ON c.id = e.course_id";
+    private static final String[] ENROLLMENTS_HEADER = { "Enrollment ID", "Enrolled At", "Student ID", "Name",
+            "Phone", "Email", "Course ID", "Course" };
+
+    private static final String PAYMENTS_SQL = "SELECT p.id, p.order_id, p.payment_id, p.status, p.amount, "
+            + "p.created_at, p.paid_at, p.refunded_at, u.id, u.name, u.phone, u.email, c.id, c.title, p.error_reason "
+            + "FROM payments p LEFT JOIN users u ON u.id = p.user_id LEFT JOIN courses c ON c.id = p.course_id";
+    private static final String[] PAYMENTS_HEADER = { "Payment ID", "Order ID", "Provider Payment ID", "Status",
+            "Amount", "Created At", "Paid At", "Refunded At", "Student ID", "Name", "Phone", "Email", "Course ID",
+            "Course", "Error" };
+
+    private static final String RESULTS_SQL = "SELECT s.id, s.submitted_at, s.status, s.total_obtained_marks, "
+            + "x.passing_marks, x.id, x.title, c.id, c.title, u.id, u.name, u.phone, u.email "
+            + "FROM exam_submission s JOIN exam x ON x.id = s.exam_id LEFT JOIN modules m ON m.id = x.module_id "
+            + "LEFT JOIN courses c ON c.id = m.course_id LEFT JOIN users u ON u.id = s.student_id";
+    private static final String[] RESULTS_HEADER = { "Submission ID", "Submitted At", "Status", "Marks",
+            "Passing Marks", "Exam ID", "Exam", "Course ID", "Course", "Student ID", "Name", "Phone", "Email" };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Rows per round trip on drivers that page through a cursor; MySQL streams row by row instead
+    @Value("${app.export.fetch-size:1000}")
+    private int fetchSize;
+    @Value("${app.export.max-concurrent:2}")
+    private int maxConcurrent;
+    // Rows an XLSX export keeps in memory before flushing them to its temp file
+    @Value("${app.export.xlsx-window-rows:100}")
+    private int xlsxWindowRows;
+
+    private Semaphore permits;
+
+    @PostConstruct
+    public void init() {
+        permits = new Semaphore(Math.max(1, maxConcurrent));
+    }
+
+    public static ExportFormat parseFormat(String format) {
+        try {
+            return ExportFormat.valueOf(format == null ? "CSV" : format.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("format must be csv or xlsx");
+        }
+    }
+
+    public StreamingResponseBody exportStudents(ExportFormat format) {
+        return export("Students", format, STUDENTS_HEADER, STUDENTS_SQL, new Object[] { Role.STUDENT.name() });
+    }
+
+    public StreamingResponseBody exportEnrollments(ExportFormat format, Long courseId) {
+        StringBuilder sql = new StringBuilder(ENROLLMENTS_SQL);
+        List<Object> params = new ArrayList<>();
+        if (courseId != null) {
+            sql.append(" WHERE e.course_id = ?");
+            params.add(courseId);
+        }
+        sql.append(" ORDER BY e.id");
+        return export("Enrollments", format, ENROLLMENTS_HEADER, sql.toString(), params.toArray());
+    }
+
+    /** Payments created between {@code from} and {@code to}, both inclusive days. */
+    public StreamingResponseBody exportPayments(ExportFormat format, PaymentStatus status, Long courseId,
+            LocalDate from, LocalDate to) {
+        StringBuilder sql = new StringBuilder(PAYMENTS_SQL).append(" WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        if (status != null) {
+            sql.append(" AND p.status = ?");
+            params.add(status.name());
+        }
+        if (courseId != null) {
+            sql.append(" AND p.course_id = ?");
+            params.add(courseId);
+        }
+        if (from != null) {
+            sql.append(" AND p.created_at >= ?");
+            params.add(Timestamp.valueOf(from.atStartOfDay()));
+        }
+        if (to != null) {
+            sql.append(" AND p.created_at < ?");
+            params.add(Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+        }
+        sql.append(" ORDER BY p.id");
+        return export("Payments", format, PAYMENTS_HEADER, sql.toString(), params.toArray());
+    }
+
+    public StreamingResponseBody exportResults(ExportFormat format, Long courseId, Long examId) {
+        StringBuilder sql = new StringBuilder(RESULTS_SQL).append(" WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        if (examId != null) {
+            sql.append(" AND s.exam_id = ?");
+            params.add(examId);
+        }
+        if (courseId != null) {
+            sql.append(" AND m.course_id = ?");
+            params.add(courseId);
+        }
+        sql.append(" ORDER BY s.id");
+        return export("Results", format, RESULTS_HEADER, sql.toString(), params.toArray());
+    }
+
+    // Takes a slot now, so a busy server answers 503 before the response starts
+    private StreamingResponseBody export(String name, ExportFormat format, String[] header, String sql,
+            Object[] params) {
+        if (!permits.tryAcquire())
+            throw new ServiceBusyException("Too many exports running, try again shortly", 30);
+        Runnable release = releaseOnce();
+        return out -> {
+            long start = System.nanoTime();
+            try (RowSink sink = format == ExportFormat.XLSX ? new XlsxSink(name, xlsxWindowRows, out)
+                    : new CsvSink(out)) {
+                sink.writeRow(header);
+                long rows = stream(sql, params, header.length, sink);
+                sink.finish();
+                logger.info("Exported {} rows of {} as {} in {} ms", rows, name.toLowerCase(), format,
+                        (System.nanoTime() - start) / 1_000_000);
+            } finally {
+                release.run();
+            }
+        };
+    }
+
+    /**
+     * Releases the export slot once, either when the body finishes or when the
+     * request's async processing completes, times out or fails, so a body that
+     * never runs does not keep its slot.
+     */
+    private Runnable releaseOnce() {
+        AtomicBoolean held = new AtomicBoolean(true);
+        Runnable release = () -> {
+            if (held.compareAndSet(true, false))
+                permits.release();
+        };
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes) {
+            WebAsyncUtils.getAsyncManager(((ServletRequestAttributes) attributes).getRequest())
+                    .registerCallableInterceptor(EXPORT_PERMIT, new CallableProcessingInterceptor() {
+                        @Override
+                        public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+                            release.run();
+                        }
+                    });
+        }
+        return release;
+    }
+
+    private long stream(String sql, Object[] params, int columns, RowSink sink) throws IOException {
+        long[] rows = { 0 };
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                        ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(isMySql(connection) ? Integer.MIN_VALUE : Math.max(1, fetchSize));
+                for (int i = 0; i < params.length; i++)
+                    statement.setObject(i + 1, params[i]);
+                return statement;
+            }, (RowCallbackHandler) resultSet -> {
+                Object[] values = new Object[columns];
+                for (int i = 0; i < columns; i++) {
+                    Object value = resultSet.getObject(i + 1);
+                    values[i] = value instanceof Timestamp ? ((Timestamp) value).toLocalDateTime() : value;
+                }
+                try {
+                    sink.writeRow(values);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            // Usually the client went away; stop reading
+            throw e.getCause();
+        }
+        return rows[0];
+    }
+
+    // Connector/J streams a forward-only result set row by row only for this fetch size
+    private static boolean isMySql(Connection connection) throws SQLException {
+        return connection.getMetaData().getDriverName().toLowerCase().contains("mysql");
+    }
+
+    private interface RowSink extends AutoCloseable {
+        void writeRow(Object[] values) throws IOException;
+
+        void finish() throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private static final class CsvSink implements RowSink {
+        private final Writer writer;
+
+        private CsvSink(OutputStream out) throws IOException {
+            writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+            // Byte order mark, so Excel opens non-ASCII names as UTF-8
+            writer.write('\uFEFF');
+        }
+
+        @Override
+        public void writeRow(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0)
+                    writer.write(',');
+                writer.write(escape(format(values[i])));
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void close() {
+            // The response stream is closed by the container
+        }
+
+        private static String format(Object value) {
+            if (value == null)
+                return "";
+            if (value instanceof LocalDateTime)
+                return ((LocalDateTime) value).format(CSV_DATE_TIME);
+            if (value instanceof Double || value instanceof Float)
+                return BigDecimal.valueOf(((Number) value).doubleValue()).toPlainString();
+            if (value instanceof BigDecimal)
+                return ((BigDecimal) value).toPlainString();
+            return value.toString();
+        }
+
+        private static String escape(String value) {
+            if (value.isEmpty())
+                return value;
+            // Text a spreadsheet would run as a formula is prefixed so it stays text
+            char first = value.charAt(0);
+            if (first == '=' || first == '@' || first == '\t' || first == '\r'
+                    || ((first == '+' || first == '-') && value.length() > 1 && !Character.isDigit(value.charAt(1))))
+                value = "'" + value;
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                    && value.indexOf('\r') < 0)
+                return value;
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    private static final class XlsxSink implements RowSink {
+        private final SXSSFWorkbook workbook;
+        private final CellStyle dateStyle;
+        private final String name;
+        private final OutputStream out;
+        private Object[] header;
+        private Sheet sheet;
+        private int sheetNumber;
+        private int rowNumber;
+
+        private XlsxSink(String name, int windowRows, OutputStream out) {
+            this.name = name;
+            this.out = out;
+            workbook = new SXSSFWorkbook(Math.max(1, windowRows));
+            workbook.setCompressTempFiles(true);
+            dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd hh:mm:ss"));
+        }
+
+        @Override
+        public void writeRow(Object[] values) {
+            if (header == null)
+                header = values;
+            // A sheet holds about a million rows; carry on in the next one
+            if (sheet == null || rowNumber == XLSX_MAX_ROWS) {
+                sheet = workbook.createSheet(sheetNumber == 0 ? name : name + " " + (sheetNumber + 1));
+                sheetNumber++;
+                rowNumber = 0;
+                if (values != header)
+                    fill(sheet.createRow(rowNumber++), header);
+            }
+            fill(sheet.createRow(rowNumber++), values);
+        }
+
+        private void fill(Row row, Object[] values) {
+            for (int i = 0; i < values.length; i++) {
+                Object value = values[i];
+                if (value == null)
+                    continue;
+                if (value instanceof Number) {
+                    row.createCell(i).setCellValue(((Number) value).doubleValue());
+                } else if (value instanceof LocalDateTime) {
+                    row.createCell(i).setCellValue((LocalDateTime) value);
+                    row.getCell(i).setCellStyle(dateStyle);
+                } else {
+                    row.createCell(i).setCellValue(value.toString());
+                }
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            workbook.write(out);
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Deletes the temp files behind the flushed rows
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.finallms.backend.service;
+
+import com.finallms.backend.event.CourseActivityEvent;
+import com.finallms.backend.repository.EnrollmentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * The one place enrollments are created. The browser's payment verification, the
+ * webhook, the reconciler and admins can all enroll the same student at once, so
+ * creation is a single insert-if-absent on the (user, course) unique key: an
+ * existing enrollment counts as success and no caller ever fails on a duplicate.
+ */
+@Service
+public class EnrollmentService {
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Transactional
+    public void enroll(Long userId, Long courseId) {
+        LocalDateTime now = LocalDateTime.now();
+        enrollmentRepository.insertIfAbsent(userId, courseId, now);
+        eventPublisher.publishEvent(new CourseActivityEvent(courseId, now.toLocalDate()));
+    }
+
+    @Transactional
+    public void remove(Long enrollmentId) {
+        enrollmentRepository.findById(enrollmentId).ifPresent(enrollment -> {
+            enrollmentRepository.delete(enrollment);
+            // The enrollment no longer counts on the day it was made
+            if (enrollment.getEnrolledAt() != null)
+                eventPublisher.publishEvent(new CourseActivityEvent(enrollment.getCourse().getId(),
+                        enrollment.getEnrolledAt().toLocalDate()));
+        });
+    }
+}
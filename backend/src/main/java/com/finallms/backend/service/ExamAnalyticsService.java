@@ -0,0 +1,306 @@
+package com.finallms.backend.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finallms.backend.dto.ExamAnalyticsDto;
+import com.finallms.backend.entity.Exam;
+import com.finallms.backend.entity.Question;
+import com.finallms.backend.entity.QuestionStats;
+import com.finallms.backend.enums.QuestionType;
+import com.finallms.backend.exception.ResourceNotFoundException;
+import com.finallms.backend.repository.AnswerRepository;
+import com.finallms.backend.repository.ExamRepository;
+import com.finallms.backend.repository.QuestionRepository;
+import com.finallms.backend.repository.QuestionStatsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Per-question exam statistics (attempts, correct rate, option distribution and
+ * point-biserial correlation against the submission total), kept as running sums
+ * in {@code question_stats} so reading them never touches the answers table. A
+ * submission's samples are taken back out when a retake discards it, and re-folded
+ * with the new total when manual grading changes it.
+ */
+@Service
+public class ExamAnalyticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExamAnalyticsService.class);
+
+    @Autowired
+    private QuestionStatsRepository questionStatsRepository;
+    @Autowired
+    private AnswerRepository answerRepository;
+    @Autowired
+    private QuestionRepository questionRepository;
+    @Autowired
+    private ExamRepository examRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.analytics.backfill-chunk-size:1000}")
+    private int backfillChunkSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private TransactionTemplate requiresNew;
+
+    @PostConstruct
+    public void init() {
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Fold one graded submission into the running statistics. Called from inside
+     * the grading transaction; the update is applied after it commits, in its own
+     * transaction, so a stats failure can never roll back a student's submission.
+     */
+    public void recordSubmission(Long examId, List<ExamAnalyticsDto.AnswerSample> samples) {
+        applyAfterCommit(examId, Collections.emptyList(), samples);
+    }
+
+    /** Take a submission's samples back out, as when a retake discards its answers. */
+    public void withdrawSubmission(Long examId, List<ExamAnalyticsDto.AnswerSample> samples) {
+        applyAfterCommit(examId, samples, Collections.emptyList());
+    }
+
+    /**
+     * Re-fold a submission whose total changed from {@code previousTotal} to the
+     * total carried by {@code samples}, as after manual grading.
+     */
+    public void rescoreSubmission(Long examId, List<ExamAnalyticsDto.AnswerSample> samples, int previousTotal) {
+        List<ExamAnalyticsDto.AnswerSample> previous = samples.stream()
+                .map(sample -> sample.toBuilder().totalObtainedMarks(previousTotal).build())
+                .collect(Collectors.toList());
+        applyAfterCommit(examId, previous, samples);
+    }
+
+    private void applyAfterCommit(Long examId, List<ExamAnalyticsDto.AnswerSample> removed,
+            List<ExamAnalyticsDto.AnswerSample> added) {
+        if ((removed == null || removed.isEmpty()) && (added == null || added.isEmpty()))
+            return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            applySafely(examId, removed, added);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                applySafely(examId, removed, added);
+            }
+        });
+    }
+
+    private void applySafely(Long examId, List<ExamAnalyticsDto.AnswerSample> removed,
+            List<ExamAnalyticsDto.AnswerSample> added) {
+        try {
+            try {
+                requiresNew.executeWithoutResult(status -> apply(examId, removed, added));
+            } catch (DataIntegrityViolationException race) {
+                // Another grader created the same stats row first; it exists now
+                requiresNew.executeWithoutResult(status -> apply(examId, removed, added));
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to update question stats for exam {}: {}", examId, e.getMessage());
+        }
+    }
+
+    private void apply(Long examId, List<ExamAnalyticsDto.AnswerSample> removed,
+            List<ExamAnalyticsDto.AnswerSample> added) {
+        Map<Long, List<ExamAnalyticsDto.AnswerSample>> removedByQuestion = byMcqQuestion(removed);
+        Map<Long, List<ExamAnalyticsDto.AnswerSample>> addedByQuestion = byMcqQuestion(added);
+        Set<Long> questionIds = new TreeSet<>(removedByQuestion.keySet());
+        questionIds.addAll(addedByQuestion.keySet());
+        if (questionIds.isEmpty())
+            return;
+
+        Map<Long, QuestionStats> existing = questionStatsRepository.lockByQuestionIds(questionIds).stream()
+                .collect(Collectors.toMap(QuestionStats::getQuestionId, Function.identity()));
+
+        List<QuestionStats> toSave = new ArrayList<>();
+        for (Long questionId : questionIds) {
+            QuestionStats stats = existing.computeIfAbsent(questionId, id -> newStats(id, examId));
+            Map<String, Long> options = readOptions(stats.getOptionCountsJson());
+            for (ExamAnalyticsDto.AnswerSample sample : removedByQuestion.getOrDefault(questionId, List.of())) {
+                accumulate(stats, options, sample, -1);
+            }
+            for (ExamAnalyticsDto.AnswerSample sample : addedByQuestion.getOrDefault(questionId, List.of())) {
+                accumulate(stats, options, sample, 1);
+            }
+            stats.setOptionCountsJson(writeOptions(options));
+            stats.setUpdatedAt(LocalDateTime.now());
+            toSave.add(stats);
+        }
+        questionStatsRepository.saveAll(toSave);
+    }
+
+    private static Map<Long, List<ExamAnalyticsDto.AnswerSample>> byMcqQuestion(
+            List<ExamAnalyticsDto.AnswerSample> samples) {
+        if (samples == null)
+            return Collections.emptyMap();
+        return samples.stream()
+                .filter(s -> s.getType() == QuestionType.MCQ)
+                .collect(Collectors.groupingBy(ExamAnalyticsDto.AnswerSample::getQuestionId));
+    }
+
+    private QuestionStats newStats(Long questionId, Long examId) {
+        QuestionStats stats = new QuestionStats();
+        stats.setQuestionId(questionId);
+        stats.setExamId(examId);
+        return stats;
+    }
+
+    // Add (sign 1) or take back out (sign -1) one answer
+    private void accumulate(QuestionStats stats, Map<String, Long> options, ExamAnalyticsDto.AnswerSample sample,
+            int sign) {
+        double total = sample.getTotalObtainedMarks();
+        boolean correct = sample.getMarksObtained() > 0;
+        stats.setAttempts(Math.max(0, stats.getAttempts() + sign));
+        stats.setSumTotalScore(stats.getSumTotalScore() + sign * total);
+        stats.setSumTotalScoreSquared(stats.getSumTotalScoreSquared() + sign * total * total);
+        if (correct) {
+            stats.setCorrectCount(Math.max(0, stats.getCorrectCount() + sign));
+            stats.setSumTotalScoreCorrect(stats.getSumTotalScoreCorrect() + sign * total);
+        }
+        String option = sample.getStudentAnswer() != null && !sample.getStudentAnswer().isBlank()
+                ? sample.getStudentAnswer().trim()
+                : "(No answer)";
+        long count = options.getOrDefault(option, 0L) + sign;
+        if (count > 0)
+            options.put(option, count);
+        else
+            options.remove(option);
+    }
+
+    public ExamAnalyticsDto.ExamAnalyticsResponse getExamAnalytics(Long examId) {
+        Exam exam = examRepository.findById(examId)
+                .orElseThrow(() -> new ResourceNotFoundException("Exam not found"));
+        Map<Long, String> questionTexts = questionRepository.findByExamId(examId).stream()
+                .collect(Collectors.toMap(Question::getId,
+                        q -> q.getQuestionText() != null ? q.getQuestionText() : ""));
+
+        List<ExamAnalyticsDto.QuestionStatsResponse> questions = questionStatsRepository
+                .findByExamIdOrderByQuestionId(examId).stream()
+                .filter(s -> questionTexts.containsKey(s.getQuestionId()))
+                .map(s -> toResponse(s, questionTexts.get(s.getQuestionId())))
+                .collect(Collectors.toList());
+
+        return ExamAnalyticsDto.ExamAnalyticsResponse.builder()
+                .examId(exam.getId())
+                .title(exam.getTitle())
+                .questions(questions)
+                .build();
+    }
+
+    private ExamAnalyticsDto.QuestionStatsResponse toResponse(QuestionStats s, String questionText) {
+        long n = s.getAttempts();
+        Double correctRate = n > 0 ? (double) s.getCorrectCount() / n : null;
+        return ExamAnalyticsDto.QuestionStatsResponse.builder()
+                .questionId(s.getQuestionId())
+                .questionText(questionText)
+                .attempts(n)
+                .correctCount(s.getCorrectCount())
+                .correctRate(correctRate)
+                .pointBiserial(pointBiserial(s))
+                .optionDistribution(readOptions(s.getOptionCountsJson()))
+                .updatedAt(s.getUpdatedAt())
+                .build();
+    }
+
+    // Pearson correlation between the 0/1 item score and the total score
+    private Double pointBiserial(QuestionStats s) {
+        double n = s.getAttempts();
+        double sumX = s.getCorrectCount();
+        double sumY = s.getSumTotalScore();
+        double sumY2 = s.getSumTotalScoreSquared();
+        double sumXY = s.getSumTotalScoreCorrect();
+        double varX = n * sumX - sumX * sumX;
+        double varY = n * sumY2 - sumY * sumY;
+        if (n < 2 || varX <= 0 || varY <= 0)
+            return null;
+        return (n * sumXY - sumX * sumY) / Math.sqrt(varX * varY);
+    }
+
+    /**
+     * Rebuild the statistics of one exam from the answers table. Answers are read in
+     * keyset-ordered chunks, so only one chunk plus one accumulator per question is
+     * ever held in memory.
+     */
+    @Transactional
+    public ExamAnalyticsDto.BackfillResponse backfillExam(Long examId) {
+        examRepository.findById(examId).orElseThrow(() -> new ResourceNotFoundException("Exam not found"));
+
+        Map<Long, QuestionStats> stats = new TreeMap<>();
+        Map<Long, Map<String, Long>> options = new HashMap<>();
+        long scanned = 0;
+        long afterId = 0L;
+        PageRequest chunk = PageRequest.of(0, Math.max(1, backfillChunkSize));
+
+        while (true) {
+            List<ExamAnalyticsDto.AnswerSample> rows = answerRepository.findSamplesAfter(examId, afterId, chunk);
+            if (rows.isEmpty())
+                break;
+            for (ExamAnalyticsDto.AnswerSample row : rows) {
+                if (row.getType() == QuestionType.MCQ) {
+                    QuestionStats s = stats.computeIfAbsent(row.getQuestionId(), id -> newStats(id, examId));
+                    accumulate(s, options.computeIfAbsent(row.getQuestionId(), id -> new HashMap<>()), row, 1);
+                }
+            }
+            scanned += rows.size();
+            afterId = rows.get(rows.size() - 1).getAnswerId();
+            if (rows.size() < chunk.getPageSize())
+                break;
+        }
+
+        questionStatsRepository.deleteByExamId(examId);
+        LocalDateTime now = LocalDateTime.now();
+        for (QuestionStats s : stats.values()) {
+            s.setOptionCountsJson(writeOptions(options.get(s.getQuestionId())));
+            s.setUpdatedAt(now);
+        }
+        questionStatsRepository.saveAll(stats.values());
+        logger.info("Backfilled question stats for exam {}: {} answers, {} questions", examId, scanned, stats.size());
+
+        return ExamAnalyticsDto.BackfillResponse.builder()
+                .examId(examId)
+                .answersScanned(scanned)
+                .questionsUpdated(stats.size())
+                .build();
+    }
+
+    private Map<String, Long> readOptions(String json) {
+        if (json == null || json.isBlank())
+            return new LinkedHashMap<>();
+        try {
+            return objectMapper.readValue(json, new TypeReference<LinkedHashMap<String, Long>>() {
+            });
+        } catch (Exception e) {
+            return new LinkedHashMap<>();
+        }
+    }
+
+    private String writeOptions(Map<String, Long> options) {
+        try {
+            return objectMapper.writeValueAsString(options != null ? options : Collections.emptyMap());
+        } catch (Exception e) {
+            throw new RuntimeException("Error processing option counts JSON", e);
+        }
+    }
+}
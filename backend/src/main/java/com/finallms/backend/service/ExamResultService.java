@@ -0,0 +1,107 @@
+package com.finallms.backend.service;
+
+import com.finallms.backend.dto.ExamSubmissionDto;
+import com.finallms.backend.exception.ResourceNotFoundException;
+import com.finallms.backend.repository.AnswerRepository;
+import com.finallms.backend.repository.ExamRepository;
+import com.finallms.backend.repository.ExamSubmissionRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read side of a student's exam results. Both endpoints are served from
+ * constructor-projection queries; the results list is cached per student and
+ * evicted whenever one of their submissions is started, submitted or graded.
+ */
+@Service
+public class ExamResultService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExamResultService.class);
+
+    @Autowired
+    private ExamSubmissionRepository submissionRepository;
+    @Autowired
+    private AnswerRepository answerRepository;
+    @Autowired
+    private ExamRepository examRepository;
+
+    // Key = student id, Value = that student's results list
+    private final Cache<Long, List<ExamSubmissionDto.MyResultResponse>> resultsCache = Caffeine.newBuilder()
+            .expireAfterWrite(10, TimeUnit.MINUTES)
+            .maximumSize(10000)
+            .build();
+
+    @Transactional(readOnly = true)
+    public List<ExamSubmissionDto.MyResultResponse> getMyResults(Long studentId) {
+        return resultsCache.get(studentId, submissionRepository::findResultsByStudentId);
+    }
+
+    @Transactional(readOnly = true)
+    public ExamSubmissionDto.SubmissionReviewResponse getSubmissionReview(Long submissionId) {
+        ExamSubmissionDto.SubmissionReviewResponse review = submissionRepository.findReviewSummary(submissionId)
+                .orElseThrow(() -> new ResourceNotFoundException("Submission not found"));
+        List<ExamSubmissionDto.ReviewQuestion> questions = answerRepository.findReviewBySubmissionId(submissionId);
+        review.setQuestions(questions);
+        review.setTotalQuestions(questions.size());
+        return review;
+    }
+
+    /**
+     * Drop a student's cached results once the current transaction commits, so a
+     * concurrent read cannot re-cache the pre-commit state.
+     */
+    public void evictAfterCommit(Long studentId) {
+        if (studentId == null)
+            return;
+        resultsCache.invalidate(studentId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    resultsCache.invalidate(studentId);
+                }
+            });
+        }
+    }
+
+    public void evictSubmissionsAfterCommit(Collection<Long> submissionIds) {
+        if (submissionIds == null || submissionIds.isEmpty())
+            return;
+        submissionRepository.findStudentIdsByIds(submissionIds).forEach(this::evictAfterCommit);
+    }
+
+    // Exam-wide changes (title, questions, deletion) touch rows of many students
+    public void evictAll() {
+        resultsCache.invalidateAll();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    resultsCache.invalidateAll();
+                }
+            });
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void fillMissingQuestionCounts() {
+        int updated = examRepository.fillMissingQuestionCounts();
+        if (updated > 0) {
+            logger.info("Filled question counts for {} exams", updated);
+        }
+    }
+}
@@ -2,17 +2,20 @@ package com.finallms.backend.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finallms.backend.dto.ExamAnalyticsDto;
 import com.finallms.backend.dto.ExamDto;
 import com.finallms.backend.dto.QuestionDto;
 import com.finallms.backend.dto.ExamSubmissionDto;
 import com.finallms.backend.entity.*;
 import com.finallms.backend.entity.Module;
 import com.finallms.backend.enums.QuestionType;
+import com.finallms.backend.event.CourseProgressEvent;
 import com.finallms.backend.enums.SubmissionStatus;
 import com.finallms.backend.exception.BadRequestException;
 import com.finallms.backend.exception.ResourceNotFoundException;
 import com.finallms.backend.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -35,6 +38,16 @@ public class ExamService {
     private AnswerRepository answerRepository;
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private QuestionStatsRepository questionStatsRepository;
+    @Autowired
+    private ExamAnalyticsService examAnalyticsService;
+    @Autowired
+    private ExamResultService examResultService;
+    @Autowired
+    private ContentDeletionService contentDeletionService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     private final ObjectMapper objectMapper = new ObjectMapper();
 
@@ -74,6 +87,7 @@ public class ExamService {
             }
             questionRepository.saveAll(questions);
         }
+        examRepository.refreshQuestionCount(savedExam.getId());
 
         return mapToExamResponse(savedExam, questions);
     }
@@ -100,6 +114,7 @@ public class ExamService {
         if (request.getQuestions() != null) {
             if (saved.getQuestions() != null && !saved.getQuestions().isEmpty()) {
                 questionRepository.deleteAll(saved.getQuestions());
+                questionStatsRepository.deleteByExamId(saved.getId());
             }
             updatedQuestions = new java.util.ArrayList<>();
             for (QuestionDto.CreateQuestionRequest qReq : request.getQuestions()) {
@@ -119,10 +134,13 @@ public class ExamService {
                 updatedQuestions.add(q);
             }
             questionRepository.saveAll(updatedQuestions);
+            examRepository.refreshQuestionCount(saved.getId());
         }
+        examResultService.evictAll();
         return mapToExamResponse(saved, updatedQuestions != null ? updatedQuestions : saved.getQuestions());
     }
 
+    @Transactional
     public com.finallms.backend.entity.Question addQuestion(Long examId, QuestionDto.CreateQuestionRequest request) {
         Exam exam = examRepository.findById(examId)
                 .orElseThrow(() -> new ResourceNotFoundException("Exam not found"));
@@ -139,7 +157,10 @@ public class ExamService {
                 throw new RuntimeException("Error processing options JSON", e);
             }
         }
-        return questionRepository.save(q);
+        Question saved = questionRepository.save(q);
+        examRepository.refreshQuestionCount(examId);
+        examResultService.evictAll();
+        return saved;
     }
 
     // 2. Start Exam
@@ -160,6 +181,9 @@ public class ExamService {
                 if (subId != null) {
                     java.util.List<Answer> prevAnswers = answerRepository.findBySubmissionId(subId);
                     if (prevAnswers != null && !prevAnswers.isEmpty()) {
+                        // The discarded attempt was folded into the question stats; take it back out
+                        examAnalyticsService.withdrawSubmission(exam.getId(),
+                                toSamples(prevAnswers, subId, sub.getTotalObtainedMarks()));
                         answerRepository.deleteAll(prevAnswers);
                     }
                 }
@@ -167,6 +191,7 @@ public class ExamService {
                 sub.setTotalObtainedMarks(0);
                 sub.setSubmittedAt(null);
                 submissionRepository.save(sub);
+                examResultService.evictAfterCommit(user.getId());
             }
             return mapToStartExamResponse(sub, exam);
         }
@@ -177,9 +202,27 @@ public class ExamService {
         submission.setStatus(null);
 
         submission = submissionRepository.save(submission);
+        examResultService.evictAfterCommit(user.getId());
         return mapToStartExamResponse(submission, exam);
     }
 
+    private static List<ExamAnalyticsDto.AnswerSample> toSamples(List<Answer> answers, Long submissionId,
+            int totalScore) {
+        List<ExamAnalyticsDto.AnswerSample> samples = new ArrayList<>();
+        for (Answer a : answers) {
+            samples.add(ExamAnalyticsDto.AnswerSample.builder()
+                    .answerId(a.getId())
+                    .questionId(a.getQuestion().getId())
+                    .submissionId(submissionId)
+                    .totalObtainedMarks(totalScore)
+                    .studentAnswer(a.getStudentAnswer())
+                    .marksObtained(a.getMarksObtained())
+                    .type(a.getQuestion().getType())
+                    .build());
+        }
+        return samples;
+    }
+
     private ExamSubmissionDto.StartExamResponse mapToStartExamResponse(ExamSubmission submission, Exam exam) {
         List<QuestionDto.QuestionResponse> questions = exam.getQuestions().stream().map(q -> {
             QuestionDto.QuestionResponse qr = new QuestionDto.QuestionResponse();
@@ -232,6 +275,7 @@ public class ExamService {
             answer.setSubmission(submission);
 
             if (question.getType() == QuestionType.MCQ) {
+                answer.setGradedAt(LocalDateTime.now());
                 if (ansReq.getAnswer() != null
                         && ansReq.getAnswer().trim().equalsIgnoreCase(question.getCorrectAnswer().trim())) {
                     answer.setMarksObtained(question.getMarks());
@@ -250,6 +294,9 @@ public class ExamService {
 
         answerRepository.saveAll(answers);
 
+        examAnalyticsService.recordSubmission(submission.getExam().getId(),
+                toSamples(answers, submission.getId(), totalScore));
+
         submission.setSubmittedAt(LocalDateTime.now());
         submission.setTotalObtainedMarks(totalScore);
 
@@ -260,32 +307,21 @@ public class ExamService {
         }
 
         ExamSubmission savedSubmission = submissionRepository.save(submission);
+        examResultService.evictAfterCommit(savedSubmission.getStudent().getId());
+        if (savedSubmission.getStatus() == SubmissionStatus.GRADED) {
+            eventPublisher.publishEvent(new CourseProgressEvent(savedSubmission.getStudent().getId(),
+                    savedSubmission.getExam().getModule().getCourse().getId()));
+        }
 
         return mapToResultResponse(savedSubmission);
     }
 
     @Transactional
     public void deleteExam(Long id) {
-        Exam exam = examRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Exam not found"));
-        // Delete submissions and their answers
-        java.util.List<ExamSubmission> submissions = submissionRepository.findByExam(exam);
-        for (ExamSubmission sub : submissions) {
-            Long subId = sub.getId();
-            if (subId != null) {
-                java.util.List<Answer> answers = answerRepository.findBySubmissionId(subId);
-                if (answers != null && !answers.isEmpty()) {
-                    answerRepository.deleteAll(answers);
-                }
-            }
-            submissionRepository.delete(sub);
-        }
-        // Delete questions
-        java.util.List<Question> questions = exam.getQuestions();
-        if (questions != null && !questions.isEmpty()) {
-            questionRepository.deleteAll(questions);
+        if (!examRepository.existsById(id)) {
+            throw new ResourceNotFoundException("Exam not found");
         }
-        // Delete exam
-        examRepository.delete(exam);
+        contentDeletionService.deleteExams(java.util.Collections.singletonList(id));
     }
 
     private ExamDto.ExamResponse mapToExamResponse(Exam exam, List<Question> questions) {
@@ -0,0 +1,227 @@
+package com.finallms.backend.service;
+
+import com.finallms.backend.dto.PaymentDto;
+import com.finallms.backend.exception.PaymentGatewayException;
+import com.finallms.backend.exception.ResourceNotFoundException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.razorpay.RazorpayException;
+import com.razorpay.Utils;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for Razorpay, for development and checkout load tests. Orders
+ * live in memory; payments and webhooks are signed with test secrets exactly as
+ * Razorpay signs them, so the real verification code runs. Calls wait a
+ * configurable time and fail a configurable share, and each webhook is delivered
+ * to the app after a delay and, for a configurable share, delivered twice.
+ */
+@Component
+public class FakePaymentGateway implements PaymentGateway {
+
+    private static final Logger logger = LoggerFactory.getLogger(FakePaymentGateway.class);
+
+    @Value("${app.payments.fake.key-id:rzp_test_fake}")
+    private String keyId;
+    @Value("${app.payments.fake.key-secret:fake_key_secret}")
+    private String keySecret;
+    @Value("${app.payments.fake.webhook-secret:fake_webhook_secret}")
+    private String webhookSecret;
+    @Value("${app.payments.fake.webhook-url:http://localhost:${server.port:8080}/api/payments/webhook}")
+    private String webhookUrl;
+
+    @Value("${app.payments.fake.latency-ms:150}")
+    private long latencyMs;
+    @Value("${app.payments.fake.failure-rate:0}")
+    private double failureRate;
+    @Value("${app.payments.fake.webhook-delay-ms:500}")
+    private long webhookDelayMs;
+    @Value("${app.payments.fake.duplicate-webhook-rate:0.1}")
+    private double duplicateWebhookRate;
+
+    private final Cache<String, FakeOrder> orders = Caffeine.newBuilder()
+            .expireAfterWrite(1, TimeUnit.DAYS)
+            .maximumSize(1_000_000)
+            .build();
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private ScheduledExecutorService webhookSender;
+
+    private static final class FakeOrder {
+        private final String id;
+        private final long amountPaise;
+        private volatile String paymentId;
+        private volatile boolean paid;
+
+        private FakeOrder(String id, long amountPaise) {
+            this.id = id;
+            this.amountPaise = amountPaise;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        webhookSender = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "fake-webhook-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        webhookSender.shutdownNow();
+    }
+
+    @Override
+    public String name() {
+        return "fake";
+    }
+
+    @Override
+    public boolean isConfigured() {
+        return true;
+    }
+
+    @Override
+    public String keyId() {
+        return keyId;
+    }
+
+    @Override
+    public String createOrder(long amountPaise, String currency, String receipt) throws PaymentGatewayException {
+        simulateCall();
+        String id = "order_fake_" + UUID.randomUUID().toString().replace("-", "").substring(0, 14);
+        orders.put(id, new FakeOrder(id, amountPaise));
+        return id;
+    }
+
+    @Override
+    public PaymentDto.ProviderOrderStatus fetchOrderStatus(String orderId) throws PaymentGatewayException {
+        simulateCall();
+        FakeOrder order = orders.getIfPresent(orderId);
+        if (order == null)
+            throw new PaymentGatewayException("The id provided does not exist");
+        return new PaymentDto.ProviderOrderStatus(order.paid, order.paid ? order.paymentId : null);
+    }
+
+    @Override
+    public boolean verifyPaymentSignature(String orderId, String paymentId, String signature) {
+        try {
+            return signature != null && Utils.verifySignature(orderId + "|" + paymentId, signature, keySecret);
+        } catch (RazorpayException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean verifyWebhookSignature(String payload, String signature) {
+        try {
+            return signature != null && Utils.verifyWebhookSignature(payload, signature, webhookSecret);
+        } catch (RazorpayException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Play the customer at the checkout: pay (or fail to pay) the order, return what
+     * the checkout page would hand back, and send the matching webhook.
+     */
+    public PaymentDto.VerifyRequest pay(String orderId, boolean succeed) {
+        FakeOrder order = orders.getIfPresent(orderId);
+        if (order == null)
+            throw new ResourceNotFoundException("Unknown order " + orderId);
+        String paymentId = "pay_fake_" + UUID.randomUUID().toString().replace("-", "").substring(0, 14);
+        order.paymentId = paymentId;
+        order.paid = succeed;
+
+        JSONObject entity = new JSONObject()
+                .put("id", paymentId)
+                .put("order_id", orderId)
+                .put("amount", order.amountPaise)
+                .put("status", succeed ? "captured" : "failed");
+        if (!succeed)
+            entity.put("error_description", "Simulated payment failure");
+        JSONObject event = new JSONObject()
+                .put("event", succeed ? "payment.captured" : "payment.failed")
+                .put("payload", new JSONObject().put("payment", new JSONObject().put("entity", entity)));
+        sendWebhook("evt_fake_" + paymentId, event.toString());
+
+        PaymentDto.VerifyRequest checkout = new PaymentDto.VerifyRequest();
+        checkout.setRazorpayOrderId(orderId);
+        checkout.setRazorpayPaymentId(paymentId);
+        checkout.setRazorpaySignature(succeed ? sign(orderId + "|" + paymentId, keySecret) : null);
+        return checkout;
+    }
+
+    private void sendWebhook(String eventId, String payload) {
+        String signature = sign(payload, webhookSecret);
+        int deliveries = ThreadLocalRandom.current().nextDouble() < duplicateWebhookRate ? 2 : 1;
+        for (int i = 0; i < deliveries; i++) {
+            long delay = webhookDelayMs + (i > 0 ? ThreadLocalRandom.current().nextLong(webhookDelayMs + 1) : 0);
+            try {
+                webhookSender.schedule(() -> deliver(eventId, payload, signature), delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                logger.warn("Fake webhook {} not sent, sender stopped", eventId);
+            }
+        }
+    }
+
+    private void deliver(String eventId, String payload, String signature) {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(webhookUrl))
+                .timeout(Duration.ofSeconds(10))
+                .header("Content-Type", "application/json")
+                .header("X-Razorpay-Signature", signature)
+                .header("X-Razorpay-Event-Id", eventId)
+                .POST(HttpRequest.BodyPublishers.ofString(payload))
+                .build();
+        try {
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 200)
+                logger.warn("Fake webhook {} answered {}", eventId, response.statusCode());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.warn("Fake webhook {} failed: {}", eventId, e.getMessage());
+        }
+    }
+
+    private void simulateCall() throws PaymentGatewayException {
+        try {
+            Thread.sleep(latencyMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PaymentGatewayException("Interrupted");
+        }
+        if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate)
+            throw new PaymentGatewayException("Simulated provider failure");
+    }
+
+    private static String sign(String data, String secret) {
+        try {
+            return Utils.getHash(data, secret);
+        } catch (RazorpayException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
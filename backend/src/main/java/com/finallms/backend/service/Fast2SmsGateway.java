@@ -0,0 +1,80 @@
+package com.finallms.backend.service;
+
+import com.finallms.backend.exception.OtpDeliveryException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Fast2SMS DLT route. One {@link HttpClient} is shared by all sends so the TLS
+ * connection to the provider is kept alive and reused between OTPs.
+ */
+@Component
+public class Fast2SmsGateway implements SmsGateway {
+
+    private static final String DLT_TEMPLATE_ID = "182903";
+    private static final String FAST2SMS_URL = "https://www.fast2sms.com/dev/bulkV2";
+
+    @Value("${fast2sms.api.key}")
+    private String apiKey;
+
+    @Value("${app.otp.sms-timeout-ms:10000}")
+    private long timeoutMs;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Override
+    public String name() {
+        return "fast2sms";
+    }
+
+    public boolean isConfigured() {
+        return apiKey != null && !apiKey.contains("placeholder");
+    }
+
+    @Override
+    public void sendOtp(String phone, String otp) throws OtpDeliveryException {
+        String url = FAST2SMS_URL
+                + "?authorization=" + URLEncoder.encode(apiKey, StandardCharsets.UTF_8)
+                + "&route=dlt"
+                + "&sender_id=SKLDUP"
+                + "&message=" + DLT_TEMPLATE_ID
+                + "&variables_values=" + otp
+                + "&numbers=" + phone
+                + "&flash=0";
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(Duration.ofMillis(timeoutMs))
+                .GET()
+                .build();
+
+        HttpResponse<String> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            throw new OtpDeliveryException("Fast2SMS unreachable: " + e.getMessage(), true);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OtpDeliveryException("Interrupted while sending", true);
+        }
+
+        int status = response.statusCode();
+        if (status == 429 || status >= 500)
+            throw new OtpDeliveryException("Fast2SMS returned " + status, true);
+        if (status >= 400)
+            throw new OtpDeliveryException("Fast2SMS rejected the request (" + status + "): " + response.body(), false);
+        // Fast2SMS answers 200 with "return": false for rejected messages
+        if (response.body() != null && response.body().replace(" ", "").contains("\"return\":false"))
+            throw new OtpDeliveryException("Fast2SMS did not accept the message: " + response.body(), false);
+    }
+}
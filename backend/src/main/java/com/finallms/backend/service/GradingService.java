@@ -0,0 +1,147 @@
+package com.finallms.backend.service;
+
+import com.finallms.backend.dto.ExamAnalyticsDto;
+import com.finallms.backend.dto.GradingDto;
+import com.finallms.backend.entity.Answer;
+import com.finallms.backend.enums.QuestionType;
+import com.finallms.backend.enums.SubmissionStatus;
+import com.finallms.backend.event.CourseProgressEvent;
+import com.finallms.backend.exception.BadRequestException;
+import com.finallms.backend.exception.ResourceNotFoundException;
+import com.finallms.backend.repository.AnswerRepository;
+import com.finallms.backend.repository.ExamSubmissionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Manual grading of FILE_UPLOAD answers: a keyset-paged queue across exams and a
+ * bulk grade operation that recomputes submission totals with set-based updates.
+ */
+@Service
+public class GradingService {
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_GRADES_PER_REQUEST = 1000;
+
+    @Autowired
+    private AnswerRepository answerRepository;
+    @Autowired
+    private ExamSubmissionRepository submissionRepository;
+    @Autowired
+    private S3Service s3Service;
+    @Autowired
+    private ExamResultService examResultService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private ExamAnalyticsService examAnalyticsService;
+
+    @Transactional(readOnly = true)
+    public GradingDto.QueuePage getQueue(Long examId, Long after, Integer size) {
+        int pageSize = size == null || size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        List<GradingDto.QueueItem> items = answerRepository.findGradingQueue(SubmissionStatus.PENDING,
+                QuestionType.FILE_UPLOAD, examId, after != null ? after : 0L, PageRequest.of(0, pageSize));
+        for (GradingDto.QueueItem item : items) {
+            if (item.getStudentAnswer() != null && !item.getStudentAnswer().isBlank()) {
+                item.setFileUrl(s3Service.generatePresignedUrl(item.getStudentAnswer()));
+            }
+        }
+        Long nextCursor = items.size() == pageSize ? items.get(items.size() - 1).getAnswerId() : null;
+        return GradingDto.QueuePage.builder()
+                .items(items)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    @Transactional
+    public GradingDto.BulkGradeResponse gradeAnswers(GradingDto.BulkGradeRequest request) {
+        if (request == null || request.getGrades() == null || request.getGrades().isEmpty()) {
+            throw new BadRequestException("No grades supplied");
+        }
+        if (request.getGrades().size() > MAX_GRADES_PER_REQUEST) {
+            throw new BadRequestException("At most " + MAX_GRADES_PER_REQUEST + " grades per request");
+        }
+
+        Map<Long, GradingDto.GradeRequest> grades = new LinkedHashMap<>();
+        for (GradingDto.GradeRequest g : request.getGrades()) {
+            if (g.getAnswerId() == null) {
+                throw new BadRequestException("answerId is required");
+            }
+            grades.put(g.getAnswerId(), g);
+        }
+
+        Map<Long, Answer> answers = answerRepository.findWithQuestionAndSubmission(grades.keySet()).stream()
+                .collect(Collectors.toMap(Answer::getId, Function.identity()));
+
+        LocalDateTime now = LocalDateTime.now();
+        Set<Long> submissionIds = new HashSet<>();
+        Map<Long, Integer> previousTotals = new HashMap<>();
+        Map<Long, Long> examIds = new HashMap<>();
+        for (GradingDto.GradeRequest g : grades.values()) {
+            Answer answer = answers.get(g.getAnswerId());
+            if (answer == null) {
+                throw new ResourceNotFoundException("Answer not found: " + g.getAnswerId());
+            }
+            // MCQ answers are scored on submission; only uploads are graded by hand
+            if (answer.getQuestion().getType() != QuestionType.FILE_UPLOAD) {
+                throw new BadRequestException("Answer " + g.getAnswerId() + " is not a file upload answer");
+            }
+            int maxMarks = answer.getQuestion().getMarks();
+            if (g.getMarks() < 0 || g.getMarks() > maxMarks) {
+                throw new BadRequestException(
+                        "Marks for answer " + g.getAnswerId() + " must be between 0 and " + maxMarks);
+            }
+            answer.setMarksObtained(g.getMarks());
+            answer.setAdminRemarks(g.getRemarks());
+            answer.setGradedAt(now);
+            submissionIds.add(answer.getSubmission().getId());
+            previousTotals.put(answer.getSubmission().getId(), answer.getSubmission().getTotalObtainedMarks());
+            examIds.put(answer.getSubmission().getId(), answer.getSubmission().getExam().getId());
+        }
+
+        // Dirty answers are flushed as one JDBC batch before the aggregate updates run
+        submissionRepository.recomputeTotals(submissionIds);
+        submissionRepository.markGradedWhereComplete(submissionIds, SubmissionStatus.GRADED,
+                QuestionType.FILE_UPLOAD);
+        refoldQuestionStats(submissionIds, previousTotals, examIds);
+        examResultService.evictSubmissionsAfterCommit(submissionIds);
+        // A graded exam may be the last item a student needed; the listener re-checks after commit
+        Set<List<Long>> studentCourses = new HashSet<>();
+        for (Answer answer : answers.values()) {
+            studentCourses.add(List.of(answer.getSubmission().getStudent().getId(),
+                    answer.getSubmission().getExam().getModule().getCourse().getId()));
+        }
+        for (List<Long> studentCourse : studentCourses) {
+            eventPublisher.publishEvent(new CourseProgressEvent(studentCourse.get(0), studentCourse.get(1)));
+        }
+
+        return GradingDto.BulkGradeResponse.builder()
+                .answersGraded(grades.size())
+                .submissionsUpdated(submissionIds.size())
+                .build();
+    }
+
+    // The question stats correlate each MCQ answer with its submission total, so a
+    // total changed by grading moves those samples from the old total to the new one
+    private void refoldQuestionStats(Set<Long> submissionIds, Map<Long, Integer> previousTotals,
+            Map<Long, Long> examIds) {
+        Map<Long, List<ExamAnalyticsDto.AnswerSample>> bySubmission = answerRepository
+                .findSamplesBySubmissionIds(submissionIds, QuestionType.MCQ).stream()
+                .collect(Collectors.groupingBy(ExamAnalyticsDto.AnswerSample::getSubmissionId));
+        for (Map.Entry<Long, List<ExamAnalyticsDto.AnswerSample>> entry : bySubmission.entrySet()) {
+            int previousTotal = previousTotals.get(entry.getKey());
+            if (entry.getValue().get(0).getTotalObtainedMarks() != previousTotal) {
+                examAnalyticsService.rescoreSubmission(examIds.get(entry.getKey()), entry.getValue(), previousTotal);
+            }
+        }
+    }
+}
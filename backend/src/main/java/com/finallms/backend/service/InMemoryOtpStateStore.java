@@ -0,0 +1,109 @@
+package com.finallms.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+
+/**
+ * Single-node OTP state in one Caffeine cache with per-entry expiry. Entries are
+ * immutable and replaced through {@code compute}, which makes the counter and
+ * put-if-absent operations atomic.
+ */
+@Component
+@ConditionalOnProperty(name = "app.otp.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOtpStateStore implements OtpStateStore {
+
+    @Value("${app.otp.store.max-entries:200000}")
+    private long maxEntries;
+
+    private Cache<String, Entry> entries;
+
+    private static final class Entry {
+        private final String value;
+        private final long count;
+        private final long expiresAtNanos;
+
+        private Entry(String value, long count, long expiresAtNanos) {
+            this.value = value;
+            this.count = count;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        private boolean isLive(long now) {
+            return expiresAtNanos - now > 0;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        return entry.expiresAtNanos - currentTime;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime,
+                            long currentDuration) {
+                        return entry.expiresAtNanos - currentTime;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public String get(String key) {
+        Entry entry = entries.getIfPresent(key);
+        return entry != null && entry.isLive(System.nanoTime()) ? entry.value : null;
+    }
+
+    @Override
+    public void put(String key, String value, Duration ttl) {
+        entries.put(key, new Entry(value, 0, System.nanoTime() + ttl.toNanos()));
+    }
+
+    @Override
+    public boolean putIfAbsent(String key, String value, Duration ttl) {
+        Entry created = new Entry(value, 0, System.nanoTime() + ttl.toNanos());
+        long now = System.nanoTime();
+        return entries.asMap().compute(key, (k, existing) -> existing != null && existing.isLive(now)
+                ? existing
+                : created) == created;
+    }
+
+    @Override
+    public boolean remove(String key) {
+        Entry removed = entries.asMap().remove(key);
+        return removed != null && removed.isLive(System.nanoTime());
+    }
+
+    @Override
+    public long increment(String key, Duration ttl) {
+        long now = System.nanoTime();
+        return entries.asMap().compute(key, (k, existing) -> existing != null && existing.isLive(now)
+                ? new Entry(existing.value, existing.count + 1, existing.expiresAtNanos)
+                : new Entry(null, 1, now + ttl.toNanos())).count;
+    }
+
+    @Override
+    public void decrement(String key) {
+        long now = System.nanoTime();
+        entries.asMap().computeIfPresent(key, (k, existing) -> existing.isLive(now) && existing.count > 0
+                ? new Entry(existing.value, existing.count - 1, existing.expiresAtNanos)
+                : existing);
+    }
+}
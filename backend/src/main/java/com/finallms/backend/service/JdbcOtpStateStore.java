@@ -0,0 +1,124 @@
+package com.finallms.backend.service;
+
+import com.finallms.backend.repository.OtpStateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * OTP state shared by all nodes through the {@code otp_state} table. Every
+ * operation is a few statements in its own short transaction; the row lock
+ * taken by the first UPDATE makes counters and put-if-absent atomic across nodes, and
+ * an insert race on a new key is settled by the primary key. Expired rows are
+ * ignored on read and deleted by a periodic sweep.
+ */
+@Component
+@ConditionalOnProperty(name = "app.otp.store", havingValue = "jdbc")
+public class JdbcOtpStateStore implements OtpStateStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(JdbcOtpStateStore.class);
+
+    @Autowired
+    private OtpStateRepository otpStateRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate requiresNew;
+
+    @PostConstruct
+    public void init() {
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public String get(String key) {
+        return otpStateRepository.findLiveValue(key, LocalDateTime.now());
+    }
+
+    @Override
+    public void put(String key, String value, Duration ttl) {
+        LocalDateTime expiresAt = LocalDateTime.now().plus(ttl);
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Integer updated = requiresNew.execute(status -> otpStateRepository.overwrite(key, value, expiresAt));
+            if (updated != null && updated > 0)
+                return;
+            if (tryInsert(key, value, 0, expiresAt))
+                return;
+        }
+    }
+
+    @Override
+    public boolean putIfAbsent(String key, String value, Duration ttl) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(ttl);
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Boolean stored = requiresNew.execute(status -> {
+                if (otpStateRepository.overwriteExpired(key, value, expiresAt, now) > 0)
+                    return true;
+                // Either a live entry exists, or no row at all
+                return otpStateRepository.existsById(key) ? Boolean.FALSE : null;
+            });
+            if (stored != null)
+                return stored;
+            if (tryInsert(key, value, 0, expiresAt))
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean remove(String key) {
+        return requiresNew.execute(status -> otpStateRepository.deleteLive(key, LocalDateTime.now()) > 0);
+    }
+
+    @Override
+    public long increment(String key, Duration ttl) {
+        for (int attempt = 0;; attempt++) {
+            LocalDateTime now = LocalDateTime.now();
+            Long count = requiresNew.execute(status -> {
+                otpStateRepository.resetExpired(key, now.plus(ttl), now);
+                return otpStateRepository.increment(key) > 0 ? otpStateRepository.findCounter(key) : null;
+            });
+            if (count != null)
+                return count;
+            if (tryInsert(key, null, 1, now.plus(ttl)))
+                return 1;
+            // Another node created the counter first; increment it on the next pass
+            if (attempt > 0)
+                throw new IllegalStateException("Could not increment OTP counter " + key);
+        }
+    }
+
+    @Override
+    public void decrement(String key) {
+        requiresNew.executeWithoutResult(status -> otpStateRepository.decrementLive(key, LocalDateTime.now()));
+    }
+
+    private boolean tryInsert(String key, String value, long counter, LocalDateTime expiresAt) {
+        try {
+            requiresNew.executeWithoutResult(status -> otpStateRepository.insert(key, value, counter, expiresAt));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.otp.store.sweep-ms:60000}")
+    public void sweepExpired() {
+        Integer deleted = requiresNew.execute(status -> otpStateRepository.deleteExpired(LocalDateTime.now()));
+        if (deleted != null && deleted > 0)
+            logger.debug("Swept {} expired OTP state rows", deleted);
+    }
+}
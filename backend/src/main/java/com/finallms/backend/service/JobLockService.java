@@ -0,0 +1,72 @@
+package com.finallms.backend.service;
+
+import com.finallms.backend.repository.JobLockRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Cluster-wide leases for scheduled jobs, kept in {@code job_locks}. A job calls
+ * {@link #tryAcquire} before each run and skips the run when another node holds
+ * the lease; a long run calls it again to extend the lease. If a node dies its
+ * lease lapses and another node takes over.
+ */
+@Service
+public class JobLockService {
+
+    @Autowired
+    private JobLockRepository jobLockRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate requiresNew;
+    private String owner;
+
+    @PostConstruct
+    public void init() {
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        owner = host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /** Take or extend the lease on {@code name}; false if another node holds it. */
+    public boolean tryAcquire(String name, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = now.plus(lease);
+        Integer updated = requiresNew.execute(status -> jobLockRepository.acquire(name, owner, until, now));
+        if (updated != null && updated > 0)
+            return true;
+        try {
+            requiresNew.executeWithoutResult(status -> jobLockRepository.insert(name, owner, until));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            // The row exists and another node holds the lease
+            return false;
+        }
+    }
+
+    /** This node's name in leases and claims. */
+    public String getOwner() {
+        return owner;
+    }
+
+    /** Give the lease up early so another node need not wait for it to lapse. */
+    public void release(String name) {
+        requiresNew.executeWithoutResult(status -> jobLockRepository.release(name, owner, LocalDateTime.now()));
+    }
+}
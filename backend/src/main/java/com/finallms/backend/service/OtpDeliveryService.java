@@ -0,0 +1,263 @@
+package com.finallms.backend.service;
+
+import com.finallms.backend.dto.AuthDto;
+import com.finallms.backend.enums.OtpDeliveryStatus;
+import com.finallms.backend.exception.OtpDeliveryException;
+import com.finallms.backend.exception.ResourceNotFoundException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * OTP delivery outbox. Login requests only record the OTP and enqueue a delivery;
+ * a small worker pool sends it by SMS or email, retrying transient failures with
+ * exponential backoff, so login latency does not depend on the provider. The
+ * latest delivery per recipient is kept for as long as the OTP is valid.
+ */
+@Service
+public class OtpDeliveryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OtpDeliveryService.class);
+
+    @Autowired
+    private Fast2SmsGateway fast2SmsGateway;
+    @Autowired
+    private StubSmsGateway stubSmsGateway;
+    @Autowired(required = false)
+    private JavaMailSender mailSender;
+
+    @Value("${app.mail.from:no-reply@skilledup.local}")
+    private String mailFrom;
+    @Value("${app.mail.test-mode:false}")
+    private boolean mailTestMode;
+
+    // "fast2sms" or "stub"; fast2sms without an API key falls back to the stub
+    @Value("${app.otp.sms-provider:fast2sms}")
+    private String smsProvider;
+    @Value("${app.otp.delivery-threads:4}")
+    private int threads;
+    @Value("${app.otp.delivery-queue-capacity:1000}")
+    private int queueCapacity;
+    @Value("${app.otp.delivery-max-attempts:4}")
+    private int maxAttempts;
+    @Value("${app.otp.delivery-retry-base-ms:1000}")
+    private long retryBaseMs;
+
+    private SmsGateway smsGateway;
+    private ThreadPoolExecutor workers;
+    private ScheduledExecutorService retryTimer;
+
+    private final Cache<String, Delivery> latest = Caffeine.newBuilder()
+            .expireAfterWrite(15, TimeUnit.MINUTES)
+            .maximumSize(100000)
+            .build();
+
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder totalDeliveryMs = new LongAdder();
+    private final AtomicLong maxDeliveryMs = new AtomicLong();
+
+    private enum Channel {
+        SMS, EMAIL
+    }
+
+    private static final class Delivery {
+        private final Channel channel;
+        private final String recipient;
+        private final String otp;
+        private final LocalDateTime queuedAt = LocalDateTime.now();
+        private final long queuedNanos = System.nanoTime();
+        private volatile OtpDeliveryStatus status = OtpDeliveryStatus.QUEUED;
+        private volatile int attempts;
+        private volatile String lastError;
+        private volatile LocalDateTime sentAt;
+
+        private Delivery(Channel channel, String recipient, String otp) {
+            this.channel = channel;
+            this.recipient = recipient;
+            this.otp = otp;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        smsGateway = "stub".equalsIgnoreCase(smsProvider) ? stubSmsGateway : fast2SmsGateway;
+        if (smsGateway == fast2SmsGateway && !fast2SmsGateway.isConfigured()) {
+            logger.warn("Fast2SMS API key not configured, OTP SMS go to the stub provider");
+            smsGateway = stubSmsGateway;
+        }
+
+        int workerCount = Math.max(1, threads);
+        AtomicInteger threadNumber = new AtomicInteger();
+        workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                    Thread thread = new Thread(runnable, "otp-delivery-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        retryTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "otp-delivery-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retryTimer.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /** Queue an OTP text message; false when the outbox is full. */
+    public boolean enqueueSms(String phone, String otp) {
+        return enqueue(new Delivery(Channel.SMS, phone, otp));
+    }
+
+    /** Queue an OTP email; false when the outbox is full. */
+    public boolean enqueueEmail(String email, String otp) {
+        return enqueue(new Delivery(Channel.EMAIL, email, otp));
+    }
+
+    private boolean enqueue(Delivery delivery) {
+        try {
+            workers.execute(() -> attempt(delivery));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            logger.warn("OTP outbox full, {} delivery to {} rejected", delivery.channel, delivery.recipient);
+            return false;
+        }
+        queued.increment();
+        latest.put(delivery.recipient, delivery);
+        return true;
+    }
+
+    private void attempt(Delivery delivery) {
+        delivery.attempts++;
+        try {
+            if (delivery.channel == Channel.SMS) {
+                smsGateway.sendOtp(delivery.recipient, delivery.otp);
+            } else {
+                sendEmail(delivery.recipient, delivery.otp);
+            }
+        } catch (OtpDeliveryException e) {
+            delivery.lastError = e.getMessage();
+            if (e.isRetryable() && delivery.attempts < maxAttempts) {
+                scheduleRetry(delivery);
+            } else {
+                fail(delivery);
+            }
+            return;
+        } catch (RuntimeException e) {
+            delivery.lastError = e.getMessage();
+            fail(delivery);
+            return;
+        }
+
+        delivery.status = OtpDeliveryStatus.SENT;
+        delivery.sentAt = LocalDateTime.now();
+        sent.increment();
+        long ms = (System.nanoTime() - delivery.queuedNanos) / 1_000_000;
+        totalDeliveryMs.add(ms);
+        maxDeliveryMs.accumulateAndGet(ms, Math::max);
+    }
+
+    private void scheduleRetry(Delivery delivery) {
+        delivery.status = OtpDeliveryStatus.RETRYING;
+        retried.increment();
+        long backoff = retryBaseMs << Math.min(delivery.attempts - 1, 10);
+        long delay = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        logger.info("OTP {} delivery to {} failed ({}), retry {} in {} ms", delivery.channel, delivery.recipient,
+                delivery.lastError, delivery.attempts, delay);
+        try {
+            retryTimer.schedule(() -> {
+                try {
+                    workers.execute(() -> attempt(delivery));
+                } catch (RejectedExecutionException e) {
+                    delivery.lastError = "Outbox full on retry";
+                    fail(delivery);
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            fail(delivery);
+        }
+    }
+
+    private void fail(Delivery delivery) {
+        delivery.status = OtpDeliveryStatus.FAILED;
+        failed.increment();
+        logger.warn("OTP {} delivery to {} failed after {} attempts: {}", delivery.channel, delivery.recipient,
+                delivery.attempts, delivery.lastError);
+    }
+
+    private void sendEmail(String to, String otp) throws OtpDeliveryException {
+        if (mailTestMode || mailSender == null) {
+            logger.info("DEV EMAIL OTP to {}: {}", to, otp);
+            return;
+        }
+        try {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setTo(to);
+            message.setFrom(mailFrom);
+            message.setSubject("Your Login OTP");
+            message.setText("Your LMS login OTP is " + otp + ". It will expire in 15 minutes.");
+            mailSender.send(message);
+        } catch (MailAuthenticationException | MailParseException e) {
+            throw new OtpDeliveryException("Email rejected: " + e.getMessage(), false);
+        } catch (MailException e) {
+            throw new OtpDeliveryException("Email failed: " + e.getMessage(), true);
+        }
+    }
+
+    public AuthDto.OtpDeliveryResponse getLatest(String recipient) {
+        Delivery delivery = latest.getIfPresent(recipient);
+        if (delivery == null)
+            throw new ResourceNotFoundException("No recent OTP delivery to " + recipient);
+        return AuthDto.OtpDeliveryResponse.builder()
+                .channel(delivery.channel.name())
+                .recipient(delivery.recipient)
+                .status(delivery.status)
+                .attempts(delivery.attempts)
+                .lastError(delivery.lastError)
+                .queuedAt(delivery.queuedAt)
+                .sentAt(delivery.sentAt)
+                .build();
+    }
+
+    public AuthDto.OtpDeliveryStats getStats() {
+        long delivered = sent.sum();
+        return AuthDto.OtpDeliveryStats.builder()
+                .smsProvider(smsGateway.name())
+                .workers(workers.getMaximumPoolSize())
+                .queueCapacity(Math.max(1, queueCapacity))
+                .queueDepth(workers.getQueue().size())
+                .activeSends(workers.getActiveCount())
+                .queued(queued.sum())
+                .rejected(rejected.sum())
+                .sent(delivered)
+                .retried(retried.sum())
+                .failed(failed.sum())
+                .avgDeliveryMs(delivered > 0 ? totalDeliveryMs.sum() / delivered : 0)
+                .maxDeliveryMs(maxDeliveryMs.get())
+                .build();
+    }
+}
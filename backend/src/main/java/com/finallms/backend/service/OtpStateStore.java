@@ -0,0 +1,33 @@
+package com.finallms.backend.service;
+
+import java.time.Duration;
+
+/**
+ * Expiring key/value and counter storage for OTPs and their rate limits. The
+ * in-memory store keeps state per JVM; the JDBC store keeps it in the database so
+ * every node behind the load balancer sees the same OTPs, cooldowns and counters.
+ * Chosen with {@code app.otp.store} ("memory" or "jdbc").
+ */
+public interface OtpStateStore {
+
+    /** Value of a live entry, or null when absent or expired. */
+    String get(String key);
+
+    void put(String key, String value, Duration ttl);
+
+    /** Store the value unless a live entry exists; true when stored. */
+    boolean putIfAbsent(String key, String value, Duration ttl);
+
+    /** Remove the entry; true only for the caller that removed a live one. */
+    boolean remove(String key);
+
+    /**
+     * Atomically add one to a counter and return the new count. A counter starts
+     * at 1 with the given ttl and keeps its expiry while it is incremented (a
+     * fixed window).
+     */
+    long increment(String key, Duration ttl);
+
+    /** Take one back off a live counter, never below zero; for undoing an increment. */
+    void decrement(String key);
+}
@@ -0,0 +1,28 @@
+package com.finallms.backend.service;
+
+import com.finallms.backend.dto.PaymentDto;
+import com.finallms.backend.exception.PaymentGatewayException;
+
+/**
+ * The payment provider as seen by {@link PaymentService}. Implementations are
+ * picked by {@code app.payments.provider}: Razorpay itself, or a local fake for
+ * development and load tests.
+ */
+public interface PaymentGateway {
+
+    String name();
+
+    boolean isConfigured();
+
+    // Public key handed to the checkout page
+    String keyId();
+
+    /** Create an order and return its provider id. */
+    String createOrder(long amountPaise, String currency, String receipt) throws PaymentGatewayException;
+
+    PaymentDto.ProviderOrderStatus fetchOrderStatus(String orderId) throws PaymentGatewayException;
+
+    boolean verifyPaymentSignature(String orderId, String paymentId, String signature);
+
+    boolean verifyWebhookSignature(String payload, String signature);
+}
@@ -0,0 +1,66 @@
+package com.finallms.backend.service;
+
+import com.finallms.backend.dto.PaymentDto;
+import com.finallms.backend.enums.PaymentStatus;
+import com.finallms.backend.exception.BadRequestException;
+import com.finallms.backend.repository.PaymentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Admin payments ledger, newest first. Pages are keyset-paginated on
+ * (createdAt, id) so deep pages cost the same as the first, and rows are
+ * projected straight into DTOs with the user and course joined in the query.
+ */
+@Service
+public class PaymentLedgerService {
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 1, 1, 0, 0);
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    /**
+     * One page of the ledger. {@code from} and {@code to} are inclusive days;
+     * {@code after} is the {@code nextCursor} of the previous page.
+     */
+    @Transactional(readOnly = true)
+    public PaymentDto.LedgerPage getLedger(PaymentStatus status, Long courseId, Long userId, LocalDate from,
+            LocalDate to, String after, Integer size) {
+        int pageSize = size == null || size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        LocalDateTime afterCreatedAt = LATEST;
+        long afterId = Long.MAX_VALUE;
+        if (after != null && !after.isBlank()) {
+            int separator = after.lastIndexOf('_');
+            try {
+                afterCreatedAt = LocalDateTime.parse(after.substring(0, separator));
+                afterId = Long.parseLong(after.substring(separator + 1));
+            } catch (DateTimeParseException | IndexOutOfBoundsException | NumberFormatException e) {
+                throw new BadRequestException("Invalid cursor");
+            }
+        }
+
+        List<PaymentDto.AdminPaymentResponse> items = paymentRepository.findLedgerPage(status, courseId, userId,
+                from != null ? from.atStartOfDay() : EARLIEST, to != null ? to.plusDays(1).atStartOfDay() : LATEST,
+                afterCreatedAt, afterId, PageRequest.of(0, pageSize));
+        String nextCursor = null;
+        if (items.size() == pageSize) {
+            PaymentDto.AdminPaymentResponse last = items.get(items.size() - 1);
+            nextCursor = last.getCreatedAt() + "_" + last.getId();
+        }
+        return PaymentDto.LedgerPage.builder()
+                .items(items)
+                .nextCursor(nextCursor)
+                .build();
+    }
+}
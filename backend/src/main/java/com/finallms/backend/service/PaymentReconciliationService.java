@@ -0,0 +1,195 @@
+package com.finallms.backend.service;
+
+import com.finallms.backend.dto.PaymentDto;
+import com.finallms.backend.enums.PaymentStatus;
+import com.finallms.backend.repository.PaymentRepository;
+import com.finallms.backend.util.RateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Settles payments whose webhook never arrived by asking the provider about every
+ * pending order. Runs on one node at a time under a {@link JobLockService} lease.
+ * Pending payments younger than the age limit are walked oldest first with a
+ * keyset cursor on (created_at, id), a range on the (status, created_at, id)
+ * index, so none of them are left out and older abandoned orders are never read.
+ * Each order is checked less often the older it gets, and provider calls run on
+ * a small pool behind a shared rate limit.
+ */
+@Service
+public class PaymentReconciliationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentReconciliationService.class);
+    private static final String LOCK = "payment-reconcile";
+
+    @Autowired
+    private PaymentService paymentService;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private JobLockService jobLockService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.payments.reconcile-threads:4}")
+    private int threads;
+    @Value("${app.payments.reconcile-rate-per-second:10}")
+    private double ratePerSecond;
+    @Value("${app.payments.reconcile-page-size:200}")
+    private int pageSize;
+    // Orders older than this are left alone; the provider expires unpaid orders long before
+    @Value("${app.payments.reconcile-max-age-days:30}")
+    private int maxAgeDays;
+
+    private ThreadPoolExecutor executor;
+    private RateLimiter rateLimiter;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        int workerCount = Math.max(1, threads);
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Callers run overflow themselves, which also paces the cursor to the workers
+        executor = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workerCount * 4), runnable -> {
+                    Thread thread = new Thread(runnable, "payment-reconcile-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        rateLimiter = new RateLimiter(ratePerSecond);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${app.payments.reconcile-interval-ms:30000}")
+    public void reconcilePendingPayments() {
+        if (!paymentService.isProviderConfigured())
+            return;
+        Duration lease = Duration.ofMinutes(5);
+        try {
+            if (!jobLockService.tryAcquire(LOCK, lease))
+                return;
+        } catch (RuntimeException e) {
+            logger.warn("Payment reconciliation lock unavailable: {}", e.getMessage());
+            return;
+        }
+
+        long start = System.nanoTime();
+        int scanned = 0, checked = 0;
+        AtomicInteger settled = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            // Only orders young enough to reconcile are read, as a range on (status, created_at, id)
+            LocalDateTime afterCreatedAt = now.minusDays(maxAgeDays);
+            long afterId = 0;
+            while (true) {
+                List<PaymentDto.PendingPayment> page = paymentRepository.findPageByStatusCreatedAfter(
+                        PaymentStatus.CREATED, afterCreatedAt, afterId, PageRequest.of(0, Math.max(1, pageSize)));
+                if (page.isEmpty())
+                    break;
+                PaymentDto.PendingPayment last = page.get(page.size() - 1);
+                afterCreatedAt = last.getCreatedAt();
+                afterId = last.getId();
+                scanned += page.size();
+
+                Map<Long, Future<Boolean>> checks = new LinkedHashMap<>();
+                for (PaymentDto.PendingPayment payment : page) {
+                    if (!isDue(payment, now))
+                        continue;
+                    checks.put(payment.getId(), executor.submit(() -> check(payment, settled, failed)));
+                }
+                // Only orders the provider answered for are stamped; failed checks stay due for the next run
+                List<Long> completed = new ArrayList<>();
+                for (Map.Entry<Long, Future<Boolean>> check : checks.entrySet()) {
+                    if (check.getValue().get())
+                        completed.add(check.getKey());
+                }
+                checked += checks.size();
+                if (!completed.isEmpty()) {
+                    transactionTemplate.executeWithoutResult(
+                            status -> paymentRepository.markReconciled(completed, LocalDateTime.now()));
+                }
+                // Keep the lease for as long as the walk takes
+                if (!jobLockService.tryAcquire(LOCK, lease))
+                    break;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.warn("Payment reconciliation stopped: {}", e.getMessage());
+        } finally {
+            try {
+                jobLockService.release(LOCK);
+            } catch (RuntimeException e) {
+                logger.debug("Releasing payment reconciliation lock failed: {}", e.getMessage());
+            }
+        }
+        if (checked > 0)
+            logger.info("Reconciled payments: {} pending, {} checked, {} settled, {} failed in {} ms", scanned,
+                    checked, settled.get(), failed.get(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // True when the provider's status was read and acted on
+    private boolean check(PaymentDto.PendingPayment payment, AtomicInteger settled, AtomicInteger failed) {
+        try {
+            rateLimiter.acquire();
+            PaymentDto.ProviderOrderStatus status = paymentService.fetchOrderStatus(payment.getOrderId());
+            if (status.isPaid() && paymentService.settleReconciled(payment.getId(), status.getPaymentId())) {
+                settled.incrementAndGet();
+                logger.info("Payment for order {} settled by reconciliation", payment.getOrderId());
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            logger.debug("Reconciling order {} failed: {}", payment.getOrderId(), e.getMessage());
+            return false;
+        }
+    }
+
+    // New orders are checked every run, older ones progressively less often
+    private boolean isDue(PaymentDto.PendingPayment payment, LocalDateTime now) {
+        if (payment.getOrderId() == null)
+            return false;
+        Duration age = payment.getCreatedAt() != null ? Duration.between(payment.getCreatedAt(), now)
+                : Duration.ofDays(1);
+        if (age.compareTo(Duration.ofDays(maxAgeDays)) > 0)
+            return false;
+        Duration interval;
+        if (age.compareTo(Duration.ofMinutes(15)) < 0)
+            interval = Duration.ZERO;
+        else if (age.compareTo(Duration.ofHours(2)) < 0)
+            interval = Duration.ofMinutes(5);
+        else if (age.compareTo(Duration.ofDays(1)) < 0)
+            interval = Duration.ofMinutes(30);
+        else
+            interval = Duration.ofHours(6);
+        return payment.getLastReconciledAt() == null
+                || !payment.getLastReconciledAt().plus(interval).isAfter(now);
+    }
+}
@@ -5,32 +5,32 @@ import com.finallms.backend.entity.Course;
 import com.finallms.backend.entity.Payment;
 import com.finallms.backend.entity.User;
 import com.finallms.backend.enums.PaymentStatus;
+import com.finallms.backend.event.CourseActivityEvent;
 import com.finallms.backend.repository.CourseRepository;
 import com.finallms.backend.repository.PaymentRepository;
 import com.finallms.backend.repository.UserRepository;
-import com.finallms.backend.repository.EnrollmentRepository;
-import com.finallms.backend.entity.Enrollment;
-import com.razorpay.Order;
-import com.razorpay.RazorpayClient;
-import com.razorpay.Utils;
+import com.finallms.backend.exception.PaymentGatewayException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import javax.annotation.PostConstruct;
 import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class PaymentService {
 
-    @Value("${razorpay.key.id}")
-    private String keyId;
-
-    @Value("${razorpay.key.secret}")
-    private String keySecret;
-
-    @Value("${razorpay.webhook.secret}")
-    private String webhookSecret;
+    private static final Logger logger = LoggerFactory.getLogger(PaymentService.class);
 
     @Autowired
     private CourseRepository courseRepository;
@@ -39,24 +39,45 @@ public class PaymentService {
     @Autowired
     private UserRepository userRepository;
     @Autowired
-    private EnrollmentRepository enrollmentRepository;
+    private EnrollmentService enrollmentService;
+    @Autowired
+    private RazorpayPaymentGateway razorpayPaymentGateway;
+    @Autowired
+    private FakePaymentGateway fakePaymentGateway;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // "razorpay" or "fake" (local stand-in for development and load tests)
+    @Value("${app.payments.provider:razorpay}")
+    private String provider;
+
+    // How long a pending order is offered again instead of creating a new one
+    @Value("${app.payments.order-reuse-minutes:30}")
+    private long orderReuseMinutes;
+
+    private PaymentGateway paymentGateway;
+
+    // Recently created or reused pending orders by user, course and amount
+    private final Cache<String, PendingOrder> pendingOrders = Caffeine.newBuilder()
+            .expireAfterWrite(5, TimeUnit.MINUTES)
+            .maximumSize(50000)
+            .build();
 
-    private RazorpayClient client;
+    private static final class PendingOrder {
+        private final String orderId;
+        private final LocalDateTime createdAt;
+
+        private PendingOrder(String orderId, LocalDateTime createdAt) {
+            this.orderId = orderId;
+            this.createdAt = createdAt;
+        }
+    }
 
     @PostConstruct
     public void init() {
-        try {
-            if (keyId != null && !keyId.contains("placeholder")) {
-                this.client = new RazorpayClient(keyId, keySecret);
-            }
-            if (webhookSecret == null || webhookSecret.isBlank() || webhookSecret.contains("placeholder")) {
-                String envSecret = System.getenv("RAZORPAY_WEBHOOK_SECRET");
-                if (envSecret != null && !envSecret.isBlank()) {
-                    webhookSecret = envSecret.trim();
-                }
-            }
-        } catch (Exception e) {
-            System.err.println("Razorpay Init Failed: " + e.getMessage());
+        paymentGateway = "fake".equalsIgnoreCase(provider) ? fakePaymentGateway : razorpayPaymentGateway;
+        if (paymentGateway == fakePaymentGateway) {
+            logger.warn("Payments go to the fake provider; no real money is collected");
         }
     }
 
@@ -72,218 +93,207 @@ public class PaymentService {
                 .or(() -> userRepository.findByPhone(userEmailOrPhone))
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        try {
-            JSONObject orderRequest = new JSONObject();
-            orderRequest.put("amount", (int) (course.getPrice() * 100)); // Amount in paise
-            orderRequest.put("currency", "INR");
-            orderRequest.put("receipt", "txn_" + System.currentTimeMillis());
-
-            if (client == null)
-                throw new RuntimeException("Razorpay credentials not configured");
-
-            Order order = client.orders.create(orderRequest);
+        long amountPaise = Math.round(course.getPrice() * 100);
+        String reuseKey = user.getId() + ":" + courseId + ":" + amountPaise;
+        PendingOrder pending = findReusableOrder(reuseKey, user.getId(), courseId, course.getPrice());
+        if (pending != null) {
+            return orderResponse(pending.orderId, course.getPrice());
+        }
 
-            PaymentDto.OrderResponse response = new PaymentDto.OrderResponse();
-            response.setOrderId(order.get("id").toString());
-            response.setAmount(course.getPrice());
-            response.setCurrency("INR");
-            response.setKeyId(keyId);
+        try {
+            String orderId = paymentGateway.createOrder(amountPaise, "INR", "txn_" + System.currentTimeMillis());
 
             Payment payment = new Payment();
-            payment.setOrderId(response.getOrderId());
-            payment.setAmount(response.getAmount());
+            payment.setOrderId(orderId);
+            payment.setAmount(course.getPrice());
             payment.setStatus(PaymentStatus.CREATED);
             payment.setUser(user);
             payment.setUserName(user.getName());
             payment.setCourse(course);
-            payment.setCreatedAt(java.time.LocalDateTime.now());
+            payment.setCreatedAt(LocalDateTime.now());
             payment.setUpdatedAt(payment.getCreatedAt());
             paymentRepository.save(payment);
+            pendingOrders.put(reuseKey, new PendingOrder(orderId, payment.getCreatedAt()));
 
-            return response;
+            return orderResponse(orderId, course.getPrice());
 
         } catch (Exception e) {
             throw new RuntimeException("Error creating order: " + e.getMessage());
         }
     }
 
+    /**
+     * A still-pending order of the same user for the same course and amount, created
+     * within the reuse window, so a repeat checkout skips the provider round trip
+     * and does not leave another abandoned order behind.
+     */
+    private PendingOrder findReusableOrder(String reuseKey, Long userId, Long courseId, Double amount) {
+        LocalDateTime since = LocalDateTime.now().minusMinutes(orderReuseMinutes);
+        PendingOrder cached = pendingOrders.getIfPresent(reuseKey);
+        if (cached != null) {
+            // Cheap unique-key lookup; the order may have been paid or failed meanwhile
+            if (cached.createdAt.isAfter(since)
+                    && paymentRepository.findStatusByOrderId(cached.orderId) == PaymentStatus.CREATED)
+                return cached;
+            pendingOrders.asMap().remove(reuseKey, cached);
+        }
+        List<Payment> reusable = paymentRepository.findReusable(userId, courseId, PaymentStatus.CREATED, amount,
+                since, PageRequest.of(0, 1));
+        if (reusable.isEmpty())
+            return null;
+        PendingOrder pending = new PendingOrder(reusable.get(0).getOrderId(), reusable.get(0).getCreatedAt());
+        pendingOrders.put(reuseKey, pending);
+        return pending;
+    }
+
+    private PaymentDto.OrderResponse orderResponse(String orderId, Double amount) {
+        PaymentDto.OrderResponse response = new PaymentDto.OrderResponse();
+        response.setOrderId(orderId);
+        response.setAmount(amount);
+        response.setCurrency("INR");
+        response.setKeyId(paymentGateway.keyId());
+        return response;
+    }
+
     public boolean verifySignature(String orderId, String paymentId, String signature) {
-        try {
-            JSONObject options = new JSONObject();
-            options.put("razorpay_order_id", orderId);
-            options.put("razorpay_payment_id", paymentId);
-            options.put("razorpay_signature", signature);
+        return paymentGateway.verifyPaymentSignature(orderId, paymentId, signature);
+    }
 
-            return Utils.verifyPaymentSignature(options, keySecret);
-        } catch (Exception e) {
-            System.err.println("Verification failed: " + e.getMessage());
-            return false;
+    public boolean verifyWebhookSignature(String payload, String signature) {
+        return paymentGateway.verifyWebhookSignature(payload, signature);
+    }
+
+    // Order the webhook event is about, or null for events not tied to an order
+    public static String webhookOrderId(JSONObject json) {
+        if (!json.has("payload"))
+            return null;
+        JSONObject p = json.getJSONObject("payload");
+        String orderId = null;
+        if (p.has("payment")) {
+            orderId = p.getJSONObject("payment").getJSONObject("entity").optString("order_id", null);
         }
+        if (orderId == null && p.has("order")) {
+            orderId = p.getJSONObject("order").getJSONObject("entity").optString("id", null);
+        }
+        return orderId;
     }
 
-    public boolean handleWebhook(String payload, String signature) {
-        try {
-            if (webhookSecret == null || webhookSecret.contains("placeholder")) {
-                return false;
-            }
-            if (signature == null || signature.isBlank()) {
-                return false;
-            }
-            boolean verified = Utils.verifyWebhookSignature(payload, signature, webhookSecret);
-            if (!verified) {
-                return false;
+    /**
+     * Apply one verified webhook event to its payment. Called from the webhook
+     * inbox workers; an exception leaves the event in the inbox to be retried.
+     */
+    @Transactional
+    public void applyWebhook(String payload, String signature) {
+        JSONObject json = new JSONObject(payload);
+        String event = json.optString("event", "");
+        String orderId = webhookOrderId(json);
+        String paymentId = null;
+        String errorReason = null;
+        Integer amountPaise = null;
+        if (json.has("payload") && json.getJSONObject("payload").has("payment")) {
+            JSONObject pe = json.getJSONObject("payload").getJSONObject("payment").getJSONObject("entity");
+            paymentId = pe.optString("id", null);
+            errorReason = pe.optString("error_description", null);
+            if (errorReason == null) {
+                errorReason = pe.optString("error_reason", null);
             }
-            JSONObject json = new JSONObject(payload);
-            String event = json.optString("event", "");
-            String orderId = null;
-            String paymentId = null;
-            String errorReason = null;
-            Integer amountPaise = null;
-            if (json.has("payload")) {
-                JSONObject p = json.getJSONObject("payload");
-                if (p.has("payment")) {
-                    JSONObject pe = p.getJSONObject("payment").getJSONObject("entity");
-                    orderId = pe.optString("order_id", null);
-                    paymentId = pe.optString("id", null);
-                    errorReason = pe.optString("error_description", null);
-                    if (errorReason == null) {
-                        errorReason = pe.optString("error_reason", null);
-                    }
-                    if (pe.has("amount")) {
-                        amountPaise = pe.getInt("amount");
-                    }
-                }
-                if (orderId == null && p.has("order")) {
-                    JSONObject oe = p.getJSONObject("order").getJSONObject("entity");
-                    orderId = oe.optString("id", null);
-                }
+            if (pe.has("amount")) {
+                amountPaise = pe.getInt("amount");
             }
-            if (orderId == null) {
-                return true;
-            }
-            Payment payment = paymentRepository.findByOrderId(orderId).orElse(null);
-            if (payment == null) {
-                return true;
-            }
-            if (amountPaise != null && payment.getAmount() != null) {
-                long expected = Math.round(payment.getAmount() * 100);
-                if (expected != amountPaise.longValue()) {
-                    payment.setStatus(PaymentStatus.FAILED);
-                    payment.setErrorReason("Amount mismatch");
-                    payment.setUpdatedAt(java.time.LocalDateTime.now());
-                    paymentRepository.save(payment);
-                    return true;
-                }
-            }
-            if ((event.equalsIgnoreCase("payment.captured") || event.equalsIgnoreCase("order.paid"))
-                    && payment.getStatus() == PaymentStatus.SUCCESS) {
-                return true;
-            }
-            if (event.equalsIgnoreCase("payment.captured") || event.equalsIgnoreCase("order.paid")) {
-                payment.setStatus(PaymentStatus.SUCCESS);
-                if (paymentId != null) payment.setPaymentId(paymentId);
-                payment.setSignature(signature);
-                payment.setUpdatedAt(java.time.LocalDateTime.now());
-                paymentRepository.save(payment);
-                if (payment.getUser() != null && payment.getCourse() != null) {
-                    boolean exists = enrollmentRepository.findByUserAndCourseId(payment.getUser(), payment.getCourse().getId()).isPresent();
-                    if (!exists) {
-                        Enrollment enrollment = new Enrollment();
-                        enrollment.setUser(payment.getUser());
-                        enrollment.setCourse(payment.getCourse());
-                        enrollment.setEnrolledAt(java.time.LocalDateTime.now());
-                        enrollmentRepository.save(enrollment);
-                    }
-                }
-            } else if (event.equalsIgnoreCase("payment.failed") || event.equalsIgnoreCase("order.failed")) {
+        }
+        if (orderId == null) {
+            return;
+        }
+        Payment payment = paymentRepository.findByOrderId(orderId).orElse(null);
+        if (payment == null) {
+            return;
+        }
+        if (amountPaise != null && payment.getAmount() != null) {
+            long expected = Math.round(payment.getAmount() * 100);
+            if (expected != amountPaise.longValue()) {
                 payment.setStatus(PaymentStatus.FAILED);
-                if (paymentId != null) payment.setPaymentId(paymentId);
-                payment.setSignature(signature);
-                if (errorReason != null) payment.setErrorReason(errorReason);
-                payment.setUpdatedAt(java.time.LocalDateTime.now());
-                paymentRepository.save(payment);
-            } else if (event.equalsIgnoreCase("refund.processed")) {
-                payment.setStatus(PaymentStatus.REFUNDED);
+                payment.setErrorReason("Amount mismatch");
                 payment.setUpdatedAt(java.time.LocalDateTime.now());
                 paymentRepository.save(payment);
+                publishActivity(payment);
+                return;
             }
-            return true;
-        } catch (Exception e) {
-            return false;
+        }
+        // A late or repeated capture never undoes a later refund
+        if ((event.equalsIgnoreCase("payment.captured") || event.equalsIgnoreCase("order.paid"))
+                && (payment.getStatus() == PaymentStatus.SUCCESS || payment.getStatus() == PaymentStatus.REFUNDED)) {
+            return;
+        }
+        if (event.equalsIgnoreCase("payment.captured") || event.equalsIgnoreCase("order.paid")) {
+            payment.setStatus(PaymentStatus.SUCCESS);
+            if (paymentId != null) payment.setPaymentId(paymentId);
+            payment.setSignature(signature);
+            payment.setUpdatedAt(java.time.LocalDateTime.now());
+            if (payment.getPaidAt() == null) payment.setPaidAt(payment.getUpdatedAt());
+            payment.setRefundedAt(null);
+            paymentRepository.save(payment);
+            publishActivity(payment);
+            enrollIfNeeded(payment);
+        } else if (event.equalsIgnoreCase("payment.failed") || event.equalsIgnoreCase("order.failed")) {
+            payment.setStatus(PaymentStatus.FAILED);
+            if (paymentId != null) payment.setPaymentId(paymentId);
+            payment.setSignature(signature);
+            if (errorReason != null) payment.setErrorReason(errorReason);
+            payment.setUpdatedAt(java.time.LocalDateTime.now());
+            paymentRepository.save(payment);
+            publishActivity(payment);
+        } else if (event.equalsIgnoreCase("refund.processed")) {
+            payment.setStatus(PaymentStatus.REFUNDED);
+            payment.setUpdatedAt(java.time.LocalDateTime.now());
+            if (payment.getPaidAt() == null) payment.setPaidAt(payment.getCreatedAt());
+            if (payment.getRefundedAt() == null) payment.setRefundedAt(payment.getUpdatedAt());
+            paymentRepository.save(payment);
+            publishActivity(payment);
         }
     }
 
-    @Scheduled(fixedDelay = 30000)
-    public void reconcilePendingPayments() {
-        try {
-            if (client == null) {
-                return;
-            }
-            java.util.List<Payment> pending = paymentRepository
-                    .findTop50ByStatusOrderByCreatedAtDesc(PaymentStatus.CREATED);
-            for (Payment p : pending) {
-                try {
-                    if (p.getOrderId() == null) continue;
-                    Order order = client.orders.fetch(p.getOrderId());
-                    String orderStatus = order != null ? order.get("status").toString() : null;
-                    boolean paid = orderStatus != null && orderStatus.equalsIgnoreCase("paid");
-                    if (!paid) {
-                        java.util.List<com.razorpay.Payment> payments = client.orders.fetchPayments(p.getOrderId());
-                        for (com.razorpay.Payment payObj : payments) {
-                            boolean captured = false;
-                            String status = "";
-                            String paymentId = null;
-                            try {
-                                Object cap = payObj.get("captured");
-                                if (cap != null) captured = Boolean.parseBoolean(cap.toString());
-                            } catch (Exception ignore) {}
-                            try {
-                                Object st = payObj.get("status");
-                                if (st != null) status = st.toString();
-                            } catch (Exception ignore) {}
-                            try {
-                                Object pid = payObj.get("id");
-                                if (pid != null) paymentId = pid.toString();
-                            } catch (Exception ignore) {}
-                            if (captured || "captured".equalsIgnoreCase(status)) {
-                                p.setStatus(PaymentStatus.SUCCESS);
-                                if (paymentId != null) p.setPaymentId(paymentId);
-                                p.setUpdatedAt(java.time.LocalDateTime.now());
-                                paymentRepository.save(p);
-                                enrollIfNeeded(p);
-                                paid = true;
-                                break;
-                            }
-                        }
-                    } else {
-                        p.setStatus(PaymentStatus.SUCCESS);
-                        p.setUpdatedAt(java.time.LocalDateTime.now());
-                        paymentRepository.save(p);
-                        enrollIfNeeded(p);
-                    }
-                } catch (Exception ex) {
-                    // ignore individual failures, continue
-                }
-            }
-        } catch (Exception e) {
-            // swallow to avoid scheduler crash
-        }
+    public boolean isProviderConfigured() {
+        return paymentGateway.isConfigured();
+    }
+
+    /** Ask the provider whether an order has been paid, and by which payment. */
+    public PaymentDto.ProviderOrderStatus fetchOrderStatus(String orderId) throws PaymentGatewayException {
+        return paymentGateway.fetchOrderStatus(orderId);
+    }
+
+    /**
+     * Mark a still-pending payment paid after the provider reported it captured,
+     * and enroll the student. False if the payment was settled in the meantime.
+     */
+    @Transactional
+    public boolean settleReconciled(Long id, String providerPaymentId) {
+        Payment payment = paymentRepository.findById(id).orElse(null);
+        if (payment == null || payment.getStatus() != PaymentStatus.CREATED)
+            return false;
+        payment.setStatus(PaymentStatus.SUCCESS);
+        if (providerPaymentId != null) payment.setPaymentId(providerPaymentId);
+        payment.setUpdatedAt(java.time.LocalDateTime.now());
+        payment.setPaidAt(payment.getUpdatedAt());
+        payment.setLastReconciledAt(payment.getUpdatedAt());
+        paymentRepository.save(payment);
+        publishActivity(payment);
+        enrollIfNeeded(payment);
+        return true;
+    }
+
+    // The course rollups count payments on the day they were paid and refunded
+    private void publishActivity(Payment payment) {
+        if (payment.getCourse() == null) return;
+        if (payment.getPaidAt() != null)
+            eventPublisher.publishEvent(new CourseActivityEvent(payment.getCourse().getId(),
+                    payment.getPaidAt().toLocalDate()));
+        if (payment.getRefundedAt() != null)
+            eventPublisher.publishEvent(new CourseActivityEvent(payment.getCourse().getId(),
+                    payment.getRefundedAt().toLocalDate()));
     }
 
     private void enrollIfNeeded(Payment payment) {
-        try {
-            if (payment.getUser() == null || payment.getCourse() == null) return;
-            boolean exists = enrollmentRepository.findByUserAndCourseId(
-                    payment.getUser(), payment.getCourse().getId()).isPresent();
-            if (!exists) {
-                Enrollment enrollment = new Enrollment();
-                enrollment.setUser(payment.getUser());
-                enrollment.setCourse(payment.getCourse());
-                enrollment.setEnrolledAt(java.time.LocalDateTime.now());
-                enrollmentRepository.save(enrollment);
-            }
-        } catch (Exception e) {
-            // ignore
-        }
+        if (payment.getUser() == null || payment.getCourse() == null) return;
+        enrollmentService.enroll(payment.getUser().getId(), payment.getCourse().getId());
     }
 }
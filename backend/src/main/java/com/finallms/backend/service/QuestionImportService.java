@@ -0,0 +1,373 @@
+package com.finallms.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finallms.backend.dto.QuestionDto;
+import com.finallms.backend.enums.QuestionType;
+import com.finallms.backend.exception.BadRequestException;
+import com.finallms.backend.exception.ResourceNotFoundException;
+import com.finallms.backend.repository.ExamRepository;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Types;
+import java.util.*;
+
+/**
+ * Bulk question import from XLSX or CSV. Rows are streamed (SAX for XLSX, a
+ * character reader for CSV), validated one at a time and inserted in JDBC
+ * batches, so memory does not grow with the number of rows. Invalid rows are
+ * skipped and reported with their row number.
+ *
+ * An XLSX keeps its text cells in one shared strings part, which is read into
+ * memory whole; workbooks whose shared strings exceed
+ * {@code app.import.max-shared-strings-bytes} (uncompressed, 32 MB by default)
+ * are rejected. CSV has no such limit.
+ *
+ * The first non-empty row is the header. Recognised columns: questionText,
+ * type (MCQ or FILE_UPLOAD, default MCQ), marks, options (separated by "|")
+ * and correctAnswer.
+ */
+@Service
+public class QuestionImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final int MAX_QUESTION_TEXT = 5000;
+    private static final int MAX_CORRECT_ANSWER = 255;
+
+    private static final String INSERT_SQL = "INSERT INTO questions "
+            + "(exam_id, question_text, type, marks, options_json, correct_answer) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String COL_TEXT = "questiontext";
+    private static final String COL_TYPE = "type";
+    private static final String COL_MARKS = "marks";
+    private static final String COL_OPTIONS = "options";
+    private static final String COL_ANSWER = "correctanswer";
+
+    @Autowired
+    private ExamRepository examRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ExamResultService examResultService;
+
+    @Value("${app.import.batch-size:500}")
+    private int batchSize;
+    @Value("${app.import.max-shared-strings-bytes:33554432}")
+    private long maxSharedStringsBytes;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Transactional
+    public QuestionDto.ImportResponse importQuestions(Long examId, MultipartFile file) {
+        if (!examRepository.existsById(examId)) {
+            throw new ResourceNotFoundException("Exam not found");
+        }
+        if (file == null || file.isEmpty()) {
+            throw new BadRequestException("File is empty or null");
+        }
+        String name = file.getOriginalFilename() != null ? file.getOriginalFilename().toLowerCase() : "";
+
+        Importer importer = new Importer(examId);
+        try {
+            if (name.endsWith(".xlsx")) {
+                readXlsx(file, importer);
+            } else if (name.endsWith(".csv")) {
+                readCsv(file, importer);
+            } else {
+                throw new BadRequestException("Only .xlsx and .csv files are supported");
+            }
+        } catch (IOException | SAXException | OpenXML4JException | ParserConfigurationException e) {
+            throw new BadRequestException("Could not read file: " + e.getMessage());
+        }
+        importer.flush();
+
+        if (importer.imported > 0) {
+            examRepository.refreshQuestionCount(examId);
+            examResultService.evictAll();
+        }
+        return QuestionDto.ImportResponse.builder()
+                .examId(examId)
+                .rowsRead(importer.rowsRead)
+                .imported(importer.imported)
+                .errorCount(importer.errorCount)
+                .errors(importer.errors)
+                .build();
+    }
+
+    // XLSX: first sheet only, read through the SAX event API from a temp file
+    private void readXlsx(MultipartFile file, Importer importer)
+            throws IOException, SAXException, OpenXML4JException, ParserConfigurationException {
+        Path tmp = Files.createTempFile("question-import-", ".xlsx");
+        try {
+            file.transferTo(tmp);
+            try (OPCPackage pkg = OPCPackage.open(tmp.toFile(), PackageAccess.READ)) {
+                XSSFReader reader = new XSSFReader(pkg);
+                checkSharedStringsSize(pkg);
+                ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+                Iterator<InputStream> sheets = reader.getSheetsData();
+                if (!sheets.hasNext()) {
+                    throw new BadRequestException("Workbook has no sheets");
+                }
+                try (InputStream sheet = sheets.next()) {
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new XSSFSheetXMLHandler(reader.getStylesTable(), strings,
+                            new SheetRows(importer), new DataFormatter(), false));
+                    parser.parse(new InputSource(sheet));
+                }
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    // The shared strings table is held in heap while the sheet is read, so bound its size
+    private void checkSharedStringsSize(OPCPackage pkg) throws InvalidFormatException {
+        for (PackagePart part : pkg.getPartsByContentType(XSSFRelation.SHARED_STRINGS.getContentType())) {
+            if (part.getSize() > maxSharedStringsBytes) {
+                throw new BadRequestException("Workbook text is too large to import (over "
+                        + Math.max(1, maxSharedStringsBytes / (1024 * 1024)) + " MB uncompressed); split it or upload a CSV");
+            }
+        }
+    }
+
+    private static class SheetRows implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final Importer importer;
+        private final List<String> cells = new ArrayList<>();
+
+        SheetRows(Importer importer) {
+            this.importer = importer;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            cells.clear();
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            importer.row(rowNum + 1, cells);
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            // Blank cells are not reported, so place each value by its column
+            int col = new CellReference(cellReference).getCol();
+            while (cells.size() <= col) {
+                cells.add(null);
+            }
+            cells.set(col, formattedValue);
+        }
+    }
+
+    // CSV (RFC 4180): quoted fields may contain commas, doubled quotes and newlines
+    private void readCsv(MultipartFile file, Importer importer) throws IOException {
+        try (Reader in = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+            List<String> cells = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean pending = false;
+            long record = 1;
+            int c = in.read();
+            if (c == '\uFEFF')
+                c = in.read();
+            for (; c != -1; c = in.read()) {
+                pending = true;
+                if (quoted) {
+                    if (c == '"') {
+                        in.mark(1);
+                        int next = in.read();
+                        if (next == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            if (next != -1)
+                                in.reset();
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    cells.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == '\r') {
+                    if (c == '\r') {
+                        in.mark(1);
+                        if (in.read() != '\n')
+                            in.reset();
+                    }
+                    cells.add(field.toString());
+                    field.setLength(0);
+                    importer.row(record++, cells);
+                    cells.clear();
+                    pending = false;
+                } else {
+                    field.append((char) c);
+                }
+            }
+            if (pending) {
+                cells.add(field.toString());
+                importer.row(record, cells);
+            }
+        }
+    }
+
+    /**
+     * Validates rows as they arrive and writes them out batch by batch. Holds at
+     * most one batch of rows plus the first {@value #MAX_REPORTED_ERRORS} errors.
+     */
+    private class Importer {
+        private final Long examId;
+        private final List<Object[]> batch = new ArrayList<>();
+        private final List<QuestionDto.ImportRowError> errors = new ArrayList<>();
+        private Map<String, Integer> columns;
+        private long rowsRead;
+        private long imported;
+        private long errorCount;
+
+        Importer(Long examId) {
+            this.examId = examId;
+        }
+
+        void row(long rowNumber, List<String> cells) {
+            if (cells.stream().allMatch(v -> v == null || v.isBlank()))
+                return;
+            if (columns == null) {
+                columns = readHeader(cells);
+                return;
+            }
+            rowsRead++;
+            try {
+                batch.add(toParams(cells));
+            } catch (BadRequestException e) {
+                errorCount++;
+                if (errors.size() < MAX_REPORTED_ERRORS) {
+                    errors.add(QuestionDto.ImportRowError.builder().row(rowNumber).message(e.getMessage()).build());
+                }
+                return;
+            }
+            if (batch.size() >= Math.max(1, batchSize)) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (batch.isEmpty())
+                return;
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, new int[] { Types.BIGINT, Types.VARCHAR, Types.VARCHAR,
+                    Types.INTEGER, Types.VARCHAR, Types.VARCHAR });
+            imported += batch.size();
+            batch.clear();
+        }
+
+        private Map<String, Integer> readHeader(List<String> cells) {
+            Map<String, Integer> header = new HashMap<>();
+            for (int i = 0; i < cells.size(); i++) {
+                String name = cells.get(i) != null ? cells.get(i).toLowerCase().replaceAll("[^a-z]", "") : "";
+                if (name.equals("question"))
+                    name = COL_TEXT;
+                if (name.equals("answer"))
+                    name = COL_ANSWER;
+                header.putIfAbsent(name, i);
+            }
+            if (!header.containsKey(COL_TEXT) || !header.containsKey(COL_MARKS)) {
+                throw new BadRequestException("Header row must contain questionText and marks columns");
+            }
+            return header;
+        }
+
+        private String cell(List<String> cells, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= cells.size() || cells.get(index) == null)
+                return null;
+            String value = cells.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        private Object[] toParams(List<String> cells) {
+            String text = cell(cells, COL_TEXT);
+            if (text == null)
+                throw new BadRequestException("questionText is required");
+            if (text.length() > MAX_QUESTION_TEXT)
+                throw new BadRequestException("questionText is longer than " + MAX_QUESTION_TEXT + " characters");
+
+            QuestionType type = QuestionType.MCQ;
+            String typeValue = cell(cells, COL_TYPE);
+            if (typeValue != null) {
+                try {
+                    type = QuestionType.valueOf(typeValue.toUpperCase().replace(' ', '_'));
+                } catch (IllegalArgumentException e) {
+                    throw new BadRequestException("Unknown type '" + typeValue + "'");
+                }
+            }
+
+            String marksValue = cell(cells, COL_MARKS);
+            if (marksValue == null)
+                throw new BadRequestException("marks is required");
+            int marks;
+            try {
+                marks = Integer.parseInt(marksValue);
+            } catch (NumberFormatException e) {
+                throw new BadRequestException("marks must be a whole number");
+            }
+            if (marks <= 0)
+                throw new BadRequestException("marks must be greater than 0");
+
+            String optionsJson = null;
+            String correctAnswer = null;
+            if (type == QuestionType.MCQ) {
+                List<String> options = new ArrayList<>();
+                String optionsValue = cell(cells, COL_OPTIONS);
+                if (optionsValue != null) {
+                    for (String option : optionsValue.split("\\|")) {
+                        if (!option.isBlank())
+                            options.add(option.trim());
+                    }
+                }
+                if (options.size() < 2)
+                    throw new BadRequestException("MCQ needs at least two options separated by '|'");
+                correctAnswer = cell(cells, COL_ANSWER);
+                if (correctAnswer == null)
+                    throw new BadRequestException("correctAnswer is required for MCQ");
+                if (correctAnswer.length() > MAX_CORRECT_ANSWER)
+                    throw new BadRequestException("correctAnswer is too long");
+                String answer = correctAnswer;
+                if (options.stream().noneMatch(o -> o.equalsIgnoreCase(answer)))
+                    throw new BadRequestException("correctAnswer must be one of the options");
+                try {
+                    optionsJson = objectMapper.writeValueAsString(options);
+                } catch (JsonProcessingException e) {
+                    throw new RuntimeException("Error processing options JSON", e);
+                }
+            }
+            return new Object[] { examId, text, type.name(), marks, optionsJson, correctAnswer };
+        }
+    }
+}
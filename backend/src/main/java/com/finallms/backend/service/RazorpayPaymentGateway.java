@@ -0,0 +1,133 @@
+package com.finallms.backend.service;
+
+import com.finallms.backend.dto.PaymentDto;
+import com.finallms.backend.exception.PaymentGatewayException;
+import com.razorpay.Order;
+import com.razorpay.RazorpayClient;
+import com.razorpay.RazorpayException;
+import com.razorpay.Utils;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+@Component
+public class RazorpayPaymentGateway implements PaymentGateway {
+
+    private static final Logger logger = LoggerFactory.getLogger(RazorpayPaymentGateway.class);
+
+    @Value("${razorpay.key.id}")
+    private String keyId;
+
+    @Value("${razorpay.key.secret}")
+    private String keySecret;
+
+    @Value("${razorpay.webhook.secret}")
+    private String webhookSecret;
+
+    private RazorpayClient client;
+
+    @PostConstruct
+    public void init() {
+        try {
+            if (keyId != null && !keyId.contains("placeholder")) {
+                this.client = new RazorpayClient(keyId, keySecret);
+            }
+            if (webhookSecret == null || webhookSecret.isBlank() || webhookSecret.contains("placeholder")) {
+                String envSecret = System.getenv("RAZORPAY_WEBHOOK_SECRET");
+                if (envSecret != null && !envSecret.isBlank()) {
+                    webhookSecret = envSecret.trim();
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Razorpay Init Failed: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public String name() {
+        return "razorpay";
+    }
+
+    @Override
+    public boolean isConfigured() {
+        return client != null;
+    }
+
+    @Override
+    public String keyId() {
+        return keyId;
+    }
+
+    @Override
+    public String createOrder(long amountPaise, String currency, String receipt) throws PaymentGatewayException {
+        if (client == null)
+            throw new PaymentGatewayException("Razorpay credentials not configured");
+        JSONObject orderRequest = new JSONObject();
+        orderRequest.put("amount", amountPaise);
+        orderRequest.put("currency", currency);
+        orderRequest.put("receipt", receipt);
+        try {
+            Order order = client.orders.create(orderRequest);
+            return order.get("id").toString();
+        } catch (RazorpayException e) {
+            throw new PaymentGatewayException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public PaymentDto.ProviderOrderStatus fetchOrderStatus(String orderId) throws PaymentGatewayException {
+        if (client == null)
+            throw new PaymentGatewayException("Razorpay credentials not configured");
+        try {
+            Order order = client.orders.fetch(orderId);
+            Object orderStatus = order != null && order.has("status") ? order.get("status") : null;
+            boolean paid = orderStatus != null && "paid".equalsIgnoreCase(orderStatus.toString());
+            for (com.razorpay.Payment payObj : client.orders.fetchPayments(orderId)) {
+                Object captured = payObj.has("captured") ? payObj.get("captured") : null;
+                Object status = payObj.has("status") ? payObj.get("status") : null;
+                if ((captured != null && Boolean.parseBoolean(captured.toString()))
+                        || (status != null && "captured".equalsIgnoreCase(status.toString()))) {
+                    Object paymentId = payObj.has("id") ? payObj.get("id") : null;
+                    return new PaymentDto.ProviderOrderStatus(true, paymentId != null ? paymentId.toString() : null);
+                }
+            }
+            return new PaymentDto.ProviderOrderStatus(paid, null);
+        } catch (RazorpayException e) {
+            throw new PaymentGatewayException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean verifyPaymentSignature(String orderId, String paymentId, String signature) {
+        try {
+            JSONObject options = new JSONObject();
+            options.put("razorpay_order_id", orderId);
+            options.put("razorpay_payment_id", paymentId);
+            options.put("razorpay_signature", signature);
+
+            return Utils.verifyPaymentSignature(options, keySecret);
+        } catch (Exception e) {
+            logger.warn("Verification failed: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean verifyWebhookSignature(String payload, String signature) {
+        try {
+            if (webhookSecret == null || webhookSecret.contains("placeholder")) {
+                return false;
+            }
+            if (signature == null || signature.isBlank()) {
+                return false;
+            }
+            return Utils.verifyWebhookSignature(payload, signature, webhookSecret);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
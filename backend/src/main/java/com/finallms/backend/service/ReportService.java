@@ -1,12 +1,18 @@
 package com.finallms.backend.service;
 
+import com.finallms.backend.dto.ReportDto;
 import com.finallms.backend.entity.Enrollment;
+import com.finallms.backend.enums.RollupPeriod;
+import com.finallms.backend.exception.BadRequestException;
 import com.finallms.backend.repository.CourseRepository;
+import com.finallms.backend.repository.CourseRollupRepository;
 import com.finallms.backend.repository.EnrollmentRepository;
 import com.finallms.backend.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -20,6 +26,8 @@ public class ReportService {
     private CourseRepository courseRepository;
     @Autowired
     private EnrollmentRepository enrollmentRepository;
+    @Autowired
+    private CourseRollupRepository courseRollupRepository;
 
     public Map<String, Object> getStats() {
         Map<String, Object> stats = new HashMap<>();
@@ -37,4 +45,31 @@ public class ReportService {
 
         return stats;
     }
+
+    /**
+     * Per-day or per-month figures between two dates (inclusive), for one course or
+     * summed over all of them. Reads only the rollups, never the base tables.
+     */
+    public ReportDto.RollupReport getRollupReport(String period, Long courseId, LocalDate from, LocalDate to) {
+        RollupPeriod rollupPeriod;
+        try {
+            rollupPeriod = RollupPeriod.valueOf(period == null ? "DAY" : period.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("period must be DAY or MONTH");
+        }
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from
+                : rollupPeriod == RollupPeriod.DAY ? end.minusDays(29) : end.minusMonths(11);
+        if (start.isAfter(end))
+            throw new BadRequestException("from must not be after to");
+        if (rollupPeriod == RollupPeriod.DAY && ChronoUnit.DAYS.between(start, end) >= 366)
+            throw new BadRequestException("Daily reports cover at most 366 days");
+        if (rollupPeriod == RollupPeriod.MONTH)
+            start = start.withDayOfMonth(1);
+
+        List<ReportDto.RollupPoint> points = courseId != null
+                ? courseRollupRepository.findSeries(courseId, rollupPeriod, start, end)
+                : courseRollupRepository.findSeriesAllCourses(rollupPeriod, start, end);
+        return new ReportDto.RollupReport(rollupPeriod.name(), courseId, points);
+    }
 }
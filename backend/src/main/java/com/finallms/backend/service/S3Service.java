@@ -6,17 +6,24 @@ import com.amazonaws.auth.BasicAWSCredentials;
 import com.amazonaws.regions.Regions;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
 import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
 import javax.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.*;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.UUID;
 
 @Service
@@ -37,6 +44,7 @@ public class S3Service {
     private AmazonS3 s3Client;
     private boolean s3Available = false;
     private Path uploadDir;
+    private Path artifactDir; // generated files; unlike uploads, not served publicly
 
     private boolean isBlankOrPlaceholder(String value) {
         if (value == null)
@@ -73,6 +81,13 @@ public class S3Service {
             System.out.println("[S3Service] Fallback upload dir: uploads");
         }
 
+        try {
+            artifactDir = Paths.get(System.getProperty("user.dir", "."), "artifacts").toAbsolutePath();
+            Files.createDirectories(artifactDir);
+        } catch (IOException e) {
+            artifactDir = Paths.get("artifacts");
+        }
+
         // Try to initialize S3
         if (isBlankOrPlaceholder(accessKey) || isBlankOrPlaceholder(secretKey) || isBlankOrPlaceholder(bucketName)) {
             System.out.println("[S3Service] No AWS credentials — using Local mode only.");
@@ -151,6 +166,50 @@ public class S3Service {
         return fileName;
     }
 
+    /**
+     * Store a generated artifact under a caller-chosen key: in S3 when available,
+     * otherwise in the local artifacts directory.
+     */
+    public void putArtifact(String key, byte[] bytes, String contentType) throws IOException {
+        if (s3Available && s3Client != null) {
+            try {
+                ObjectMetadata metadata = new ObjectMetadata();
+                metadata.setContentLength(bytes.length);
+                metadata.setContentType(contentType);
+                s3Client.putObject(new PutObjectRequest(bucketName, key, new ByteArrayInputStream(bytes), metadata));
+                return;
+            } catch (Exception e) {
+                System.out.println("[S3Service] Artifact upload failed: " + e.getMessage() + " — storing locally.");
+            }
+        }
+        Path target = artifactDir.resolve(key);
+        Files.createDirectories(target.getParent());
+        Files.write(target, bytes);
+    }
+
+    // Returns null when the artifact does not exist
+    public byte[] getArtifact(String key) {
+        if (key == null || key.isBlank())
+            return null;
+        if (artifactDir != null) {
+            Path local = artifactDir.resolve(key);
+            if (Files.exists(local)) {
+                try {
+                    return Files.readAllBytes(local);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+        if (s3Available && s3Client != null) {
+            try (S3Object object = s3Client.getObject(bucketName, key);
+                    InputStream in = object.getObjectContent()) {
+                return in.readAllBytes();
+            } catch (Exception ignored) {
+            }
+        }
+        return null;
+    }
+
     public String generatePresignedUrl(String fileName) {
         if (fileName == null || fileName.isBlank()) {
             return "https://images.unsplash.com/photo-1516321318423-f06f85e504b3?w=800&q=80";
@@ -204,6 +263,46 @@ public class S3Service {
         }
     }
 
+    // S3 accepts at most 1000 keys per multi-object delete
+    private static final int MAX_KEYS_PER_DELETE = 1000;
+
+    /**
+     * Delete many objects at once: local copies one by one, S3 objects with
+     * multi-object delete requests of up to 1000 keys.
+     *
+     * @return keys S3 reported as not deleted
+     */
+    public List<String> deleteFiles(List<String> fileNames) {
+        List<String> failed = new ArrayList<>();
+        if (fileNames == null || fileNames.isEmpty())
+            return failed;
+        for (String fileName : fileNames) {
+            try {
+                if (uploadDir != null)
+                    Files.deleteIfExists(uploadDir.resolve(fileName));
+                if (artifactDir != null)
+                    Files.deleteIfExists(artifactDir.resolve(fileName));
+            } catch (Exception ignored) {
+            }
+        }
+        if (s3Available && s3Client != null) {
+            for (int from = 0; from < fileNames.size(); from += MAX_KEYS_PER_DELETE) {
+                List<String> chunk = fileNames.subList(from, Math.min(from + MAX_KEYS_PER_DELETE, fileNames.size()));
+                try {
+                    s3Client.deleteObjects(new DeleteObjectsRequest(bucketName)
+                            .withKeys(chunk.toArray(new String[0]))
+                            .withQuiet(true));
+                } catch (MultiObjectDeleteException e) {
+                    e.getErrors().forEach(err -> failed.add(err.getKey()));
+                } catch (Exception e) {
+                    System.out.println("[S3Service] Batch delete failed: " + e.getMessage());
+                    failed.addAll(chunk);
+                }
+            }
+        }
+        return failed;
+    }
+
     public boolean fileExists(String fileName) {
         // Check locally first
         if (uploadDir != null && Files.exists(uploadDir.resolve(fileName))) {
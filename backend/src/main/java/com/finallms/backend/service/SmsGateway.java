@@ -0,0 +1,15 @@
+package com.finallms.backend.service;
+
+import com.finallms.backend.exception.OtpDeliveryException;
+
+/**
+ * Sends OTP text messages. Implementations are picked by
+ * {@code app.otp.sms-provider}; calls come from the OTP delivery workers, never
+ * from request threads.
+ */
+public interface SmsGateway {
+
+    String name();
+
+    void sendOtp(String phone, String otp) throws OtpDeliveryException;
+}
@@ -0,0 +1,107 @@
+package com.finallms.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Background removal of storage objects whose rows were deleted. Keys are queued
+ * once the deleting transaction commits and drained in multi-object delete
+ * batches, so request threads never wait on S3.
+ */
+@Service
+public class StorageCleanupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageCleanupService.class);
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Autowired
+    private S3Service s3Service;
+
+    @Value("${app.storage.delete-batch-size:1000}")
+    private int batchSize;
+
+    private final Queue<PendingDelete> queue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Queue keys for deletion after the current transaction commits; a rolled back
+     * delete keeps its files.
+     */
+    public void deleteAfterCommit(Collection<String> keys) {
+        List<String> cleaned = new ArrayList<>();
+        if (keys != null) {
+            for (String key : keys) {
+                // Thumbnails may be external URLs rather than keys in our bucket
+                if (key != null && !key.isBlank() && !key.startsWith("http"))
+                    cleaned.add(key);
+            }
+        }
+        if (cleaned.isEmpty())
+            return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(cleaned);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueue(cleaned);
+            }
+        });
+    }
+
+    private void enqueue(List<String> keys) {
+        for (String key : keys) {
+            queue.add(new PendingDelete(key, 0));
+        }
+    }
+
+    public int pendingCount() {
+        return queue.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.storage.delete-interval-ms:5000}")
+    public void drain() {
+        while (!queue.isEmpty()) {
+            Map<String, PendingDelete> batch = new LinkedHashMap<>();
+            PendingDelete next;
+            while (batch.size() < Math.max(1, batchSize) && (next = queue.poll()) != null) {
+                batch.putIfAbsent(next.key, next);
+            }
+            if (batch.isEmpty())
+                return;
+
+            List<String> failed = s3Service.deleteFiles(new ArrayList<>(batch.keySet()));
+            for (String key : failed) {
+                PendingDelete pending = batch.get(key);
+                if (pending != null && pending.attempts + 1 < MAX_ATTEMPTS) {
+                    queue.add(new PendingDelete(key, pending.attempts + 1));
+                } else {
+                    logger.warn("Giving up deleting storage object {}", key);
+                }
+            }
+            if (!failed.isEmpty()) {
+                // Retry on the next run instead of hammering a failing bucket
+                return;
+            }
+        }
+    }
+
+    private static final class PendingDelete {
+        private final String key;
+        private final int attempts;
+
+        private PendingDelete(String key, int attempts) {
+            this.key = key;
+            this.attempts = attempts;
+        }
+    }
+}
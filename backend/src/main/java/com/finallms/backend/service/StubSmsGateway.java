@@ -0,0 +1,44 @@
+package com.finallms.backend.service;
+
+import com.finallms.backend.exception.OtpDeliveryException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Local stand-in for the SMS provider, for development and offline load tests:
+ * waits a configurable time like a provider round trip and fails a configurable
+ * share of sends (as retryable errors) so the retry path gets exercised.
+ */
+@Component
+public class StubSmsGateway implements SmsGateway {
+
+    private static final Logger logger = LoggerFactory.getLogger(StubSmsGateway.class);
+
+    @Value("${app.otp.stub.latency-ms:200}")
+    private long latencyMs;
+
+    @Value("${app.otp.stub.failure-rate:0}")
+    private double failureRate;
+
+    @Override
+    public String name() {
+        return "stub";
+    }
+
+    @Override
+    public void sendOtp(String phone, String otp) throws OtpDeliveryException {
+        try {
+            Thread.sleep(latencyMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OtpDeliveryException("Interrupted while sending", true);
+        }
+        if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate)
+            throw new OtpDeliveryException("Simulated provider failure", true);
+        logger.info("SIMULATED SMS to {}", phone);
+    }
+}
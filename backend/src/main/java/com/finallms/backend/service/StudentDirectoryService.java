@@ -0,0 +1,147 @@
+package com.finallms.backend.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finallms.backend.dto.StudentDto;
+import com.finallms.backend.enums.Role;
+import com.finallms.backend.exception.BadRequestException;
+import com.finallms.backend.repository.EnrollmentRepository;
+import com.finallms.backend.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Admin student directory, newest first. Pages are keyset-paginated on id with
+ * the role filtered in SQL, and enrollment counts for a page come from one grouped
+ * query. A search is a prefix match on name, phone or email run as three queries,
+ * one per column, so each can be a range on its (role, column) index; an OR
+ * across the columns could use none of them. The range is ordered by the column,
+ * not by id, so each query still reads and sorts every student whose column
+ * starts with the prefix before returning its page. That cost grows with the
+ * number of matches, which is why a search needs at least
+ * {@value #MIN_PREFIX_LENGTH} characters. The page is the newest ids of the
+ * three results.
+ */
+@Service
+public class StudentDirectoryService {
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MIN_PREFIX_LENGTH = 3;
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * One page of students, optionally only those whose name, phone or email
+     * starts with {@code q}; {@code after} is the {@code nextCursor} of the
+     * previous page.
+     */
+    @Transactional(readOnly = true)
+    public StudentDto.DirectoryPage getDirectory(String q, String after, Integer size) {
+        int pageSize = size == null || size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        long afterId = Long.MAX_VALUE;
+        if (after != null && !after.isBlank()) {
+            try {
+                afterId = Long.parseLong(after.trim());
+            } catch (NumberFormatException e) {
+                throw new BadRequestException("Invalid cursor");
+            }
+        }
+
+        String prefix = checkQuery(q);
+        PageRequest page = PageRequest.of(0, pageSize);
+        List<StudentDto.DirectoryEntry> items = prefix.isEmpty()
+                ? userRepository.findDirectoryPage(Role.STUDENT, afterId, page)
+                : findMatching(escapeLike(prefix) + "%", afterId, page);
+
+        if (!items.isEmpty()) {
+            Map<Long, Long> counts = enrollmentRepository
+                    .countByUserIds(items.stream().map(StudentDto.DirectoryEntry::getId).collect(Collectors.toList()))
+                    .stream()
+                    .collect(Collectors.toMap(StudentDto.EnrollmentCount::getUserId,
+                            StudentDto.EnrollmentCount::getCount));
+            items.forEach(item -> item.setEnrollmentCount(counts.getOrDefault(item.getId(), 0L)));
+        }
+        String nextCursor = items.size() == pageSize ? String.valueOf(items.get(items.size() - 1).getId()) : null;
+        return StudentDto.DirectoryPage.builder()
+                .items(items)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * The trimmed search prefix, empty for no search. Shorter prefixes are rejected
+     * since they match, and sort, most of the table.
+     */
+    public String checkQuery(String q) {
+        String prefix = q != null ? q.trim() : "";
+        if (!prefix.isEmpty() && prefix.length() < MIN_PREFIX_LENGTH) {
+            throw new BadRequestException("Search needs at least " + MIN_PREFIX_LENGTH + " characters");
+        }
+        return prefix;
+    }
+
+    /**
+     * Every student, or every match of {@code q}, newest first, written to
+     * {@code out} as a JSON array one full page at a time, so the whole list is
+     * never held in memory. Missing names, emails, phones and addresses are
+     * written as "", as this list always has.
+     */
+    public void writeAll(String q, OutputStream out) throws IOException {
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.writeStartArray();
+            String after = null;
+            do {
+                StudentDto.DirectoryPage page = getDirectory(q, after, MAX_PAGE_SIZE);
+                for (StudentDto.DirectoryEntry entry : page.getItems()) {
+                    json.writeStartObject();
+                    json.writeNumberField("id", entry.getId());
+                    json.writeStringField("name", orEmpty(entry.getName()));
+                    json.writeStringField("email", orEmpty(entry.getEmail()));
+                    json.writeStringField("phone", orEmpty(entry.getPhone()));
+                    json.writeStringField("address", orEmpty(entry.getAddress()));
+                    json.writeNumberField("enrollmentCount", entry.getEnrollmentCount());
+                    json.writeEndObject();
+                }
+                json.flush();
+                after = page.getNextCursor();
+            } while (after != null);
+            json.writeEndArray();
+        }
+    }
+
+    private static String orEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    // Newest ids among the per-column matches; a student matching on several columns appears once
+    private List<StudentDto.DirectoryEntry> findMatching(String pattern, long afterId, PageRequest page) {
+        Map<Long, StudentDto.DirectoryEntry> merged = new TreeMap<>(Comparator.reverseOrder());
+        for (List<StudentDto.DirectoryEntry> matches : List.of(
+                userRepository.findDirectoryPageByName(Role.STUDENT, pattern, afterId, page),
+                userRepository.findDirectoryPageByPhone(Role.STUDENT, pattern, afterId, page),
+                userRepository.findDirectoryPageByEmail(Role.STUDENT, pattern, afterId, page))) {
+            matches.forEach(entry -> merged.putIfAbsent(entry.getId(), entry));
+        }
+        return merged.values().stream().limit(page.getPageSize()).collect(Collectors.toList());
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+}
@@ -5,16 +5,20 @@ import com.finallms.backend.dto.ModuleDto;
 import com.finallms.backend.dto.VideoDto;
 import com.finallms.backend.dto.AssignmentDto;
 import com.finallms.backend.entity.*;
+import com.finallms.backend.event.CourseActivityEvent;
+import com.finallms.backend.event.CourseProgressEvent;
 import com.finallms.backend.exception.BadRequestException;
 import com.finallms.backend.exception.ResourceNotFoundException;
 import com.finallms.backend.repository.CourseRepository;
 import com.finallms.backend.repository.EnrollmentRepository;
 import com.finallms.backend.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,6 +35,8 @@ public class StudentService {
         @Autowired
         private PaymentService paymentService;
         @Autowired
+        private EnrollmentService enrollmentService;
+        @Autowired
         private com.finallms.backend.repository.PaymentRepository paymentRepository;
         @Autowired
         private com.finallms.backend.repository.VideoRepository videoRepository;
@@ -44,6 +50,8 @@ public class StudentService {
         private com.finallms.backend.repository.ExamRepository examRepository;
         @Autowired
         private com.finallms.backend.repository.ExamSubmissionRepository examSubmissionRepository;
+        @Autowired
+        private ApplicationEventPublisher eventPublisher;
 
         public void enrollFree(String userEmailOrPhone, Long courseId) {
                 User user = userRepository.findByEmail(userEmailOrPhone)
@@ -64,12 +72,7 @@ public class StudentService {
                         throw new RuntimeException("This is a paid course. Please complete payment.");
                 }
 
-                Enrollment enrollment = new Enrollment();
-                enrollment.setUser(user);
-                enrollment.setCourse(course);
-                enrollment.setEnrolledAt(LocalDateTime.now());
-
-                enrollmentRepository.save(enrollment);
+                enrollmentService.enroll(user.getId(), course.getId());
         }
 
         public void enrollPaid(String userEmailOrPhone, com.finallms.backend.dto.PaymentDto.VerifyRequest request) {
@@ -135,21 +138,14 @@ public class StudentService {
                         p.setPaymentId(request.getRazorpayPaymentId());
                         p.setSignature(request.getRazorpaySignature());
                         p.setUpdatedAt(java.time.LocalDateTime.now());
+                        if (p.getPaidAt() == null) p.setPaidAt(p.getUpdatedAt());
                         paymentRepository.save(p);
+                        eventPublisher.publishEvent(new CourseActivityEvent(course.getId(),
+                                        p.getPaidAt().toLocalDate()));
                 }
 
-                if (enrollmentRepository.findByUserAndCourseId(user, request.getCourseId()).isPresent()) {
-                        // Already enrolled, but payment is now recorded as success. Return gracefully.
-                        return;
-                }
-
-                Enrollment enrollment = new Enrollment();
-                enrollment.setUser(user);
-                enrollment.setCourse(course);
-                enrollment.setEnrolledAt(LocalDateTime.now());
-                // enrollment.setPaymentReference(request.getRazorpayPaymentId());
-
-                enrollmentRepository.save(enrollment);
+                // The webhook or reconciler may have enrolled the student already
+                enrollmentService.enroll(user.getId(), course.getId());
         }
 
         public List<CourseDto.CourseResponse> getEnrolledCourses(String userEmailOrPhone) {
@@ -477,9 +473,12 @@ public class StudentService {
                                         np.setVideo(video);
                                         return np;
                                 });
+                boolean newlyCompleted = !vp.isCompleted();
                 vp.setCompleted(true);
                 vp.setCompletedAt(java.time.LocalDateTime.now());
                 videoProgressRepository.save(vp);
+                if (newlyCompleted)
+                        eventPublisher.publishEvent(new CourseProgressEvent(user.getId(), course.getId()));
         }
 
         // ASSIGNMENT FILE (Student download/view)
@@ -534,15 +533,10 @@ public class StudentService {
                 existing.setTextAnswer(text.trim());
                 existing.setSubmittedAt(java.time.LocalDateTime.now());
                 assignmentSubmissionRepository.save(existing);
+                eventPublisher.publishEvent(new CourseProgressEvent(user.getId(), course.getId()));
         }
         // STUDENT MANAGEMENT METHODS (for Admin)
 
-        public List<User> getAllStudents() {
-                return userRepository.findAll().stream()
-                                .filter(u -> u.getRole() == com.finallms.backend.enums.Role.STUDENT)
-                                .collect(Collectors.toList());
-        }
-
         public List<User> getCourseStudents(Long courseId) {
                 Course course = courseRepository.findById(courseId)
                                 .orElseThrow(() -> new RuntimeException("Course not found"));
@@ -553,7 +547,7 @@ public class StudentService {
         }
 
         public void removeEnrollment(Long enrollmentId) {
-                enrollmentRepository.deleteById(enrollmentId);
+                enrollmentService.remove(enrollmentId);
         }
 
         public String uploadExamFile(org.springframework.web.multipart.MultipartFile file) {
@@ -604,6 +598,49 @@ public class StudentService {
                 return true;
         }
 
+        /**
+         * Ids of the course's enrolled students who meet {@link #isCourseCompleted},
+         * worked out for the whole cohort with one grouped count per item kind.
+         */
+        public Set<Long> findCompletedStudentIds(Long courseId) {
+                long totalVideos = videoRepository.countByCourseId(courseId);
+                long totalAssignments = assignmentRepository.countByCourseId(courseId);
+                long totalExams = examRepository.countByCourseId(courseId);
+
+                Set<Long> completed = new HashSet<>(enrollmentRepository.findUserIdsByCourseId(courseId));
+                retainAtLeast(completed, videoProgressRepository.countCompletedByCourseId(courseId), totalVideos);
+                retainAtLeast(completed, assignmentSubmissionRepository.countSubmittedByCourseId(courseId),
+                                totalAssignments);
+                retainAtLeast(completed, examSubmissionRepository.countPassedByCourseId(courseId), totalExams);
+                return completed;
+        }
+
+        /**
+         * Single-student form of {@link #findCompletedStudentIds}: three counts instead
+         * of loading the student's whole progress history.
+         */
+        public boolean hasCompletedCourse(Long userId, Long courseId) {
+                if (!enrollmentRepository.existsByUserIdAndCourseId(userId, courseId))
+                        return false;
+                return videoProgressRepository.countCompletedByUserIdAndCourseId(userId, courseId) >= videoRepository
+                                .countByCourseId(courseId)
+                                && assignmentSubmissionRepository.countSubmittedByUserIdAndCourseId(userId,
+                                                courseId) >= assignmentRepository.countByCourseId(courseId)
+                                && examSubmissionRepository.countPassedByStudentIdAndCourseId(userId,
+                                                courseId) >= examRepository.countByCourseId(courseId);
+        }
+
+        private void retainAtLeast(Set<Long> userIds, List<CourseDto.StudentCount> counts, long required) {
+                if (required == 0)
+                        return;
+                Set<Long> reached = new HashSet<>();
+                for (CourseDto.StudentCount count : counts) {
+                        if (count.getCount() >= required)
+                                reached.add(count.getUserId());
+                }
+                userIds.retainAll(reached);
+        }
+
         public com.finallms.backend.dto.ProfileDto.ProfileResponse getProfile(String userEmailOrPhone) {
                 User user = userRepository.findByEmail(userEmailOrPhone)
                                 .or(() -> userRepository.findByPhone(userEmailOrPhone))
@@ -0,0 +1,243 @@
+package com.finallms.backend.service;
+
+import com.finallms.backend.entity.WebhookEvent;
+import com.finallms.backend.enums.WebhookEventStatus;
+import com.finallms.backend.repository.WebhookEventRepository;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * Inbox for payment webhooks. The webhook request only verifies the signature and
+ * stores the event (deduplicated on the provider's event id) before answering, so
+ * provider retries never pile up on request threads. Events are applied by worker
+ * lanes; all events of one order go to the same single-threaded lane and are
+ * applied in arrival order, and an order whose event fails is held back until
+ * that event succeeds or is given up on. Every node drains, so each event is
+ * claimed in the database before it is applied: a node stops at an event another
+ * node holds, which keeps one order's events in order across the cluster, and
+ * the event is marked done in the same transaction as the payment change. A
+ * periodic poll picks up anything left over from a restart, a lapsed claim or a
+ * retry.
+ */
+@Service
+public class WebhookInboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookInboxService.class);
+    private static final Set<WebhookEventStatus> PENDING = EnumSet.of(WebhookEventStatus.RECEIVED,
+            WebhookEventStatus.FAILED, WebhookEventStatus.PROCESSING);
+
+    @Autowired
+    private WebhookEventRepository webhookEventRepository;
+    @Autowired
+    private PaymentService paymentService;
+    @Autowired
+    private JobLockService jobLockService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.payments.webhook-workers:4}")
+    private int workers;
+    @Value("${app.payments.webhook-max-attempts:8}")
+    private int maxAttempts;
+    @Value("${app.payments.webhook-retry-base-ms:5000}")
+    private long retryBaseMs;
+    @Value("${app.payments.webhook-retention-days:30}")
+    private int retentionDays;
+    // How long a node's claim on an event lasts before another node may take it over
+    @Value("${app.payments.webhook-claim-ms:60000}")
+    private long claimMs;
+
+    private ExecutorService[] lanes;
+    private TransactionTemplate transactionTemplate;
+    // Orders with a drain queued and not yet started, so bursts for one order queue it once
+    private final Set<String> queuedOrders = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        lanes = new ExecutorService[Math.max(1, workers)];
+        for (int i = 0; i < lanes.length; i++) {
+            String name = "webhook-lane-" + (i + 1);
+            lanes[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdownNow();
+        }
+    }
+
+    /**
+     * Store a verified webhook and schedule it. A redelivery of an event already in
+     * the inbox is acknowledged without storing it again.
+     */
+    public void receive(String payload, String signature, String providerEventId) {
+        JSONObject json = new JSONObject(payload);
+        String orderId = PaymentService.webhookOrderId(json);
+        LocalDateTime now = LocalDateTime.now();
+
+        WebhookEvent event = new WebhookEvent();
+        event.setEventId(providerEventId != null && !providerEventId.isBlank()
+                ? providerEventId.trim()
+                : "sha256:" + sha256(payload));
+        event.setEventType(json.optString("event", ""));
+        event.setOrderId(orderId);
+        event.setPayload(payload);
+        event.setSignature(signature);
+        event.setReceivedAt(now);
+        event.setNextAttemptAt(now);
+        // Events not about an order change nothing; they are kept only for the record
+        event.setStatus(orderId == null ? WebhookEventStatus.PROCESSED : WebhookEventStatus.RECEIVED);
+        event.setProcessedAt(orderId == null ? now : null);
+        try {
+            webhookEventRepository.save(event);
+        } catch (DataIntegrityViolationException e) {
+            logger.info("Duplicate webhook event {} ignored", event.getEventId());
+            return;
+        }
+        if (orderId != null)
+            dispatch(orderId);
+    }
+
+    private void dispatch(String orderId) {
+        if (!queuedOrders.add(orderId))
+            return;
+        try {
+            lanes[Math.floorMod(orderId.hashCode(), lanes.length)].execute(() -> {
+                queuedOrders.remove(orderId);
+                drain(orderId);
+            });
+        } catch (RejectedExecutionException e) {
+            queuedOrders.remove(orderId);
+        }
+    }
+
+    // Apply the order's pending events in order, stopping at one that must wait (a retry, or another node's claim)
+    private void drain(String orderId) {
+        try {
+            for (WebhookEvent pending : webhookEventRepository.findPendingByOrderId(orderId, PENDING)) {
+                if (pending.getNextAttemptAt() != null && pending.getNextAttemptAt().isAfter(LocalDateTime.now()))
+                    return;
+                WebhookEvent event = claim(pending.getId());
+                if (event == null || !apply(event))
+                    return;
+            }
+        } catch (RuntimeException e) {
+            logger.error("Webhook drain for order {} failed", orderId, e);
+        }
+    }
+
+    // The claimed event, or null if another node got to it first
+    private WebhookEvent claim(Long id) {
+        LocalDateTime now = LocalDateTime.now();
+        return transactionTemplate.execute(status -> {
+            int claimed = webhookEventRepository.claim(id, jobLockService.getOwner(),
+                    now.plusNanos(claimMs * 1_000_000), now, WebhookEventStatus.PROCESSING, PENDING);
+            return claimed == 1 ? webhookEventRepository.findById(id).orElse(null) : null;
+        });
+    }
+
+    private boolean apply(WebhookEvent event) {
+        event.setAttempts(event.getAttempts() + 1);
+        try {
+            // The version check fails the whole transaction if the claim lapsed and another node took the event
+            transactionTemplate.executeWithoutResult(status -> {
+                paymentService.applyWebhook(event.getPayload(), event.getSignature());
+                event.setStatus(WebhookEventStatus.PROCESSED);
+                event.setProcessedAt(LocalDateTime.now());
+                event.setLastError(null);
+                webhookEventRepository.save(event);
+            });
+            return true;
+        } catch (ObjectOptimisticLockingFailureException e) {
+            logger.warn("Webhook event {} for order {} was taken over by another node", event.getEventId(),
+                    event.getOrderId());
+            return false;
+        } catch (RuntimeException e) {
+            return fail(event, e);
+        }
+    }
+
+    private boolean fail(WebhookEvent event, RuntimeException cause) {
+        String error = String.valueOf(cause.getMessage());
+        event.setLastError(error.length() > 1000 ? error.substring(0, 1000) : error);
+        try {
+            if (event.getAttempts() >= maxAttempts) {
+                // Give up so later events of the order are not held back forever
+                event.setStatus(WebhookEventStatus.DEAD);
+                webhookEventRepository.save(event);
+                logger.error("Webhook event {} for order {} given up after {} attempts: {}", event.getEventId(),
+                        event.getOrderId(), event.getAttempts(), error);
+                return true;
+            }
+            long delay = retryBaseMs << Math.min(event.getAttempts() - 1, 10);
+            event.setStatus(WebhookEventStatus.FAILED);
+            event.setNextAttemptAt(LocalDateTime.now().plusNanos(delay * 1_000_000));
+            webhookEventRepository.save(event);
+            logger.warn("Webhook event {} for order {} failed (attempt {}), retry in {} ms: {}", event.getEventId(),
+                    event.getOrderId(), event.getAttempts(), delay, error);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            logger.warn("Webhook event {} for order {} was taken over by another node", event.getEventId(),
+                    event.getOrderId());
+        }
+        return false;
+    }
+
+    @Scheduled(fixedDelayString = "${app.payments.webhook-poll-ms:5000}")
+    public void pollPending() {
+        try {
+            List<String> orderIds = webhookEventRepository.findDueOrderIds(PENDING, LocalDateTime.now(),
+                    PageRequest.of(0, 500));
+            orderIds.forEach(this::dispatch);
+        } catch (RuntimeException e) {
+            logger.warn("Webhook inbox poll failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${app.payments.webhook-purge-cron:0 30 3 * * *}")
+    @Transactional
+    public void purgeProcessed() {
+        int deleted = webhookEventRepository.deleteProcessedBefore(WebhookEventStatus.PROCESSED,
+                LocalDateTime.now().minusDays(retentionDays));
+        if (deleted > 0)
+            logger.info("Purged {} processed webhook events", deleted);
+    }
+
+    private static String sha256(String payload) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.finallms.backend.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spaces calls evenly at a fixed rate across threads. Each {@link #acquire} takes
+ * the next free slot and sleeps until it comes, so a burst of callers is smoothed
+ * out instead of rejected.
+ */
+public class RateLimiter {
+
+    private final long intervalNanos;
+    private long nextSlot = System.nanoTime();
+
+    public RateLimiter(double permitsPerSecond) {
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / Math.max(permitsPerSecond, 0.001));
+    }
+
+    public void acquire() throws InterruptedException {
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            // An idle limiter does not bank permits for a later burst
+            if (nextSlot < now)
+                nextSlot = now;
+            wait = nextSlot - now;
+            nextSlot += intervalNanos;
+        }
+        if (wait > 0)
+            TimeUnit.NANOSECONDS.sleep(wait);
+    }
+}
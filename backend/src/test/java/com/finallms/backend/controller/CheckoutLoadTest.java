@@ -0,0 +1,206 @@
+package com.finallms.backend.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finallms.backend.entity.Course;
+import com.finallms.backend.entity.Enrollment;
+import com.finallms.backend.entity.User;
+import com.finallms.backend.enums.PaymentStatus;
+import com.finallms.backend.enums.Role;
+import com.finallms.backend.enums.WebhookEventStatus;
+import com.finallms.backend.repository.CourseRepository;
+import com.finallms.backend.repository.EnrollmentRepository;
+import com.finallms.backend.repository.PaymentRepository;
+import com.finallms.backend.repository.UserRepository;
+import com.finallms.backend.repository.WebhookEventRepository;
+import com.finallms.backend.service.FakePaymentGateway;
+import com.finallms.backend.util.JwtUtil;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Checkout load scenario against the fake payment provider over real HTTP: each
+ * student runs two checkouts for the same course at once (a double click), each
+ * one create-order, pay at the fake checkout and verify, while the provider
+ * delivers every webhook twice. Prints the p50 and p99 of a whole flow and checks
+ * that every student ends with exactly one enrollment and one settled payment.
+ * Scale it with -Dcheckout.students and -Dcheckout.concurrency.
+ *
+ * Tagged load and left out of the default build; run it with
+ * {@code mvn test -Dgroups=load -Dtest.excludedGroups=}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.payments.provider=fake",
+        "app.payments.fake.latency-ms=20",
+        "app.payments.fake.webhook-delay-ms=50",
+        "app.payments.fake.duplicate-webhook-rate=1.0",
+        "app.payments.webhook-poll-ms=500",
+        "app.payments.webhook-retry-base-ms=200" })
+@ActiveProfiles("test")
+@Tag("load")
+class CheckoutLoadTest {
+
+    private static final int STUDENTS = Integer.getInteger("checkout.students", 100);
+    private static final int CONCURRENCY = Integer.getInteger("checkout.concurrency", 32);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CourseRepository courseRepository;
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private WebhookEventRepository webhookEventRepository;
+    @Autowired
+    private FakePaymentGateway fakePaymentGateway;
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    @Test
+    void concurrentCheckoutsEnrollEachStudentOnce() throws Exception {
+        // The webhook URL is only known once the server has a port
+        ReflectionTestUtils.setField(fakePaymentGateway, "webhookUrl",
+                "http://localhost:" + port + "/api/payments/webhook");
+
+        Course course = new Course();
+        course.setTitle("Load Test Course");
+        course.setActive(true);
+        course.setPrice(499.0);
+        course.setDuration(1);
+        courseRepository.save(course);
+
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < STUDENTS; i++) {
+            User student = new User();
+            student.setName("Student " + i);
+            student.setPhone(String.valueOf(7_000_000_000L + i));
+            student.setRole(Role.STUDENT);
+            userRepository.save(student);
+            tokens.add(jwtUtil.generateToken(student.getPhone(), "STUDENT"));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(CONCURRENCY);
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        long start = System.nanoTime();
+        try {
+            CountDownLatch ready = new CountDownLatch(1);
+            List<Future<?>> flows = new ArrayList<>();
+            for (String token : tokens) {
+                for (int click = 0; click < 2; click++) {
+                    flows.add(pool.submit(() -> {
+                        ready.await();
+                        long begin = System.nanoTime();
+                        checkout(token, course.getId());
+                        latencies.add(System.nanoTime() - begin);
+                        return null;
+                    }));
+                }
+            }
+            ready.countDown();
+            for (Future<?> flow : flows) {
+                flow.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        awaitInboxDrained(Duration.ofSeconds(60));
+
+        Collections.sort(latencies);
+        System.out.printf("Checkout load: %d flows (%d students x 2) at concurrency %d in %d ms, "
+                + "p50 %d ms, p99 %d ms%n", latencies.size(), STUDENTS, CONCURRENCY, elapsedMs,
+                percentile(latencies, 50), percentile(latencies, 99));
+
+        Map<Long, Integer> enrollmentsPerStudent = new HashMap<>();
+        for (Enrollment enrollment : enrollmentRepository.findAll()) {
+            assertEquals(course.getId(), enrollment.getCourse().getId());
+            enrollmentsPerStudent.merge(enrollment.getUser().getId(), 1, Integer::sum);
+        }
+        assertEquals(STUDENTS, enrollmentsPerStudent.size(), "students enrolled");
+        enrollmentsPerStudent.forEach((userId, count) -> assertEquals(1, count, "enrollments of user " + userId));
+        assertEquals(STUDENTS, paymentRepository.findAll().stream()
+                .filter(payment -> payment.getStatus() == PaymentStatus.SUCCESS)
+                .map(payment -> payment.getUser().getId())
+                .distinct()
+                .count(), "students with a settled payment");
+    }
+
+    private void checkout(String token, Long courseId) throws Exception {
+        JsonNode order = post(token, "/api/student/payment/create-order", Map.of("courseId", courseId));
+        String orderId = order.get("orderId").asText();
+
+        JsonNode paid = post(token, "/api/student/payment/fake-checkout/" + orderId, null);
+        Map<String, Object> verify = new HashMap<>();
+        verify.put("razorpayOrderId", paid.get("razorpayOrderId").asText());
+        verify.put("razorpayPaymentId", paid.get("razorpayPaymentId").asText());
+        verify.put("razorpaySignature", paid.get("razorpaySignature").asText());
+        verify.put("courseId", courseId);
+        post(token, "/api/student/payment/verify", verify);
+    }
+
+    private JsonNode post(String token, String path, Object body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .POST(body == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), path + " answered " + response.body());
+        String text = response.body();
+        return text.startsWith("{") ? objectMapper.readTree(text) : null;
+    }
+
+    // Webhooks land after the flows return; wait until every stored event is settled
+    private void awaitInboxDrained(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            boolean drained = webhookEventRepository.findAll().stream()
+                    .allMatch(event -> event.getStatus() == WebhookEventStatus.PROCESSED);
+            if (drained && webhookEventRepository.count() >= STUDENTS)
+                return;
+            Thread.sleep(200);
+        }
+        fail("webhook inbox not drained within " + timeout);
+    }
+
+    private static long percentile(List<Long> sortedNanos, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sortedNanos.size()) - 1;
+        return sortedNanos.get(Math.max(0, index)) / 1_000_000;
+    }
+}
@@ -0,0 +1,161 @@
+package com.finallms.backend.service;
+
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.poi.xslf.usermodel.XSLFTextBox;
+import org.apache.poi.xslf.usermodel.XSLFTextRun;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.awt.geom.Rectangle2D;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Throughput of filling the certificate template: the per-render path that parsed
+ * the PPTX and ran placeholder detection for every certificate, against borrowing
+ * a compiled template and writing the values into its recorded runs. Both write
+ * the filled slide show out, as a PPTX download does.
+ *
+ * A plain JUnit harness rather than JMH: JMH is not among the build's
+ * dependencies and needs its annotation processor and a separate benchmark jar.
+ * Each path is warmed up first and then timed over the same number of renders, so
+ * the comparison runs with the normal test build. Set -Dcertificate.bench.renders
+ * for longer runs. The real template is not in the repository, so a template with
+ * the same kinds of placeholders is built here.
+ *
+ * Tagged perf and left out of the default build, since its timing assertion
+ * depends on the machine: run it with {@code mvn test -Dgroups=perf -Dtest.excludedGroups=}.
+ */
+@Tag("perf")
+class CertificateTemplateThroughputTest {
+
+    private static final int RENDERS = Integer.getInteger("certificate.bench.renders", 40);
+    private static final int WARMUP = Math.max(5, RENDERS / 4);
+
+    private CertificateTemplate template;
+
+    @BeforeEach
+    void createTemplate() throws IOException {
+        template = new CertificateTemplate();
+        ReflectionTestUtils.setField(template, "poolSize", 1);
+        ReflectionTestUtils.setField(template, "templateBytes", sampleTemplate());
+    }
+
+    @Test
+    void compiledTemplateRendersFasterThanParsingPerRender() throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            renderParsingEachTime(i);
+            renderCompiled(i);
+        }
+
+        long parseNanos = 0;
+        long compiledNanos = 0;
+        for (int i = 0; i < RENDERS; i++) {
+            long start = System.nanoTime();
+            renderParsingEachTime(i);
+            parseNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            byte[] pptx = renderCompiled(i);
+            compiledNanos += System.nanoTime() - start;
+            if (i == 0)
+                assertTrue(text(pptx).contains("Student 0"), "student name filled in");
+        }
+
+        double parseMs = parseNanos / 1e6 / RENDERS;
+        double compiledMs = compiledNanos / 1e6 / RENDERS;
+        System.out.printf("Certificate template, %d renders each: parse per render %.2f ms (%.0f/s), "
+                + "compiled %.2f ms (%.0f/s), %.1fx%n", RENDERS, parseMs, 1000 / parseMs, compiledMs,
+                1000 / compiledMs, parseMs / compiledMs);
+        assertTrue(compiledMs < parseMs, "compiled template slower than parsing per render");
+    }
+
+    // What every render did before: parse the template, detect placeholders, fill them, write
+    private byte[] renderParsingEachTime(int i) throws IOException {
+        CertificateTemplate.Compiled compiled = ReflectionTestUtils.invokeMethod(template, "compile");
+        compiled.apply(values(i));
+        return write(compiled.getSlideShow());
+    }
+
+    private byte[] renderCompiled(int i) throws IOException {
+        CertificateTemplate.Compiled compiled = template.borrow();
+        try {
+            compiled.apply(values(i));
+            return write(compiled.getSlideShow());
+        } finally {
+            template.release(compiled);
+        }
+    }
+
+    private static Map<CertificateTemplate.Field, String> values(int i) {
+        Map<CertificateTemplate.Field, String> values = new EnumMap<>(CertificateTemplate.Field.class);
+        values.put(CertificateTemplate.Field.STUDENT_NAME, "Student " + i);
+        values.put(CertificateTemplate.Field.COURSE_TITLE, "Course " + i);
+        values.put(CertificateTemplate.Field.DURATION, "6-month");
+        values.put(CertificateTemplate.Field.COMPLETION_DATE, "19 Oct 2026");
+        values.put(CertificateTemplate.Field.ISSUE_DATE, "19.10.2026");
+        values.put(CertificateTemplate.Field.CERT_ID, String.valueOf(1_000_000_000L + i));
+        values.put(CertificateTemplate.Field.CERT_URL, "https://skilledup.tech/certificate/" + (1_000_000_000L + i));
+        return values;
+    }
+
+    private static byte[] write(XMLSlideShow slideShow) throws IOException {
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            slideShow.write(out);
+            return out.toByteArray();
+        }
+    }
+
+    private static String text(byte[] pptx) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        try (XMLSlideShow slideShow = new XMLSlideShow(new ByteArrayInputStream(pptx))) {
+            for (XSLFSlide slide : slideShow.getSlides()) {
+                slide.getShapes().stream()
+                        .filter(shape -> shape instanceof XSLFTextBox)
+                        .forEach(shape -> sb.append(((XSLFTextBox) shape).getText()).append('\n'));
+            }
+        }
+        return sb.toString();
+    }
+
+    // One slide laid out like the certificate: placeholders split across runs, plus static text
+    private static byte[] sampleTemplate() throws IOException {
+        try (XMLSlideShow slideShow = new XMLSlideShow()) {
+            XSLFSlide slide = slideShow.createSlide();
+            String[][] paragraphs = {
+                    { "CERTIFICATE OF COMPLETION" },
+                    { "This is to certify that" },
+                    { "Admini", "strator" },
+                    { "has successfully completed the ", "9-month", " program" },
+                    { "CareerX: Data Science & GenAI" },
+                    { "on 30 Jul 2025" },
+                    { "Issue date: ", "31.07.2025" },
+                    { "Certificate ID: ", "12345" },
+                    { "https://skilledup.tech/certificate/12345" },
+                    { "Director of Programs" },
+            };
+            double y = 20;
+            for (String[] runs : paragraphs) {
+                XSLFTextBox box = slide.createTextBox();
+                box.setAnchor(new Rectangle2D.Double(40, y, 640, 40));
+                box.clearText();
+                var paragraph = box.addNewTextParagraph();
+                for (String text : runs) {
+                    XSLFTextRun run = paragraph.addNewTextRun();
+                    run.setText(text);
+                    run.setFontSize(18.0);
+                }
+                y += 45;
+            }
+            return write(slideShow);
+        }
+    }
+}
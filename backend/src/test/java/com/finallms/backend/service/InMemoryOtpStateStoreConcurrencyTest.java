@@ -0,0 +1,21 @@
+package com.finallms.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class InMemoryOtpStateStoreConcurrencyTest extends OtpStateStoreConcurrencyTest {
+
+    private InMemoryOtpStateStore store;
+
+    @BeforeEach
+    void createStore() {
+        store = new InMemoryOtpStateStore();
+        ReflectionTestUtils.setField(store, "maxEntries", 200000L);
+        store.init();
+    }
+
+    @Override
+    protected OtpStateStore store() {
+        return store;
+    }
+}
@@ -0,0 +1,18 @@
+package com.finallms.backend.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(properties = "app.otp.store=jdbc")
+@ActiveProfiles("test")
+class JdbcOtpStateStoreConcurrencyTest extends OtpStateStoreConcurrencyTest {
+
+    @Autowired
+    private JdbcOtpStateStore store;
+
+    @Override
+    protected OtpStateStore store() {
+        return store;
+    }
+}
@@ -0,0 +1,139 @@
+package com.finallms.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hammers one {@link OtpStateStore} from many threads released together and checks
+ * that counters lose no increments or decrements and that put-if-absent and remove each have
+ * exactly one winner. Subclasses supply the store.
+ */
+abstract class OtpStateStoreConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int ROUNDS = 20;
+    private static final Duration TTL = Duration.ofMinutes(5);
+
+    protected abstract OtpStateStore store();
+
+    @Test
+    void incrementLosesNoUpdates() throws Exception {
+        String key = "otp_rate:" + System.nanoTime();
+        int perThread = 50;
+
+        List<List<Long>> results = race(THREADS, () -> {
+            List<Long> counts = new ArrayList<>();
+            for (int i = 0; i < perThread; i++) {
+                counts.add(store().increment(key, TTL));
+            }
+            return counts;
+        });
+
+        Set<Long> seen = new HashSet<>();
+        results.forEach(seen::addAll);
+        int total = THREADS * perThread;
+        assertEquals(total, seen.size(), "every increment returns a distinct count");
+        for (long count = 1; count <= total; count++) {
+            assertTrue(seen.contains(count), "missing count " + count);
+        }
+        assertEquals(total + 1, store().increment(key, TTL));
+    }
+
+    @Test
+    void decrementGivesBackIncrements() throws Exception {
+        String key = "otp_rate:" + System.nanoTime();
+        for (int i = 0; i < THREADS; i++) {
+            store().increment(key, TTL);
+        }
+
+        race(THREADS, () -> {
+            store().decrement(key);
+            return null;
+        });
+
+        assertEquals(1, store().increment(key, TTL), "every decrement is applied once");
+        store().decrement(key);
+        store().decrement(key);
+        assertEquals(1, store().increment(key, TTL), "a counter does not go below zero");
+    }
+
+    @Test
+    void putIfAbsentHasOneWinner() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            String key = "otp:" + round + ":" + System.nanoTime();
+
+            List<String> stored = race(THREADS, () -> {
+                String value = Thread.currentThread().getName();
+                return store().putIfAbsent(key, value, TTL) ? value : null;
+            });
+
+            stored.removeIf(value -> value == null);
+            assertEquals(1, stored.size(), "winners in round " + round);
+            assertEquals(stored.get(0), store().get(key));
+        }
+    }
+
+    @Test
+    void putIfAbsentTakesOverAnExpiredEntryOnce() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            String key = "otp_cooldown:" + round + ":" + System.nanoTime();
+            store().put(key, "expired", Duration.ofMillis(1));
+            Thread.sleep(5);
+
+            List<Boolean> stored = race(THREADS, () -> store().putIfAbsent(key, "fresh", TTL));
+
+            assertEquals(1, stored.stream().filter(Boolean::booleanValue).count(), "winners in round " + round);
+            assertEquals("fresh", store().get(key));
+        }
+    }
+
+    @Test
+    void removeHasOneWinner() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            String key = "otp:" + round + ":" + System.nanoTime();
+            store().put(key, "123456", TTL);
+
+            List<Boolean> removed = race(THREADS, () -> store().remove(key));
+
+            assertEquals(1, removed.stream().filter(Boolean::booleanValue).count(), "winners in round " + round);
+            assertEquals(null, store().get(key));
+        }
+    }
+
+    // Runs the task on every thread at once and returns each thread's result
+    private static <T> List<T> race(int threads, Callable<T> task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get(60, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}